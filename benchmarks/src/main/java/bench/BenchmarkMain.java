@@ -0,0 +1,32 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.List;
+
+public final class BenchmarkMain {
+    /**
+     * Entry point of the benchmarks jar: runs JMH (see {@link org.openjdk.jmh.Main}) w/the given options, writing the
+     * results in JSON to jmh-result.json unless another result format or file is given (-rf, -rff), so that runs
+     * can be compared by tools (see {@link CompareResults}).
+     *
+     * Usage: java -jar benchmarks.jar [JMH options] [benchmark regexps]
+     */
+
+    static final String DEFAULT_RESULT = "jmh-result.json";
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = Arrays.asList(args);
+        String[] jmhArgs = args;
+        if (!options.contains("-rf") && !options.contains("-rff")) {
+            jmhArgs = new String[args.length + 4];
+            jmhArgs[0] = "-rf";
+            jmhArgs[1] = "json";
+            jmhArgs[2] = "-rff";
+            jmhArgs[3] = DEFAULT_RESULT;
+            System.arraycopy(args, 0, jmhArgs, 4, args.length);
+        }
+        org.openjdk.jmh.Main.main(jmhArgs);
+    }
+}
@@ -0,0 +1,175 @@
+package bench;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+public final class CompareResults {
+    /**
+     * Compares the JSON results of 2 JMH runs (see {@link BenchmarkMain}), e.g. of a baseline & of a change, & outputs
+     * the change of the score of each benchmark found in both. Exits w/status 1 if any benchmark regressed by more than
+     * the threshold (its throughput went down, or its time went up), so it can guard the optimizations in a build.
+     *
+     * Usage: java -cp benchmarks.jar bench.CompareResults baseline.json current.json [thresholdPercent (default 10)]
+     */
+
+    private CompareResults() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java -cp benchmarks.jar bench.CompareResults baseline.json current.json [thresholdPercent]");
+            return;
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> entry : current.entrySet()) {
+            Result before = baseline.get(entry.getKey());
+            if (before == null) continue;
+            Result after = entry.getValue();
+            double change = 100 * (after.score - before.score) / before.score;
+            // + means better: more ops per time unit, or less time per op
+            double improvement = (after.mode.equals("thrpt") ? change : -change) + 0.0;  // (+ 0.0 turns -0.0 into 0.0)
+            boolean regressed = improvement < -threshold;
+            if (regressed) regressions++;
+            System.out.printf(Locale.ROOT, "%-80s %14.3f -> %14.3f %-10s %+7.1f%%%s%n", entry.getKey(), before.score,
+                    after.score, after.unit, improvement, regressed ? "  REGRESSION" : "");
+        }
+        System.out.println(regressions + " regression(s) of more than " + threshold + "%");
+        if (regressions > 0) System.exit(1);
+    }
+
+    /** Score of a benchmark */
+    private static final class Result {
+        final String mode;
+        final double score;
+        final String unit;
+
+        Result(String mode, double score, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.unit = unit;
+        }
+    }
+
+    /**
+     * Reads the results in a JMH JSON result file.
+     * @return {@link Map} from benchmark name & params (e.g. "bench.ParseBenchmark.evaluate n=10 shape=COS") to result
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Result> read(String file) throws IOException {
+        String json = new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8);
+        Map<String, Result> results = new LinkedHashMap<>();
+        for (Object element : (List<Object>) new JsonReader(json).read()) {
+            Map<String, Object> benchmark = (Map<String, Object>) element;
+            StringBuilder key = new StringBuilder((String) benchmark.get("benchmark"));
+            Object params = benchmark.get("params");
+            if (params != null) {
+                new TreeMap<>((Map<String, Object>) params).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            Map<String, Object> metric = (Map<String, Object>) benchmark.get("primaryMetric");
+            Object score = metric.get("score");
+            if (!(score instanceof Number)) continue;  // e.g. "NaN"
+            results.put(key.toString(), new Result((String) benchmark.get("mode"), ((Number) score).doubleValue(),
+                    (String) metric.get("scoreUnit")));
+        }
+        return results;
+    }
+
+    /** Minimal JSON reader: objects as maps, arrays as lists & numbers as doubles */
+    private static final class JsonReader {
+        private final String json;
+        private int pos = 0;
+
+        JsonReader(String json) {
+            this.json = json;
+        }
+
+        Object read() {
+            skipWhitespace();
+            char c = json.charAt(pos);
+            if (c == '{') {
+                Map<String, Object> object = new LinkedHashMap<>();
+                pos++;
+                while (!consume('}')) {
+                    skipWhitespace();
+                    String name = readString();
+                    expect(':');
+                    object.put(name, read());
+                    consume(',');
+                }
+                return object;
+            }
+            if (c == '[') {
+                List<Object> array = new ArrayList<>();
+                pos++;
+                while (!consume(']')) {
+                    array.add(read());
+                    consume(',');
+                }
+                return array;
+            }
+            if (c == '"') return readString();
+            int start = pos;
+            while (pos < json.length() && ",]} \t\r\n".indexOf(json.charAt(pos)) < 0) pos++;
+            String literal = json.substring(start, pos);
+            switch (literal) {
+                case "true":
+                    return true;
+                case "false":
+                    return false;
+                case "null":
+                    return null;
+                default:
+                    return Double.parseDouble(literal);
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder string = new StringBuilder();
+            char c;
+            while ((c = json.charAt(pos++)) != '"') {
+                if (c == '\\') {
+                    c = json.charAt(pos++);
+                    if (c == 'u') {
+                        c = (char) Integer.parseInt(json.substring(pos, pos + 4), 16);
+                        pos += 4;
+                    } else if (c == 'n') c = '\n';
+                    else if (c == 't') c = '\t';
+                    else if (c == 'r') c = '\r';
+                    else if (c == 'b') c = '\b';
+                    else if (c == 'f') c = '\f';
+                }
+                string.append(c);
+            }
+            return string.toString();
+        }
+
+        private boolean consume(char c) {
+            skipWhitespace();
+            if (pos < json.length() && json.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) throw new IllegalArgumentException("Expected '" + c + "' at " + pos + " in JMH results");
+        }
+
+        private void skipWhitespace() {
+            while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) pos++;
+        }
+    }
+}
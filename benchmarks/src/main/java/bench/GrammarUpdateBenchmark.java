@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import parser.ConstructionMethod;
+import parser.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class GrammarUpdateBenchmark {
+    /**
+     * Time to get a parser for a synthetic expression grammar (see {@link Inputs#levelsGrammar(int)}) w/a production
+     * added to its last level of operators (Rk-2 -> MINUS Ek-1 Rk-2), by updating the table of the parser of the
+     * grammar (see {@link Parser#withProductions(String...)}), & to remove it again, compared w/creating a parser for
+     * the changed grammar from scratch.
+     */
+
+    @Param({"levels-10", "levels-100"})
+    public String grammar;
+
+    @Param({"SLR", "LALR1"})
+    public ConstructionMethod method;
+
+    private File changedFile;
+    private Parser parser;
+    private Parser changedParser;
+    private String production;
+
+    @Setup
+    public void setup() throws IOException {
+        int k = Integer.parseInt(grammar.substring("levels-".length()));
+        production = "R" + (k - 2) + " -> MINUS E" + (k - 1) + " R" + (k - 2);
+        parser = new Parser(Inputs.grammar(grammar), method);
+        changedParser = parser.withProductions(production);
+        changedFile = File.createTempFile("grammar", ".txt");
+        changedFile.deleteOnExit();
+        Files.write(changedFile.toPath(), (Inputs.levelsGrammar(k) + production + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public Parser construct() throws IOException {
+        return new Parser(changedFile, method);
+    }
+
+    @Benchmark
+    public Parser addProduction() {
+        return parser.withProductions(production);
+    }
+
+    @Benchmark
+    public Parser removeProduction() {
+        return changedParser.withoutProductions(production);
+    }
+}
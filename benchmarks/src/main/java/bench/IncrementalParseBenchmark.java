@@ -0,0 +1,74 @@
+package bench;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import lexer.TokenEdit;
+import org.openjdk.jmh.annotations.*;
+import parser.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class IncrementalParseBenchmark {
+    /**
+     * Time to get the parse tree of an expression of grammar.txt w/n operators (see {@link Inputs#expression(String, int)})
+     * after a digit near its start, middle or end is changed, as in an interactive calculator: lexing & parsing the
+     * whole input again, compared w/rescanning the chars around the edit & reparsing w/the unchanged subtrees of the
+     * previous tree (see {@link Parser#reparse}).
+     */
+
+    @Param({"PLUS_MINUS", "MULT", "MIXED"})
+    public String shape;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"START", "MIDDLE", "END"})
+    public String at;
+
+    private Parser parser;
+    private final ParseContext context = new ParseContext();
+    private StringBuilder input;
+    private int pos;  // index of the digit edited
+    private TokenBuffer tokens = new TokenBuffer();
+    private TokenBuffer edited = new TokenBuffer();
+    private ParseTreeNode tree;
+
+    @Setup
+    public void setup() throws IOException, InvalidCharException, ParsingError {
+        parser = new Parser(Inputs.grammar("grammar.txt"));
+        input = new StringBuilder(Inputs.expression(shape, n));
+        pos = at.equals("START") ? 0 : at.equals("MIDDLE") ? input.length() / 2 : input.length() - 1;
+        while (!Character.isDigit(input.charAt(pos))) pos++;
+        tree = parser.parse(LexicalAnalyser.scan(input, tokens), context);
+    }
+
+    /** Changes the digit (alternately to 1 & 2, so the expression keeps its size & shape) */
+    private void edit() {
+        input.setCharAt(pos, input.charAt(pos) == '1' ? '2' : '1');
+    }
+
+    @Benchmark
+    public ParseTreeNode parse() throws InvalidCharException, ParsingError {
+        edit();
+        return parser.parse(LexicalAnalyser.scan(input, tokens), context);
+    }
+
+    @Benchmark
+    public ParseTreeNode reparse() throws InvalidCharException, ParsingError {
+        edit();
+        TokenEdit change = LexicalAnalyser.rescan(input, tokens, pos, 1, 1, edited);
+        tree = parser.reparse(tree, edited, change, context);
+        TokenBuffer previous = tokens;  // the tokens after the edit are the previous ones for the next edit
+        tokens = edited;
+        edited = previous;
+        return tree;
+    }
+}
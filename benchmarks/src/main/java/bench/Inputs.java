@@ -0,0 +1,116 @@
+package bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+final class Inputs {
+    /**
+     * Inputs of the benchmarks: expressions of a given shape & size, & grammar specification files
+     * (grammar.txt, from the classpath, & synthetic grammars w/many precedence levels).
+     * Inputs are generated w/fixed seeds, so every run measures the same inputs.
+     */
+
+    /** Short expression w/every kind of token */
+    static final String SHORT = "-4+0.5*cos3.25-12!";
+
+    private Inputs() {}
+
+    /**
+     * Creates an expression of the given shape w/n operators:
+     *  - MULT: deep * chain, e.g. 2*1.5*3 (* is right-associative, so the parser's stack is n deep)
+     *  - PLUS_MINUS: long +/- chain, e.g. 1+2.5-3
+     *  - COS: cos nest, e.g. coscoscos0.5
+     *  - MIXED: random mix of all the operators & numbers
+     * @param shape name of the shape
+     * @param n nr of operators
+     * @return {@link String} the expression
+     */
+    static String expression(String shape, int n) {
+        Random random = new Random(42);
+        StringBuilder expression = new StringBuilder();
+        switch (shape) {
+            case "MULT":
+                expression.append(number(random));
+                for (int i = 0; i < n; i++) expression.append('*').append(number(random));
+                break;
+            case "PLUS_MINUS":
+                expression.append(number(random));
+                for (int i = 0; i < n; i++) expression.append(random.nextBoolean() ? '+' : '-').append(number(random));
+                break;
+            case "COS":
+                for (int i = 0; i < n; i++) expression.append("cos");
+                expression.append(number(random));
+                break;
+            case "MIXED":
+                expression.append(number(random));
+                for (int i = 0; i < n; i++) {
+                    expression.append("+-*".charAt(random.nextInt(3)));
+                    if (random.nextInt(4) == 0) expression.append("cos");
+                    expression.append(number(random));
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape " + shape);
+        }
+        return expression.toString();
+    }
+
+    private static String number(Random random) {
+        return random.nextBoolean() ? Integer.toString(random.nextInt(100)) : random.nextInt(100) + "." + random.nextInt(1000);
+    }
+
+    /**
+     * Gets the file of a grammar:
+     *  - "grammar.txt": the grammar of the calculator (copied from the classpath to a temporary file)
+     *  - "levels-k": synthetic expression grammar w/k levels of binary operators (see {@link #levelsGrammar(int)})
+     * @param name name of the grammar
+     * @return temporary {@link File} w/the grammar specification (deleted on exit)
+     * @throws IOException -- cannot write the file
+     */
+    static File grammar(String name) throws IOException {
+        File file = File.createTempFile("grammar", ".txt");
+        file.deleteOnExit();
+        if (name.equals("grammar.txt")) {
+            try (InputStream in = Inputs.class.getResourceAsStream("/grammar.txt")) {
+                if (in == null) throw new IOException("grammar.txt isn't on the classpath");
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } else if (name.startsWith("levels-")) {
+            String spec = levelsGrammar(Integer.parseInt(name.substring("levels-".length())));
+            Files.write(file.toPath(), spec.getBytes(StandardCharsets.UTF_8));
+        } else {
+            throw new IllegalArgumentException("Unknown grammar " + name);
+        }
+        return file;
+    }
+
+    /**
+     * Creates the specification of an expression grammar w/k levels of left-associative binary operators
+     * (written w/right recursive tails, as the grammar mustn't be left recursive):
+     *   Ei -> Ei+1 Ri,  Ri -> OPi Ei+1 Ri | ε  (for i < k, Ek being P)
+     *   P -> LPAREN E0 RPAREN | MINUS P | INT | FLOAT
+     * @param k nr of levels (> 0)
+     * @return {@link String} grammar specification (see parser.Parser#Parser(File) for the format)
+     */
+    static String levelsGrammar(int k) {
+        StringBuilder nonterms = new StringBuilder();
+        StringBuilder terms = new StringBuilder();
+        StringBuilder productions = new StringBuilder();
+        for (int i = 0; i < k; i++) {
+            String next = i + 1 < k ? "E" + (i + 1) : "P";
+            nonterms.append("E").append(i).append(",R").append(i).append(',');
+            terms.append("OP").append(i).append(',');
+            productions.append("E").append(i).append(" -> ").append(next).append(" R").append(i).append('\n');
+            productions.append("R").append(i).append(" -> OP").append(i).append(' ').append(next).append(" R").append(i).append(" | ε\n");
+        }
+        nonterms.append("P");
+        terms.append("LPAREN,RPAREN,MINUS,INT,FLOAT,ε");
+        productions.append("P -> LPAREN E0 RPAREN | MINUS P | INT | FLOAT\n");
+        return nonterms + "\n" + terms + "\n" + productions;
+    }
+}
@@ -0,0 +1,64 @@
+package bench;
+
+import kernel.Cosine;
+import kernel.Factorial;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KernelBenchmark {
+    /**
+     * Throughput of the arithmetic kernels for each size class:
+     *  - factorial: long table (n <= 20), double table (n <= 170) & exact BigInteger factorial of larger n
+     *  - cos: integer operands (table) & other operands (Math.cos), compared w/Math.cos of integer operands
+     */
+
+    @Param({"10", "150", "1000", "10000", "100000"})
+    public int n;
+
+    private final Factorial factorial = new Factorial();
+    private double integerAngle;
+    private double angle;
+
+    @Setup
+    public void setup() {
+        integerAngle = n % Cosine.TABLE_SIZE;
+        angle = n + 0.5;
+    }
+
+    @Benchmark
+    public long factorialAsLong() {
+        return Factorial.asLong(Math.min(n, Factorial.MAX_LONG_N));
+    }
+
+    @Benchmark
+    public double factorialAsDouble() {
+        return Factorial.asDouble(n);
+    }
+
+    @Benchmark
+    public int exactFactorial() {
+        return factorial.exact(n).bitLength();
+    }
+
+    @Benchmark
+    public double cosInteger() {
+        return Cosine.cos(integerAngle);
+    }
+
+    @Benchmark
+    public double mathCosInteger() {
+        return Math.cos(integerAngle);
+    }
+
+    @Benchmark
+    public double cos() {
+        return Cosine.cos(angle);
+    }
+}
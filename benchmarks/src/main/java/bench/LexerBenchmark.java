@@ -0,0 +1,59 @@
+package bench;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LexerBenchmark {
+    /**
+     * Time to lex a short expression & a huge one (1M operators, ~5MB), from a string & from a (memory-mapped) file,
+     * into a reused token buffer or into a list of tokens.
+     */
+
+    @Param({"short", "huge"})
+    public String input;
+
+    private String text;
+    private File file;
+    private final TokenBuffer buffer = new TokenBuffer();
+
+    @Setup
+    public void setup() throws IOException {
+        text = input.equals("short") ? Inputs.SHORT : Inputs.expression("MIXED", 1_000_000);
+        file = File.createTempFile("input", ".txt");
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public int scanString() throws InvalidCharException {
+        return LexicalAnalyser.scan(text, buffer).size();
+    }
+
+    @Benchmark
+    public int scanFile() throws IOException, InvalidCharException {
+        return LexicalAnalyser.scan(file, buffer).size();
+    }
+
+    @Benchmark
+    public int scanFileToList() throws IOException, InvalidCharException {
+        return LexicalAnalyser.scan(file).size();
+    }
+}
@@ -0,0 +1,80 @@
+package bench;
+
+import lexer.NumberScanner;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NumberScanningBenchmark {
+    /**
+     * Time per literal to convert FLOAT literals w/{@link NumberScanner} & w/{@link Double#parseDouble}, for literals
+     * of a few kinds: short (e.g. 12.5), long (17 digits), small (0.000...) & w/more than 19 digits.
+     * The setup checks that both give exactly the same doubles.
+     */
+
+    private static final int LITERALS = 1024;
+
+    @Param({"SHORT", "LONG", "SMALL", "MANY_DIGITS"})
+    public String kind;
+
+    private final String[] literals = new String[LITERALS];
+    private final NumberScanner scanner = new NumberScanner();
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        for (int i = 0; i < LITERALS; i++) literals[i] = literal(kind, random);
+
+        for (String literal : literals) {
+            scanner.scan(literal, 0, literal.length());
+            if (Double.doubleToRawLongBits(scanner.getDouble()) != Double.doubleToRawLongBits(Double.parseDouble(literal))) {
+                throw new IllegalStateException("NumberScanner & Double.parseDouble differ for " + literal);
+            }
+        }
+    }
+
+    private static String literal(String kind, Random random) {
+        switch (kind) {
+            case "SHORT":
+                return random.nextInt(1000) + "." + random.nextInt(100);
+            case "LONG":
+                return digits(random, 1 + random.nextInt(8)) + "." + digits(random, 9);
+            case "SMALL":
+                return "0." + "0".repeat(random.nextInt(30)) + digits(random, 1 + random.nextInt(17));
+            default:
+                return digits(random, 10) + "." + digits(random, 10 + random.nextInt(20));
+        }
+    }
+
+    private static String digits(Random random, int n) {
+        StringBuilder digits = new StringBuilder(n);
+        for (int i = 0; i < n; i++) digits.append((char) ('0' + random.nextInt(10)));
+        return digits.toString();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LITERALS)
+    public double numberScanner() {
+        double sum = 0;
+        for (String literal : literals) {
+            scanner.scan(literal, 0, literal.length());
+            sum += scanner.getDouble();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LITERALS)
+    public double parseDouble() {
+        double sum = 0;
+        for (String literal : literals) sum += Double.parseDouble(literal);
+        return sum;
+    }
+}
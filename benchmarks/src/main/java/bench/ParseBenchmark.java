@@ -0,0 +1,57 @@
+package bench;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+import parser.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class ParseBenchmark {
+    /**
+     * Time to parse (already lexed) expressions of grammar.txt w/n operators: deep * chains, long +/- chains & cos nests
+     * (see {@link Inputs#expression(String, int)}), building a tree of {@link ParseTreeNode}s, building a compact
+     * {@link ParseTree} & evaluating w/o building a tree.
+     */
+
+    @Param({"MULT", "PLUS_MINUS", "COS"})
+    public String shape;
+
+    @Param({"10", "1000", "100000"})
+    public int n;
+
+    private Parser parser;
+    private final ParseContext context = new ParseContext();
+    private final ParseTree tree = new ParseTree();
+    private final SemanticActions actions = SemanticActions.arithmetic();
+    private final TokenBuffer tokens = new TokenBuffer();
+
+    @Setup
+    public void setup() throws IOException, InvalidCharException {
+        parser = new Parser(Inputs.grammar("grammar.txt"));
+        LexicalAnalyser.scan(Inputs.expression(shape, n), tokens);
+    }
+
+    @Benchmark
+    public ParseTreeNode parseTree() throws ParsingError {
+        return parser.parse(tokens, context);
+    }
+
+    @Benchmark
+    public int parseArena() throws ParsingError {
+        return parser.parse(tokens, context, tree);
+    }
+
+    @Benchmark
+    public double evaluate() throws ParsingError {
+        return parser.evaluate(tokens, context, actions);
+    }
+}
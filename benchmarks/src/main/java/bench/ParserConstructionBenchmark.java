@@ -0,0 +1,41 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import parser.ConstructionMethod;
+import parser.Parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class ParserConstructionBenchmark {
+    /**
+     * Time to create a parser (load the grammar & construct its SLR, LALR(1) or LR(1) parsing table) for grammar.txt &
+     * for synthetic expression grammars w/10 & 100 levels of operators (59 & 509 LR(0) states, 116 & 1016 LR(1) states,
+     * see {@link Inputs#levelsGrammar(int)}).
+     */
+
+    @Param({"grammar.txt", "levels-10", "levels-100"})
+    public String grammar;
+
+    @Param({"SLR", "LALR1", "LR1"})
+    public ConstructionMethod method;
+
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Inputs.grammar(grammar);
+    }
+
+    @Benchmark
+    public Parser construct() throws IOException {
+        return new Parser(file, method);
+    }
+}
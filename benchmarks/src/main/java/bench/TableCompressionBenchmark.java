@@ -0,0 +1,56 @@
+package bench;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import org.openjdk.jmh.annotations.*;
+import parser.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dfile.encoding=UTF-8")
+public class TableCompressionBenchmark {
+    /**
+     * Parse throughput w/the dense & the compressed ACTION/GOTO tables of grammar.txt (see
+     * {@link Parser#withCompressedTables()}), building a compact {@link ParseTree} & evaluating.
+     * The footprints of the tables of larger grammars are given by {@link TableFootprint}.
+     */
+
+    @Param({"DENSE", "COMPRESSED"})
+    public String tables;
+
+    @Param({"MIXED", "MULT"})
+    public String shape;
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    private Parser parser;
+    private final ParseContext context = new ParseContext();
+    private final ParseTree tree = new ParseTree();
+    private final SemanticActions actions = SemanticActions.arithmetic();
+    private final TokenBuffer tokens = new TokenBuffer();
+
+    @Setup
+    public void setup() throws IOException, InvalidCharException {
+        parser = new Parser(Inputs.grammar("grammar.txt"));
+        if (tables.equals("COMPRESSED")) parser = parser.withCompressedTables();
+        LexicalAnalyser.scan(Inputs.expression(shape, n), tokens);
+    }
+
+    @Benchmark
+    public int parseArena() throws ParsingError {
+        return parser.parse(tokens, context, tree);
+    }
+
+    @Benchmark
+    public double evaluate() throws ParsingError {
+        return parser.evaluate(tokens, context, actions);
+    }
+}
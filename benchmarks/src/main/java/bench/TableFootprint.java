@@ -0,0 +1,34 @@
+package bench;
+
+import parser.ConstructionMethod;
+import parser.Parser;
+
+import java.io.IOException;
+import java.util.Locale;
+
+public final class TableFootprint {
+    /**
+     * Outputs the size of the dense & compressed ACTION/GOTO tables (see {@link Parser#withCompressedTables()})
+     * of grammar.txt & of the synthetic grammars w/10 & 100 levels of operators, for each construction method.
+     * The grammars are given as in {@link Inputs#grammar(String)}.
+     *
+     * Usage: java -Dfile.encoding=UTF-8 -cp benchmarks.jar bench.TableFootprint [grammar ...]
+     */
+
+    private TableFootprint() {}
+
+    public static void main(String[] args) throws IOException {
+        String[] grammars = args.length > 0 ? args : new String[]{"grammar.txt", "levels-10", "levels-100"};
+        System.out.printf(Locale.ROOT, "%-12s %-6s %7s %12s %12s %7s%n", "grammar", "method", "states", "dense (B)",
+                "compr. (B)", "ratio");
+        for (String grammar : grammars) {
+            for (ConstructionMethod method : ConstructionMethod.values()) {
+                Parser parser = new Parser(Inputs.grammar(grammar), method);
+                long dense = parser.getTableBytes();
+                long compressed = parser.withCompressedTables().getTableBytes();
+                System.out.printf(Locale.ROOT, "%-12s %-6s %7d %12d %12d %6.1f%%%n", grammar, method, parser.getNumStates(),
+                        dense, compressed, 100.0 * compressed / dense);
+            }
+        }
+    }
+}
@@ -55,9 +55,8 @@ public class Main {
         System.out.println("------------------");
         System.out.println("Grammar specification (in " + grammarFilePathname + ") : \n---\n" + source.toString());
 
-        // create parser, construct parsing table & parse input
+        // create parser (constructs parsing table) & parse input
         Parser parser = new Parser(specificationFile);
-        parser.constructSLRparsingTable();
         ParseTreeNode root = parser.parse(tokenStream);
 
         System.out.println("\n------------------");
@@ -0,0 +1,139 @@
+package eval;
+
+import lexer.Token;
+import lexer.TokenBuffer;
+import lexer.TokenName;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ResultCache {
+    /**
+     * LRU cache of the results of expressions, keyed by their normalized token sequence (see {@link #key}),
+     * so an expression which is repeated (even if written differently, e.g. "4.50" & "4.5") is only evaluated once.
+     * When the cache is full, the least recently used result is evicted.
+     * Thread safe (all the methods are synchronized).
+     */
+
+    private final int maxSize;
+    private final Map<String, Double> results;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * @param maxSize max nr of results kept in the cache
+     */
+    public ResultCache(int maxSize) {
+        if (maxSize < 1) throw new IllegalArgumentException("Cache size must be at least 1: " + maxSize);
+        this.maxSize = maxSize;
+        results = new LinkedHashMap<String, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+                if (size() <= ResultCache.this.maxSize) return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the normalized token sequence of the tokens in the buffer: the names of the tokens, w/the values of
+     * numbers in canonical form (INT: its decimal digits w/o leading zeros, FLOAT: {@link Double#toString}).
+     * @param tokens {@link TokenBuffer} tokens of the expression
+     * @return {@link String} key of the expression
+     */
+    public static String key(TokenBuffer tokens) {
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < tokens.size(); i++) {
+            TokenName name = tokens.getName(i);
+            appendKey(key, name, name == TokenName.INT || name == TokenName.FLOAT ? tokens.getValue(i) : null);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Gets the normalized token sequence of the given tokens (see {@link #key(TokenBuffer)}).
+     * @param tokens {@link List} of tokens of the expression (an input endmarker at the end is ignored)
+     * @return {@link String} key of the expression
+     */
+    public static <T extends Token<?>> String key(List<T> tokens) {
+        StringBuilder key = new StringBuilder();
+        for (Token<?> token : tokens) {
+            if (token.getName() == TokenName.INPUTENDMARKER) break;
+            boolean number = token.getName() == TokenName.INT || token.getName() == TokenName.FLOAT;
+            appendKey(key, token.getName(), number ? token.getValue() : null);
+        }
+        return key.toString();
+    }
+
+    private static void appendKey(StringBuilder key, TokenName name, Object value) {
+        if (key.length() > 0) key.append(' ');
+        key.append(name);
+        if (value != null) key.append(':').append(value);
+    }
+
+    /**
+     * Gets the cached result of an expression (counts a hit or a miss).
+     * @param key {@link String} key of the expression
+     * @return {@link Double} result, null if not in the cache
+     */
+    public synchronized Double get(String key) {
+        Double result = results.get(key);
+        if (result == null) misses++;
+        else hits++;
+        return result;
+    }
+
+    /**
+     * Puts the result of an expression in the cache, evicting the least recently used result if it's full.
+     * @param key {@link String} key of the expression
+     * @param result result of the expression
+     */
+    public synchronized void put(String key, double result) {
+        results.put(key, result);
+    }
+
+    public synchronized void clear() {
+        results.clear();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int size() {
+        return results.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** @return nr of results evicted because the cache was full */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+
+    /** Resets the hit, miss & eviction counts */
+    public synchronized void resetStats() {
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d results, %d hits, %d misses (%.1f%% hit rate), %d evictions",
+                results.size(), maxSize, hits, misses, 100 * getHitRate(), evictions);
+    }
+}
@@ -0,0 +1,242 @@
+package eval;
+
+import kernel.Cosine;
+import kernel.Factorial;
+
+import lexer.TokenBuffer;
+import parser.ParseContext;
+import parser.ParseTreeNode;
+import parser.ParseTreeVisitor;
+import parser.Parser;
+import parser.ParsingError;
+import parser.SemanticActions;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+public class TreeEvaluator {
+    /**
+     * Evaluates the parse trees (as built by {@link Parser#parse}) of the arithmetic expressions of grammar.txt,
+     * w/the same semantics as {@link SemanticActions#arithmetic()}: right-associative *, & + & - applied in
+     * left-to-right order although they're in the right recursive E' tail (the terms of the E' chain are folded
+     * into the value of S when evaluating E -> S E').
+     *
+     * Every subtree is a constant, so each distinct subtree is only evaluated once per batch: subtrees are
+     * interned bottom-up by their symbol & the ids of their children, & the value of each id is memoized.
+     * A tree which has already been evaluated isn't walked again. {@link #clearMemo()} starts a new
+     * batch. Optionally, the results of whole expressions are also kept in a {@link ResultCache}
+     * (see {@link #evaluate(Parser, TokenBuffer, ParseContext)}).
+     *
+     * An evaluator isn't thread safe (its memo is shared by all the trees it evaluates).
+     */
+
+    private static final int NONE = -1;
+
+    private final ResultCache cache;
+
+    // interned subtrees
+    private final Map<SubtreeKey, Integer> ids = new HashMap<>();
+    private final Map<ParseTreeNode, Integer> rootIds = new IdentityHashMap<>();  // trees already evaluated
+    private String[] symbol = new String[256];
+    private double[] value = new double[256];
+    private int[] term = new int[256];  // E' nodes: id of S (NONE for E' -> ε)
+    private int[] rest = new int[256];  // E' nodes: id of the E' in its body
+    private boolean[] minus = new boolean[256];  // E' nodes: true for E' -> MINUS S E'
+    private int size = 0;
+
+    // state of the current walk
+    private int[] idStack = new int[64];  // ids of the nodes exited, whose parent hasn't been exited yet
+    private int idTop = 0;
+    private int[] frameStack = new int[64];  // size of idStack when entering each node being visited
+    private int frameTop = 0;
+
+    private final ParseTreeVisitor walker = new ParseTreeVisitor() {
+        @Override
+        public boolean enter(ParseTreeNode node) {
+            if (frameTop == frameStack.length) frameStack = Arrays.copyOf(frameStack, 2 * frameTop);
+            frameStack[frameTop++] = idTop;
+            return true;
+        }
+
+        @Override
+        public void exit(ParseTreeNode node) {
+            int first = frameStack[--frameTop];
+            int id = intern(node.getSymbol(), Arrays.copyOfRange(idStack, first, idTop));
+            idTop = first;
+            pushId(id);
+        }
+    };
+
+    /**
+     * Create an evaluator w/o a result cache.
+     */
+    public TreeEvaluator() {
+        this(null);
+    }
+
+    /**
+     * @param cache {@link ResultCache} for the results of whole expressions (may be shared), null for none
+     */
+    public TreeEvaluator(ResultCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Evaluates the expression whose parse tree is rooted at the given node.
+     * @param root {@link ParseTreeNode} root of the parse tree (of a stmt, or of any subtree)
+     * @return value of the expression
+     * @throws IllegalArgumentException -- the tree isn't a parse tree of grammar.txt
+     */
+    public double evaluate(ParseTreeNode root) {
+        Integer id = rootIds.get(root);
+        if (id == null) {
+            idTop = 0;
+            frameTop = 0;
+            root.accept(walker);
+            id = idStack[0];
+            rootIds.put(root, id);
+        }
+        return value[id];
+    }
+
+    /**
+     * Evaluates the expression in the given buffer, getting its result from the result cache if it's there
+     * (& otherwise parsing & evaluating it, & putting its result in the cache).
+     * @param parser {@link Parser} for grammar.txt
+     * @param tokens {@link TokenBuffer} tokens of the expression
+     * @param context {@link ParseContext} for the parser
+     * @return value of the expression
+     */
+    public double evaluate(Parser parser, TokenBuffer tokens, ParseContext context) throws ParsingError {
+        if (cache == null) return evaluate(parser.parse(tokens, context));
+
+        String key = ResultCache.key(tokens);
+        Double result = cache.get(key);
+        if (result != null) return result;
+        double computed = evaluate(parser.parse(tokens, context));
+        cache.put(key, computed);
+        return computed;
+    }
+
+    /** @return {@link ResultCache} of the evaluator, null if it has none */
+    public ResultCache getCache() {
+        return cache;
+    }
+
+    /** @return nr of distinct subtrees memoized */
+    public int getMemoSize() {
+        return size;
+    }
+
+    /** Forgets the memoized subtrees (e.g. at the end of a batch), so their memory can be reclaimed */
+    public void clearMemo() {
+        ids.clear();
+        rootIds.clear();
+        Arrays.fill(symbol, 0, size, null);
+        size = 0;
+    }
+
+    private void pushId(int id) {
+        if (idTop == idStack.length) idStack = Arrays.copyOf(idStack, 2 * idTop);
+        idStack[idTop++] = id;
+    }
+
+    /**
+     * Gets the id of the subtree w/the given root symbol & children, evaluating it if it's new.
+     * @param children ids of the children, in the order of {@link ParseTreeNode#getChildren()}
+     * (the reverse of the order of the symbols in the body of the production)
+     */
+    private int intern(String sym, int[] children) {
+        SubtreeKey key = new SubtreeKey(sym, children);
+        Integer known = ids.get(key);
+        if (known != null) return known;
+
+        if (size == symbol.length) {
+            int capacity = 2 * size;
+            symbol = Arrays.copyOf(symbol, capacity);
+            value = Arrays.copyOf(value, capacity);
+            term = Arrays.copyOf(term, capacity);
+            rest = Arrays.copyOf(rest, capacity);
+            minus = Arrays.copyOf(minus, capacity);
+        }
+        int id = size++;
+        symbol[id] = sym;
+        term[id] = NONE;
+        value[id] = evaluate(id, sym, children);
+        ids.put(key, id);
+        return id;
+    }
+
+    /** Computes the value of a new subtree (whose children have all been evaluated) */
+    private double evaluate(int id, String sym, int[] children) {
+        int length = children.length;
+        switch (sym) {
+            case "INT":
+            case "FLOAT":  // value is the symbol of the child
+                return Double.parseDouble(symbol[body(children, 0)]);
+            case "sign":
+                return length > 0 && "MINUS".equals(symbol[body(children, 0)]) ? -1 : 1;
+            case "N":
+                return value[body(children, 0)] * value[body(children, 1)];
+            case "E'":
+                if (length == 3) {
+                    minus[id] = "MINUS".equals(symbol[body(children, 0)]);
+                    term[id] = body(children, 1);
+                    rest[id] = body(children, 2);
+                }
+                return 0;  // the terms are folded when evaluating E
+            case "E": {
+                double result = value[body(children, 0)];
+                for (int e = body(children, 1); term[e] != NONE; e = rest[e]) {
+                    result = minus[e] ? result - value[term[e]] : result + value[term[e]];
+                }
+                return result;
+            }
+            case "S":
+                if (length == 3) return value[body(children, 0)] * value[body(children, 2)];
+                break;
+            case "F":
+                if (length == 2) return Cosine.cos(value[body(children, 1)]);
+                break;
+            case "T":
+                if (length == 2) return Factorial.asDouble(value[body(children, 0)]);
+                break;
+            default:
+                if (length == 0) return Double.NaN;  // terminal (or value of a number)
+        }
+        if (length != 1) throw new IllegalArgumentException("Not a parse tree of grammar.txt: " + sym + " w/" + length + " children");
+        return value[children[0]];
+    }
+
+    /** @return id of the i-th symbol of the body of the production (children are in reverse order) */
+    private static int body(int[] children, int i) {
+        return children[children.length - 1 - i];
+    }
+
+    /** Symbol & children ids of a subtree */
+    private static final class SubtreeKey {
+        private final String symbol;
+        private final int[] children;
+        private final int hash;
+
+        SubtreeKey(String symbol, int[] children) {
+            this.symbol = symbol;
+            this.children = children;
+            this.hash = 31 * symbol.hashCode() + Arrays.hashCode(children);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SubtreeKey)) return false;
+            SubtreeKey other = (SubtreeKey) obj;
+            return hash == other.hash && symbol.equals(other.symbol) && Arrays.equals(children, other.children);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package kernel;
+
+public final class Cosine {
+    /**
+     * Cos kernel. Most operands of cos in the inputs are small integers (e.g. "cos3"), whose cos is looked up
+     * in a table precomputed w/{@link Math#cos}; other operands are passed on to {@link Math#cos}.
+     * The results are therefore always the same as those of Math.cos.
+     */
+
+    public static final int TABLE_SIZE = 1024;  // operands 0 .. TABLE_SIZE - 1 (& their negations) are in the table
+
+    private static final double[] TABLE = new double[TABLE_SIZE];
+
+    static {
+        for (int i = 0; i < TABLE_SIZE; i++) TABLE[i] = Math.cos(i);
+    }
+
+    private Cosine() {}
+
+    /**
+     * @param x angle in radians
+     * @return cos x
+     */
+    public static double cos(double x) {
+        double abs = Math.abs(x);  // cos is even
+        int i = (int) abs;
+        if (i == abs && i < TABLE_SIZE) return TABLE[i];
+        return Math.cos(x);
+    }
+}
@@ -0,0 +1,163 @@
+package kernel;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+public final class Factorial {
+    /**
+     * Factorial kernel, w/a method for each size class:
+     *  - n <= 20: n! fits in a long & is looked up in a table ({@link #asLong(int)})
+     *  - n <= 170: n! fits in a double & is looked up in a table ({@link #asDouble(double)}, which is infinite above)
+     *  - larger n: exact {@link BigInteger} factorial ({@link #exact(int)}), computed w/the split-recursive
+     *    algorithm: n! = 2^(n - bitCount(n)) * Π P(k)^(k+1), where P(k) is the product of the odd numbers in
+     *    (n >> (k+1), n >> k]. The products of odd numbers are computed by binary splitting (so the numbers
+     *    multiplied together have similar sizes) & the large ones are split into fork/join tasks.
+     * Exact factorials are limited to n <= cap, as their computation time & size grow quickly w/n
+     * (100000! has 456574 digits).
+     */
+
+    public static final int MAX_LONG_N = 20;
+    public static final int MAX_DOUBLE_N = 170;
+    public static final int DEFAULT_CAP = 100_000;
+
+    private static final int PARALLEL_THRESHOLD = 2048;  // ranges w/fewer odd numbers are multiplied sequentially
+    private static final int SEQUENTIAL_N = 4096;  // below this, n! is computed w/o fork/join tasks
+
+    private static final long[] LONG_FACTORIALS = new long[MAX_LONG_N + 1];
+    private static final double[] DOUBLE_FACTORIALS = new double[MAX_DOUBLE_N + 1];
+
+    static {
+        LONG_FACTORIALS[0] = 1;
+        for (int i = 1; i <= MAX_LONG_N; i++) LONG_FACTORIALS[i] = LONG_FACTORIALS[i - 1] * i;
+        // exact products, rounded once (multiplying doubles would accumulate rounding errors)
+        BigInteger f = BigInteger.ONE;
+        DOUBLE_FACTORIALS[0] = 1;
+        for (int i = 1; i <= MAX_DOUBLE_N; i++) {
+            f = f.multiply(BigInteger.valueOf(i));
+            DOUBLE_FACTORIALS[i] = f.doubleValue();
+        }
+    }
+
+    private final int cap;
+    private final ForkJoinPool pool;
+
+    /**
+     * Create a kernel w/the default cap, running on the common fork/join pool.
+     */
+    public Factorial() {
+        this(DEFAULT_CAP, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param cap max n for which {@link #exact(int)} computes n!
+     * @param pool {@link ForkJoinPool} to compute large factorials on
+     */
+    public Factorial(int cap, ForkJoinPool pool) {
+        if (cap < 0) throw new IllegalArgumentException("Cap must not be negative: " + cap);
+        this.cap = cap;
+        this.pool = pool;
+    }
+
+    public int getCap() {
+        return cap;
+    }
+
+    /**
+     * @param n 0 <= n <= 20
+     * @return n!
+     * @throws ArithmeticException -- n! doesn't fit in a long (or n is negative)
+     */
+    public static long asLong(int n) {
+        if (n < 0 || n > MAX_LONG_N) throw new ArithmeticException("n! doesn't fit in a long for n = " + n);
+        return LONG_FACTORIALS[n];
+    }
+
+    /**
+     * @param n non negative integer
+     * @return n! rounded to the nearest double (infinite for n > 170), NaN if n isn't a non negative integer
+     */
+    public static double asDouble(double n) {
+        if (n >= 0 && n <= MAX_DOUBLE_N) {
+            int i = (int) n;
+            return i == n ? DOUBLE_FACTORIALS[i] : Double.NaN;
+        }
+        return n > MAX_DOUBLE_N && n == Math.rint(n) ? Double.POSITIVE_INFINITY : Double.NaN;
+    }
+
+    /**
+     * Computes n! exactly.
+     * @param n 0 <= n <= cap
+     * @return n!
+     * @throws ArithmeticException -- n is negative or above the cap
+     */
+    public BigInteger exact(int n) {
+        if (n < 0) throw new ArithmeticException("Factorial of negative number " + n);
+        if (n > cap) throw new ArithmeticException(n + "! is above the cap (" + cap + "!)");
+        if (n <= MAX_LONG_N) return BigInteger.valueOf(LONG_FACTORIALS[n]);
+
+        List<ForkJoinTask<BigInteger>> oddProducts = new ArrayList<>();  // P(k) for k = 0, 1, ...
+        for (int high = n; high > 2; high >>= 1) {
+            OddProduct task = new OddProduct(high >> 1, high);
+            oddProducts.add(n < SEQUENTIAL_N ? task : pool.submit(task));
+        }
+
+        // Π P(k)^(k+1), multiplying the P(k) from the largest k down
+        BigInteger p = BigInteger.ONE;
+        BigInteger r = BigInteger.ONE;
+        for (int k = oddProducts.size() - 1; k >= 0; k--) {
+            ForkJoinTask<BigInteger> task = oddProducts.get(k);
+            p = p.multiply(n < SEQUENTIAL_N ? ((OddProduct) task).compute() : task.join());
+            r = r.multiply(p);
+        }
+        return r.shiftLeft(n - Integer.bitCount(n));
+    }
+
+    /** Product of the odd numbers in (low, high], by binary splitting */
+    private static final class OddProduct extends RecursiveTask<BigInteger> {
+        private static final long serialVersionUID = 1L;
+
+        private final int low;
+        private final int high;
+
+        OddProduct(int low, int high) {
+            this.low = low;
+            this.high = high;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            int first = (low + 1) | 1;  // 1st odd number > low
+            int last = (high - 1) | 1;  // last odd number <= high
+            if (last > high) last -= 2;
+            int count = last < first ? 0 : (last - first) / 2 + 1;
+            if (count >= PARALLEL_THRESHOLD && getPool() != null) {
+                int mid = first + 2 * (count / 2) - 1;  // split after the (count / 2)th odd number
+                OddProduct upper = new OddProduct(mid, high);
+                upper.fork();
+                BigInteger lower = new OddProduct(low, mid).compute();
+                return lower.multiply(upper.join());
+            }
+            return product(first, count);
+        }
+
+        /** Product of count consecutive odd numbers from first */
+        private static BigInteger product(long first, int count) {
+            if (count <= 0) return BigInteger.ONE;
+            if (count <= 8) {  // fits in a long if the numbers are small enough
+                long result = 1;
+                long max = first + 2L * (count - 1);
+                if (64 - Long.numberOfLeadingZeros(max) <= 63 / count) {
+                    for (int i = 0; i < count; i++) result *= first + 2L * i;
+                    return BigInteger.valueOf(result);
+                }
+                if (count == 1) return BigInteger.valueOf(first);
+            }
+            int half = count / 2;
+            return product(first, half).multiply(product(first + 2L * half, count - half));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package lexer;
+
+import java.io.IOException;
+
+/**
+ * Streaming lexer reading its input from a {@link CharSequence}.
+ * It can be reset to lex a new input string, so a single lexer can be used for many inputs
+ * (e.g. the lines of a file, read into a reused {@link StringBuilder}).
+ */
+public final class CharSequenceLexer extends StreamingLexer {
+    private CharSequence input;
+    private int pos = 0;
+
+    public CharSequenceLexer(CharSequence input) {
+        this.input = input;
+    }
+
+    /**
+     * Makes the lexer produce the tokens for a new input string, from its start.
+     * @param input {@link CharSequence} input string to be tokenised
+     */
+    public void reset(CharSequence input) {
+        reset(input, 0);
+    }
+
+    /**
+     * Makes the lexer produce the tokens for a new input string, from the given index (offsets of the tokens
+     * are then relative to that index).
+     * @param input {@link CharSequence} input string to be tokenised
+     * @param start index of the char to start at
+     */
+    void reset(CharSequence input, int start) {
+        this.input = input;
+        pos = start;
+        restart();
+    }
+
+    @Override
+    public void scanAll(TokenBuffer buffer) throws InvalidCharException {
+        try {
+            super.scanAll(buffer);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);  // can't happen, input is in memory
+        }
+    }
+
+    @Override
+    int read() {
+        return pos < input.length() ? input.charAt(pos++) : -1;
+    }
+}
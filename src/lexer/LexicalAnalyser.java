@@ -1,6 +1,11 @@
 package lexer;
 
+import metrics.LexEvent;
+import metrics.MetricNames;
+import metrics.Metrics;
+
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -8,6 +13,7 @@ public class LexicalAnalyser {
 
     /**
      * Scans the given txt file (its 1st line) and produces a list of tokens for it.
+     * The file is memory-mapped & its bytes are lexed as ASCII chars (see {@link MappedFileLexer}).
      *
      * @param textFile file {@link File} containing input string to be tokenised
      * @return list {@link List} of tokens {@link Token} for the input string
@@ -16,90 +22,168 @@ public class LexicalAnalyser {
      */
     public static List<Token> scan(File textFile) throws IOException, InvalidCharException {
         List<Token> result = new ArrayList<>();
+        LexEvent event = new LexEvent();
+        event.begin();
+        long start = System.nanoTime();
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(textFile))) {
-            int peekInt = reader.read();  // read next char from input str
-            char peek = (char) peekInt;
-            boolean isNum;
-
-            while (peekInt != -1) {
-                isNum = false;
-
-                // cos operator
-                if (peek == 'c') {
-                    peek = (char) reader.read();
-                    if (peek == 'o') {
-                        peek = (char) reader.read();
-                        if (peek == 's') {
-                            Token<String> token = new Token<>(TokenName.COS, "cos");
-                            result.add(token);
-                        } else {
-                            throw new InvalidCharException(peek);
-                        }
-                    } else {
-                        throw new InvalidCharException(peek);
-                    }
-                // numbers
-                } else if (Character.isDigit(peek)) {
-                    int v = 0;  // calc value of int num
-                    while (Character.isDigit(peek)) {
-                        v = v * 10 + Integer.parseInt(String.valueOf(peek));
-                        peekInt = reader.read();
-                        peek = (char) peekInt;
-                    }
-                    // float
-                    if (peek == '.') {
-                        peek = (char) reader.read();
-                        int d = 10;
-                        double vf = v;  // calc value of float num
-                        while (Character.isDigit(peek)) {
-                            vf += Integer.parseInt(String.valueOf(peek)) / (double) d;
-                            peekInt = reader.read();
-                            peek = (char) peekInt;
-                            d *= 10;
-                        }
-                        Token<Double> token = new Token<>(TokenName.FLOAT, vf);
-                        result.add(token);
-
-                    } else { // was an integer
-                        Token<Integer> token = new Token<>(TokenName.INT, v);
-                        result.add(token);
-                    }
+        try (MappedFileLexer tokens = new MappedFileLexer(textFile)) {
+            Token<?> token = tokens.next();
+            while (token.getName() != TokenName.INPUTENDMARKER) {
+                result.add(token);
+                token = tokens.next();
+            }
+            record(event, start, textFile, tokens.size(), result.size());
+        }
 
-                    isNum = true;
-
-                } else {
-                    // operators
-                    Token<String> token = null;
-                    switch (peek){
-                        case '+':
-                            token = new Token<>(TokenName.PLUS, String.valueOf(peek));
-                            break;
-                        case '-':
-                            token = new Token<>(TokenName.MINUS, String.valueOf(peek));
-                            break;
-                        case '*':
-                            token = new Token<>(TokenName.MULT, String.valueOf(peek));
-                            break;
-                        case '!':
-                            token = new Token<>(TokenName.FACTORIAL, String.valueOf(peek));
-                            break;
-                    }
-                    if(token != null) result.add(token);
-                    else throw new InvalidCharException(peek);
-                }
+        return result;
+    }
+
+    /**
+     * Scans the given txt file into a token buffer, without allocating anything per token.
+     * The file is memory-mapped & its bytes are lexed as ASCII chars (see {@link MappedFileLexer}).
+     *
+     * @param textFile file {@link File} containing input string to be tokenised
+     * @param buffer {@link TokenBuffer} to put the tokens in (it's cleared 1st)
+     * @return the buffer given
+     * @throws IOException -- cannot open given file
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    public static TokenBuffer scan(File textFile, TokenBuffer buffer) throws IOException, InvalidCharException {
+        buffer.clear();
+        LexEvent event = new LexEvent();
+        event.begin();
+        long start = System.nanoTime();
+
+        try (MappedFileLexer tokens = new MappedFileLexer(textFile)) {
+            tokens.scanAll(buffer);
+            record(event, start, textFile, tokens.size(), buffer.size());
+        }
+        return buffer;
+    }
+
+    /**
+     * Records the metrics of lexing a file (see {@link MetricNames}) & commits its JFR event.
+     */
+    private static void record(LexEvent event, long start, File textFile, long bytes, long tokens) {
+        Metrics metrics = Metrics.global();
+        metrics.record(MetricNames.LEXER_NANOS, System.nanoTime() - start);
+        metrics.add(MetricNames.LEXER_FILES, 1);
+        metrics.add(MetricNames.LEXER_BYTES, bytes);
+        metrics.add(MetricNames.LEXER_TOKENS, tokens);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = textFile.getPath();
+            event.bytes = bytes;
+            event.tokens = tokens;
+            event.commit();
+        }
+    }
+
+    /**
+     * Scans the given input string into a token buffer, without allocating anything per token.
+     *
+     * @param input {@link CharSequence} input string to be tokenised
+     * @param buffer {@link TokenBuffer} to put the tokens in (it's cleared 1st)
+     * @return the buffer given
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    public static TokenBuffer scan(CharSequence input, TokenBuffer buffer) throws InvalidCharException {
+        buffer.clear();
+        new CharSequenceLexer(input).scanAll(buffer);
+        return buffer;
+    }
+
+    /**
+     * Scans an edited input string into a token buffer, only lexing again the chars around the edit: tokens are
+     * copied from the buffer of the input before the edit up to the token containing the char before the edit
+     * (a number ending there could go on in the inserted chars), then the input is lexed from the start of that
+     * token until the lexer gets to the start of an old token after the edit, from which the old tokens are
+     * copied (w/their offsets shifted), as lexing the same chars from there would give the same tokens.
+     * So lexing takes time proportional to the size of the edit (& the tokens around it), not of the input.
+     *
+     * @param input {@link CharSequence} input string after the edit
+     * @param previous {@link TokenBuffer} tokens of the input before the edit (not modified)
+     * @param editStart index of the 1st char edited
+     * @param removed nr of chars removed at editStart
+     * @param inserted nr of chars inserted at editStart (in their place)
+     * @param buffer {@link TokenBuffer} to put the tokens in (it's cleared 1st, mustn't be the previous buffer)
+     * @return {@link TokenEdit} tokens which changed (e.g. to reparse the input, see {@link parser.Parser#reparse})
+     * @throws InvalidCharException -- encounters an invalid char in the chars lexed
+     */
+    public static TokenEdit rescan(CharSequence input, TokenBuffer previous, int editStart, int removed, int inserted,
+                                   TokenBuffer buffer) throws InvalidCharException {
+        if (editStart < 0 || removed < 0 || inserted < 0 || editStart + inserted > input.length()) {
+            throw new IllegalArgumentException("Invalid edit: " + removed + " chars replaced by " + inserted + " at " + editStart);
+        }
+        if (buffer == previous) throw new IllegalArgumentException("Can't rescan into the previous token buffer");
+        buffer.clear();
+
+        // 1st token to lex again: the last one starting before the edit (binary search on the offsets)
+        int oldSize = previous.size();
+        int first = 0;
+        int high = oldSize - 1;
+        while (first < high) {
+            int mid = (first + high + 1) >>> 1;
+            if (previous.getOffset(mid) < editStart) first = mid;
+            else high = mid - 1;
+        }
+        if (first < oldSize && previous.getOffset(first) >= editStart) first = 0;
+        buffer.addAll(previous, 0, first, 0);
 
-                // update peek values for next iteration ONLY if token WAS NOT a num (bc they're already updated if num)
-                if (!isNum) {
-                    peekInt = reader.read();
-                    peek = (char) peekInt;
+        int lexStart = first < oldSize ? (int) previous.getOffset(first) : 0;
+        long shift = inserted - removed;
+        long editEnd = editStart + removed;  // end of the chars removed, in the previous input
+        CharSequenceLexer lexer = new CharSequenceLexer(input);
+        lexer.reset(input, lexStart);
+        int old = first;  // 1st old token which doesn't start before the lexer's position
+        try {
+            while (true) {
+                long oldPos = lexStart + lexer.position() - shift;  // position of the lexer in the previous input
+                if (oldPos >= editEnd) {
+                    while (old < oldSize && previous.getOffset(old) < oldPos) old++;
+                    if (old < oldSize && previous.getOffset(old) == oldPos) {  // back in step w/the old tokens
+                        int newEnd = buffer.size();
+                        buffer.addAll(previous, old, oldSize, shift);
+                        return new TokenEdit(first, old, newEnd);
+                    }
                 }
+                if (!lexer.scanInto(buffer, lexStart)) return new TokenEdit(first, oldSize, buffer.size());
             }
-
         } catch (IOException e) {
-            throw new IOException("Can't access file " + textFile, e);
+            throw new IllegalStateException(e);  // can't happen, input is in memory
         }
+    }
 
-        return result;
+    /**
+     * Creates a streaming lexer for the input read from the given reader.
+     * Tokens are produced (& chars read) one at a time, as they're requested.
+     *
+     * @param input {@link Reader} to read the input string from (not closed by the lexer)
+     * @return {@link TokenSource} producing the tokens for the input string
+     */
+    public static TokenSource tokens(Reader input) {
+        return new StreamingLexer.ReaderLexer(input);
+    }
+
+    /**
+     * Creates a streaming lexer for the given input string.
+     *
+     * @param input {@link CharSequence} input string to be tokenised
+     * @return {@link TokenSource} producing the tokens for the input string
+     */
+    public static TokenSource tokens(CharSequence input) {
+        return new CharSequenceLexer(input);
+    }
+
+    /**
+     * Creates a streaming lexer for the input in the remaining bytes of the given buffer
+     * (each byte is an ASCII char). The buffer's position is advanced as the tokens are produced.
+     *
+     * @param input {@link ByteBuffer} containing the input string to be tokenised
+     * @return {@link TokenSource} producing the tokens for the input string
+     */
+    public static TokenSource tokens(ByteBuffer input) {
+        return new StreamingLexer.ByteBufferLexer(input);
     }
 }
@@ -0,0 +1,88 @@
+package lexer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming lexer reading its input directly from a memory-mapped file, each byte being an ASCII char
+ * (the input isn't decoded to chars & isn't copied onto the heap).
+ * The file is mapped in windows of at most 256MB, one at a time, so files of any size can be lexed
+ * (e.g. line by line, see {@link #scanLine(TokenBuffer)}). Must be closed once it's no longer used.
+ */
+public final class MappedFileLexer extends StreamingLexer implements Closeable {
+    private static final long WINDOW_SIZE = 1L << 28;
+    private static final int MAX_LINE_LENGTH = 1024;  // max nr of chars returned by getLine
+
+    private final File file;
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;  // part of the file being read
+    private long windowStart;  // offset in the file of the window
+
+    /**
+     * @param file {@link File} to lex
+     * @throws IOException -- cannot open or map the file
+     */
+    public MappedFileLexer(File file) throws IOException {
+        this.file = file;
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOException("Can't access file " + file, e);
+        }
+        size = channel.size();
+        window = map(0);
+    }
+
+    private MappedByteBuffer map(long start) throws IOException {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(WINDOW_SIZE, size - start));
+        } catch (IOException e) {
+            throw new IOException("Can't map file " + file, e);
+        }
+    }
+
+    /** @return size of the file (in bytes) */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Reads the line at the given offset of the file, e.g. to report an error (see {@link #getLineStart()}).
+     * @param offset offset in the file of the 1st char of the line
+     * @return {@link String} contents of the line (w/o its line terminator, cut after 1024 chars)
+     * @throws IOException -- cannot read the file
+     */
+    public String getLine(long offset) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) Math.min(MAX_LINE_LENGTH, Math.max(0, size - offset)));
+        while (bytes.hasRemaining()) {
+            if (channel.read(bytes, offset + bytes.position()) < 0) break;
+        }
+        int length = 0;
+        while (length < bytes.position() && bytes.get(length) != '\n') length++;
+        if (length < bytes.position() && length > 0 && bytes.get(length - 1) == '\r') length--;  // "\r\n" terminator
+        return new String(bytes.array(), 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    int read() throws IOException {
+        if (!window.hasRemaining()) {
+            long next = windowStart + window.capacity();
+            if (next >= size) return -1;
+            window = map(next);
+            windowStart = next;
+        }
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,199 @@
+package lexer;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * Converts the digits of INT & FLOAT literals into their values, exactly:
+ *  - integers are accumulated in a long w/overflow detection, & converted to a {@link BigInteger} if they don't fit
+ *  - decimals are converted to the nearest double (correctly rounded). The significant digits are accumulated in
+ *    a long & the number is converted w/a single division when both the digits & the power of 10 are exact doubles
+ *    (Clinger's fast path), otherwise w/the Eisel–Lemire algorithm (a 64x128 bit multiplication by a truncated
+ *    power of 10). In the rare cases these can't decide the result (more than 19 significant digits, too close to a
+ *    halfway point, out of the range of the table), the digits are converted by {@link Double#parseDouble}.
+ * A scanner is reused for all the numbers of an input, its digits buffer (only used by the slow paths) only grows.
+ */
+public final class NumberScanner {
+    private static final int MAX_MANTISSA_DIGITS = 19;  // any 19 digit nr fits in an unsigned long
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // 128 bit approximations (rounded down) of the powers of 10 from 1e-348 to 1e347, normalised so the top bit is set
+    private static final int MIN_EXP10 = -348;
+    private static final int MAX_EXP10 = 347;
+    private static final long[] POW10_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+    private static final long[] POW10_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    static {
+        BigInteger mask = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        for (int exp10 = MIN_EXP10; exp10 <= MAX_EXP10; exp10++) {
+            BigInteger pow5 = BigInteger.valueOf(5).pow(Math.abs(exp10));
+            BigInteger approx;
+            if (exp10 >= 0) {  // top 128 bits of 5^exp10
+                approx = pow5.bitLength() > 128 ? pow5.shiftRight(pow5.bitLength() - 128) : pow5.shiftLeft(128 - pow5.bitLength());
+            } else {  // floor(2^b / 5^-exp10), w/b such that the result has 128 bits
+                approx = BigInteger.ONE.shiftLeft(pow5.bitLength() + 127).divide(pow5);
+            }
+            POW10_HI[exp10 - MIN_EXP10] = approx.shiftRight(64).longValue();
+            POW10_LO[exp10 - MIN_EXP10] = approx.and(mask).longValue();
+        }
+    }
+
+    private char[] digits = new char[32];  // the literal as scanned ('.' included), for the slow paths
+    private int length;
+    private long value;  // value of the integer part (if not overflowed)
+    private boolean overflow;  // integer part doesn't fit in a long
+    private long mantissa;  // significant digits (leading zeros excluded), if there are at most 19 of them
+    private int significantDigits;
+    private int fractionDigits;
+    private boolean fraction;  // scanning the digits after the '.'
+
+    /** Starts scanning a new number */
+    void start() {
+        length = 0;
+        value = 0;
+        overflow = false;
+        mantissa = 0;
+        significantDigits = 0;
+        fractionDigits = 0;
+        fraction = false;
+    }
+
+    /**
+     * Adds the next digit of the number.
+     * @param digit value of the digit (0-9)
+     */
+    void addDigit(int digit) {
+        append((char) ('0' + digit));
+        if (fraction) {
+            fractionDigits++;
+        } else if (!overflow) {
+            if (value > (Long.MAX_VALUE - digit) / 10) overflow = true;
+            else value = value * 10 + digit;
+        }
+        if (significantDigits > 0 || digit != 0) {
+            if (++significantDigits <= MAX_MANTISSA_DIGITS) mantissa = mantissa * 10 + digit;
+        }
+    }
+
+    /** Adds the decimal point, the digits which follow are the fractional part */
+    void addPoint() {
+        append('.');
+        fraction = true;
+    }
+
+    private void append(char c) {
+        if (length == digits.length) digits = Arrays.copyOf(digits, 2 * length);
+        digits[length++] = c;
+    }
+
+    /**
+     * Scans the number (digits, optionally followed by a '.' & more digits) at the start of the given range.
+     * @param input {@link CharSequence} containing the number
+     * @param from index of the 1st digit
+     * @param to end of the range to scan
+     * @return index of the 1st char after the number
+     */
+    public int scan(CharSequence input, int from, int to) {
+        start();
+        int i = from;
+        while (i < to && input.charAt(i) >= '0' && input.charAt(i) <= '9') addDigit(input.charAt(i++) - '0');
+        if (i < to && input.charAt(i) == '.') {
+            addPoint();
+            i++;
+            while (i < to && input.charAt(i) >= '0' && input.charAt(i) <= '9') addDigit(input.charAt(i++) - '0');
+        }
+        return i;
+    }
+
+    /** @return true if the number scanned has a decimal point */
+    public boolean isDecimal() {
+        return fraction;
+    }
+
+    /** @return true if the (integer) number scanned doesn't fit in a long */
+    public boolean isBig() {
+        return overflow;
+    }
+
+    /** @return value of the integer scanned, which must fit in a long (see {@link #isBig()}) */
+    public long getLong() {
+        return value;
+    }
+
+    /** @return value of the integer scanned (allocates) */
+    public BigInteger getBigInteger() {
+        return overflow ? new BigInteger(new String(digits, 0, length)) : BigInteger.valueOf(value);
+    }
+
+    /** @return value of the number scanned, correctly rounded to the nearest double */
+    public double getDouble() {
+        if (significantDigits <= MAX_MANTISSA_DIGITS) {
+            if (mantissa >= 0 && mantissa <= 1L << 53 && fractionDigits < POW10.length) {
+                return mantissa / POW10[fractionDigits];  // both exact, so the division is correctly rounded
+            }
+            double result = eiselLemire(mantissa, -fractionDigits);
+            if (!Double.isNaN(result)) return result;
+        }
+        return Double.parseDouble(new String(digits, 0, length));
+    }
+
+    /**
+     * Eisel–Lemire algorithm: converts mantissa * 10^exp10 to the nearest double.
+     * @param mantissa unsigned mantissa
+     * @param exp10 power of 10
+     * @return the double, NaN if the algorithm can't determine it
+     */
+    static double eiselLemire(long mantissa, int exp10) {
+        if (mantissa == 0) return 0.0;
+        if (exp10 < MIN_EXP10 || exp10 > MAX_EXP10) return Double.NaN;
+
+        // normalise, so the top bit of the mantissa is set
+        int clz = Long.numberOfLeadingZeros(mantissa);
+        mantissa <<= clz;
+        long exp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;  // 217706 / 2^16 ~ log2(10)
+
+        // multiply by the high 64 bits of the power of 10
+        int i = exp10 - MIN_EXP10;
+        long hi = unsignedMultiplyHigh(mantissa, POW10_HI[i]);
+        long lo = mantissa * POW10_HI[i];
+
+        // if the low bits of the product are all 1s, the lower bits of the power of 10 could carry into them
+        if ((hi & 0x1FF) == 0x1FF && Long.compareUnsigned(lo + mantissa, mantissa) < 0) {
+            long hi2 = unsignedMultiplyHigh(mantissa, POW10_LO[i]);
+            long lo2 = mantissa * POW10_LO[i];
+            long mergedHi = hi;
+            long mergedLo = lo + hi2;
+            if (Long.compareUnsigned(mergedLo, lo) < 0) mergedHi++;
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(lo2 + mantissa, mantissa) < 0) {
+                return Double.NaN;
+            }
+            hi = mergedHi;
+            lo = mergedLo;
+        }
+
+        // shift to 54 bits
+        long msb = hi >>> 63;
+        long result = hi >>> (msb + 9);
+        exp2 -= 1 ^ msb;
+
+        // exactly halfway between 2 doubles: can't tell which way to round
+        if (lo == 0 && (hi & 0x1FF) == 0 && (result & 3) == 1) return Double.NaN;
+
+        // round to 53 bits (to even)
+        result += result & 1;
+        result >>>= 1;
+        if (result >>> 53 > 0) {
+            result >>>= 1;
+            exp2++;
+        }
+        if (exp2 - 1 < 0 || exp2 - 1 >= 0x7FF - 1) return Double.NaN;  // subnormal, infinite or NaN
+        return Double.longBitsToDouble(exp2 << 52 | result & 0x000FFFFFFFFFFFFFL);
+    }
+
+    private static long unsignedMultiplyHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -0,0 +1,300 @@
+package lexer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+abstract class StreamingLexer implements TokenSource {
+    /**
+     * Lexer which produces the tokens lazily: the input is only read as far as needed for the next token,
+     * so memory use doesn't depend on the size of the input.
+     * Subclasses provide the input one char at a time (see {@link LexicalAnalyser#tokens}).
+     * The tokens can be pulled as {@link Token} objects ({@link #next()}), or scanned w/o allocating anything
+     * ({@link #scan()}) e.g. into a {@link TokenBuffer} ({@link #scanAll(TokenBuffer)}).
+     */
+
+    // tokens other than numbers always have the same value, so they're shared
+    static final Token<String> END = new Token<>(TokenName.INPUTENDMARKER, "$");
+    private static final Token<String> COS = new Token<>(TokenName.COS, "cos");
+    private static final Token<String> PLUS = new Token<>(TokenName.PLUS, "+");
+    private static final Token<String> MINUS = new Token<>(TokenName.MINUS, "-");
+    private static final Token<String> MULT = new Token<>(TokenName.MULT, "*");
+    private static final Token<String> FACTORIAL = new Token<>(TokenName.FACTORIAL, "!");
+
+    private int peekInt;  // next char from input str (-1 at end of input)
+    private long pos;  // offset of peekInt in the input
+    private boolean started = false;
+    private boolean inLine = false;  // scanning a line (see scanLine), line terminators end the input
+    private long lineStart;
+
+    private final NumberScanner numbers = new NumberScanner();
+
+    // value & offset of the last token scanned
+    private long value;  // INT: its value, FLOAT: the raw bits of its value
+    private BigInteger bigValue;  // value of an INT which doesn't fit in a long (null otherwise)
+    private long offset;
+
+    /**
+     * Reads the next char of the input.
+     * @return next char, -1 at the end of the input
+     * @throws IOException -- cannot read the input
+     */
+    abstract int read() throws IOException;
+
+    /**
+     * Makes the lexer start reading the input again from its current position (subclasses call
+     * this when they're given new input).
+     */
+    void restart() {
+        started = false;
+    }
+
+    /**
+     * Gets the shared token for a token name which isn't a number.
+     */
+    static Token<String> symbolToken(TokenName name) {
+        switch (name) {
+            case COS:
+                return COS;
+            case PLUS:
+                return PLUS;
+            case MINUS:
+                return MINUS;
+            case MULT:
+                return MULT;
+            case FACTORIAL:
+                return FACTORIAL;
+            case INPUTENDMARKER:
+                return END;
+            default:
+                throw new IllegalArgumentException(name + " tokens don't have a fixed value");
+        }
+    }
+
+    private void advance() throws IOException {
+        peekInt = read();
+        pos++;
+    }
+
+    @Override
+    public Token<?> next() throws IOException, InvalidCharException {
+        TokenName name = scan();
+        switch (name) {
+            case INT:
+                if (bigValue != null) return new Token<>(TokenName.INT, bigValue);
+                return new Token<>(TokenName.INT, value);
+            case FLOAT:
+                return new Token<>(TokenName.FLOAT, Double.longBitsToDouble(value));
+            default:
+                return symbolToken(name);
+        }
+    }
+
+    /**
+     * Scans the rest of the input, appending its tokens to the given buffer (the input endmarker isn't added).
+     * @param buffer {@link TokenBuffer} to add the tokens to
+     * @throws IOException -- cannot read the input
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    public void scanAll(TokenBuffer buffer) throws IOException, InvalidCharException {
+        while (scanInto(buffer, 0)) ;
+    }
+
+    /**
+     * Scans the next token of the input into the given buffer, adding a base to its offset (e.g. the offset in a
+     * larger input of the char where the lexer started).
+     * @param buffer {@link TokenBuffer} to add the token to
+     * @param base amount added to the offset of the token
+     * @return false if there are no more tokens (nothing is added)
+     * @throws IOException -- cannot read the input
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    boolean scanInto(TokenBuffer buffer, long base) throws IOException, InvalidCharException {
+        TokenName name = scan();
+        if (name == TokenName.INPUTENDMARKER) return false;
+        if (name == TokenName.INT && bigValue != null) buffer.addBig(bigValue, base + offset);
+        else buffer.add(name, value, base + offset);
+        return true;
+    }
+
+    /**
+     * @return offset in the input of the next char to scan, where the next token starts (tokens aren't separated)
+     * @throws IOException -- cannot read the input
+     */
+    long position() throws IOException {
+        start();
+        return pos;
+    }
+
+    /**
+     * Scans the next line of the input into the given buffer (which is cleared 1st). Lines are terminated by
+     * '\n' or "\r\n", which aren't part of the input of any line (a '\r' on its own is an invalid char).
+     * If the line contains an invalid char, the rest of the line is skipped (so the next call scans the
+     * following line) before throwing the exception.
+     * @param buffer {@link TokenBuffer} to put the tokens of the line in (empty for an empty line)
+     * @return false if there are no more lines (the buffer is then empty)
+     * @throws IOException -- cannot read the input
+     * @throws InvalidCharException -- encounters an invalid char in the line
+     */
+    public boolean scanLine(TokenBuffer buffer) throws IOException, InvalidCharException {
+        buffer.clear();
+        start();
+        if (peekInt == -1) return false;
+        lineStart = pos;
+        inLine = true;
+        try {
+            scanAll(buffer);
+        } finally {
+            inLine = false;
+            while (peekInt != -1 && peekInt != '\n') advance();  // skip line terminator (or rest of line after an error)
+            if (peekInt == '\n') advance();
+        }
+        return true;
+    }
+
+    /**
+     * @return true if there's at least 1 more line to scan (see {@link #scanLine})
+     * @throws IOException -- cannot read the input
+     */
+    public boolean hasMoreLines() throws IOException {
+        start();
+        return peekInt != -1;
+    }
+
+    /** @return offset in the input of the 1st char of the last line scanned by {@link #scanLine} */
+    public long getLineStart() {
+        return lineStart;
+    }
+
+    private void start() throws IOException {
+        if (!started) {
+            peekInt = read();
+            pos = 0;
+            started = true;
+        }
+    }
+
+    /**
+     * Scans the next token of the input, without allocating anything.
+     * Its value (if it's a number) & offset are kept in fields until the next token is scanned.
+     * INT values are exact (a {@link BigInteger} is only allocated for those which don't fit in a long)
+     * & FLOAT values are correctly rounded (see {@link NumberScanner}).
+     * @return {@link TokenName} name of the token, INPUTENDMARKER if there are no more tokens
+     * @throws IOException -- cannot read the input
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    TokenName scan() throws IOException, InvalidCharException {
+        start();
+        offset = pos;
+        if (peekInt == -1) return TokenName.INPUTENDMARKER;
+        if (inLine && peekInt == '\n') return TokenName.INPUTENDMARKER;
+        if (inLine && peekInt == '\r') {  // only ends the line if it's part of a "\r\n" (the '\n' ends it next time)
+            advance();
+            if (peekInt == '\n') return TokenName.INPUTENDMARKER;
+            throw new InvalidCharException('\r');
+        }
+        char peek = (char) peekInt;
+
+        // cos operator
+        if (peek == 'c') {
+            advance();
+            if (peekInt != 'o') throw new InvalidCharException((char) peekInt);
+            advance();
+            if (peekInt != 's') throw new InvalidCharException((char) peekInt);
+            advance();
+            return TokenName.COS;
+        }
+
+        // numbers
+        if (Character.isDigit(peek)) {
+            numbers.start();
+            while (Character.isDigit(peek)) {
+                numbers.addDigit(Character.digit(peek, 10));
+                advance();
+                peek = (char) peekInt;
+            }
+            if (peek != '.') {  // was an integer
+                if (numbers.isBig()) {
+                    bigValue = numbers.getBigInteger();
+                } else {
+                    value = numbers.getLong();
+                    bigValue = null;
+                }
+                return TokenName.INT;
+            }
+
+            // float
+            numbers.addPoint();
+            advance();
+            peek = (char) peekInt;
+            while (Character.isDigit(peek)) {
+                numbers.addDigit(Character.digit(peek, 10));
+                advance();
+                peek = (char) peekInt;
+            }
+            value = Double.doubleToRawLongBits(numbers.getDouble());
+            return TokenName.FLOAT;
+        }
+
+        // operators
+        TokenName name;
+        switch (peek){
+            case '+':
+                name = TokenName.PLUS;
+                break;
+            case '-':
+                name = TokenName.MINUS;
+                break;
+            case '*':
+                name = TokenName.MULT;
+                break;
+            case '!':
+                name = TokenName.FACTORIAL;
+                break;
+            default:
+                throw new InvalidCharException(peek);
+        }
+        advance();
+        return name;
+    }
+
+    /** Lexer reading its input from a {@link Reader} (through its own buffer) */
+    static final class ReaderLexer extends StreamingLexer {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int pos = 0;
+        private int limit = 0;
+
+        ReaderLexer(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        int read() throws IOException {
+            if (pos == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                pos = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[pos++];
+        }
+    }
+
+    /** Lexer reading its input from the remaining bytes of a {@link ByteBuffer}, each byte being an ASCII char */
+    static final class ByteBufferLexer extends StreamingLexer {
+        private final ByteBuffer input;
+
+        ByteBufferLexer(ByteBuffer input) {
+            this.input = input;
+        }
+
+        @Override
+        int read() {
+            return input.hasRemaining() ? input.get() & 0xFF : -1;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package lexer;
+
+import java.math.BigInteger;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Buffer of tokens stored as parallel primitive arrays (a "struct of arrays"):
+ *  - the name of each token (its {@link TokenName} ordinal) in a byte array
+ *  - the value of each number in a long array (INT: the integer, FLOAT: the raw bits of the double)
+ *    INTs which don't fit in a long are kept in a separate array of {@link BigInteger}s, the long being their index
+ *  - the offset in the input of the 1st char of each token in a long array (inputs can be larger than 2GB)
+ * Lexing into a buffer (see {@link LexicalAnalyser#scan(CharSequence, TokenBuffer)}) doesn't allocate
+ * anything per token & a buffer can be cleared & reused for many inputs.
+ * {@link #asList()} gives a (read-only) {@link List} view of the tokens, for code using the token list API.
+ */
+public final class TokenBuffer {
+    private static final TokenName[] NAMES = TokenName.values();
+    private static final int BIG = 0x80;  // flag set in the name of INTs whose value is a BigInteger
+    private static final int NAME_MASK = 0x7F;
+
+    private byte[] names;
+    private long[] values;
+    private long[] offsets;
+    private int size = 0;
+    private BigInteger[] bigValues = new BigInteger[0];
+    private int bigSize = 0;
+
+    public TokenBuffer() {
+        this(64);
+    }
+
+    /**
+     * @param initialCapacity nr of tokens the buffer can hold before growing
+     */
+    public TokenBuffer(int initialCapacity) {
+        names = new byte[Math.max(initialCapacity, 1)];
+        values = new long[names.length];
+        offsets = new long[names.length];
+    }
+
+    /** Empties the buffer (keeping its capacity) */
+    public void clear() {
+        size = 0;
+        if (bigSize > 0) {
+            Arrays.fill(bigValues, 0, bigSize, null);
+            bigSize = 0;
+        }
+    }
+
+    /** @return nr of tokens in the buffer */
+    public int size() {
+        return size;
+    }
+
+    public TokenName getName(int i) {
+        return NAMES[names[i] & NAME_MASK];
+    }
+
+    /** @return ordinal of the {@link TokenName} of the i-th token */
+    public int getNameOrdinal(int i) {
+        return names[i] & NAME_MASK;
+    }
+
+    /** @return true if the i-th token is an INT which doesn't fit in a long */
+    public boolean isBig(int i) {
+        return (names[i] & BIG) != 0;
+    }
+
+    /** @return value of the i-th token, which must be an INT that fits in a long (see {@link #isBig(int)}) */
+    public long getLong(int i) {
+        if (isBig(i)) throw new ArithmeticException("Value of token " + i + " doesn't fit in a long");
+        return values[i];
+    }
+
+    /** @return value of the i-th token, which must be an INT */
+    public BigInteger getBigInteger(int i) {
+        return isBig(i) ? bigValues[(int) values[i]] : BigInteger.valueOf(values[i]);
+    }
+
+    /** @return value of the i-th token, which must be a FLOAT */
+    public double getDouble(int i) {
+        return Double.longBitsToDouble(values[i]);
+    }
+
+    /** @return offset in the input of the 1st char of the i-th token */
+    public long getOffset(int i) {
+        return offsets[i];
+    }
+
+    /**
+     * Gets the value of the i-th token as an object, like {@link Token#getValue()} (allocates for numbers).
+     * @return {@link Object} value of the token
+     */
+    public Object getValue(int i) {
+        TokenName name = getName(i);
+        switch (name) {
+            case INT:
+                return isBig(i) ? bigValues[(int) values[i]] : (Object) values[i];
+            case FLOAT:
+                return getDouble(i);
+            default:
+                return StreamingLexer.symbolToken(name).getValue();
+        }
+    }
+
+    /**
+     * Gets the i-th token as a {@link Token} object (allocates for numbers).
+     * @return {@link Token} i-th token
+     */
+    public Token<?> getToken(int i) {
+        TokenName name = getName(i);
+        if (name == TokenName.INT || name == TokenName.FLOAT) return new Token<>(name, getValue(i));
+        return StreamingLexer.symbolToken(name);
+    }
+
+    /**
+     * Read-only view of the buffer as a list of tokens (tokens are created as they're accessed).
+     * @return {@link List} view of the buffer
+     */
+    public List<Token<?>> asList() {
+        return new AbstractList<Token<?>>() {
+            @Override
+            public Token<?> get(int index) {
+                if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+                return getToken(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Creates a token source which returns the tokens in the buffer (from the 1st one), followed by an
+     * INPUTENDMARKER token. Tokens other than numbers are shared, so only numbers allocate a {@link Token}.
+     * @return {@link TokenSource} for the tokens in the buffer
+     */
+    public TokenSource source() {
+        return new TokenSource() {
+            private int next = 0;
+
+            @Override
+            public Token<?> next() {
+                return next < size ? getToken(next++) : StreamingLexer.END;
+            }
+        };
+    }
+
+    /** Appends a token (used by the lexer) */
+    void add(TokenName name, long value, long offset) {
+        if (size == names.length) grow(size + 1);
+        names[size] = (byte) name.ordinal();
+        values[size] = value;
+        offsets[size] = offset;
+        size++;
+    }
+
+    /** Appends an INT token whose value doesn't fit in a long (used by the lexer) */
+    void addBig(BigInteger value, long offset) {
+        if (bigSize == bigValues.length) bigValues = Arrays.copyOf(bigValues, Math.max(4, 2 * bigSize));
+        bigValues[bigSize] = value;
+        add(TokenName.INT, bigSize++, offset);
+        names[size - 1] |= BIG;
+    }
+
+    /**
+     * Appends tokens [from, to) of another buffer, w/their offsets shifted by the given amount (used by the lexer
+     * to keep the tokens an edit didn't change). The arrays are copied in bulk, only big INTs are added one by one.
+     */
+    void addAll(TokenBuffer other, int from, int to, long shift) {
+        int count = to - from;
+        if (size + count > names.length) grow(size + count);
+        System.arraycopy(other.names, from, names, size, count);
+        System.arraycopy(other.values, from, values, size, count);
+        System.arraycopy(other.offsets, from, offsets, size, count);
+        for (int i = size; i < size + count; i++) {
+            offsets[i] += shift;
+            if ((names[i] & BIG) != 0) {  // re-index its value in this buffer's big values
+                if (bigSize == bigValues.length) bigValues = Arrays.copyOf(bigValues, Math.max(4, 2 * bigSize));
+                bigValues[bigSize] = other.bigValues[(int) values[i]];
+                values[i] = bigSize++;
+            }
+        }
+        size += count;
+    }
+
+    private void grow(int minCapacity) {
+        int capacity = Math.max(2 * names.length, minCapacity);
+        names = Arrays.copyOf(names, capacity);
+        values = Arrays.copyOf(values, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
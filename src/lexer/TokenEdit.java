@@ -0,0 +1,48 @@
+package lexer;
+
+/**
+ * Tokens changed by an edit of the input (see {@link LexicalAnalyser#rescan}): tokens [start, oldEnd) of the
+ * buffer before the edit were replaced by tokens [start, newEnd) of the buffer after it. The tokens before start
+ * are the same in both buffers & so are those after the ends (only their offsets are shifted).
+ */
+public final class TokenEdit {
+    private final int start;
+    private final int oldEnd;
+    private final int newEnd;
+
+    public TokenEdit(int start, int oldEnd, int newEnd) {
+        if (start < 0 || oldEnd < start || newEnd < start) {
+            throw new IllegalArgumentException("Invalid token edit: [" + start + ", " + oldEnd + ") -> [" + start + ", " + newEnd + ")");
+        }
+        this.start = start;
+        this.oldEnd = oldEnd;
+        this.newEnd = newEnd;
+    }
+
+    /** @return index of the 1st token changed */
+    public int getStart() {
+        return start;
+    }
+
+    /** @return index after the last token replaced, in the buffer before the edit */
+    public int getOldEnd() {
+        return oldEnd;
+    }
+
+    /** @return index after the last token inserted, in the buffer after the edit */
+    public int getNewEnd() {
+        return newEnd;
+    }
+
+    /** @return index in the buffer before the edit of the i-th token after it, -1 if it's one of the changed tokens */
+    public int oldIndex(int i) {
+        if (i < start) return i;
+        if (i < newEnd) return -1;
+        return i - newEnd + oldEnd;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + oldEnd + ") -> [" + start + ", " + newEnd + ")";
+    }
+}
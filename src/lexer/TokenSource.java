@@ -0,0 +1,32 @@
+package lexer;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Source of tokens which are produced one at a time, when they're pulled by calling {@link #next()}.
+ * Once the input is exhausted, {@link #next()} returns a token w/name INPUTENDMARKER (every time it's called).
+ */
+@FunctionalInterface
+public interface TokenSource {
+
+    /**
+     * Gets the next token of the input.
+     * @return next {@link Token}, a token w/name INPUTENDMARKER if there are no more tokens
+     * @throws IOException -- cannot read the input
+     * @throws InvalidCharException -- encounters an invalid char in input
+     */
+    Token<?> next() throws IOException, InvalidCharException;
+
+    /**
+     * Creates a token source which returns the tokens in the given list, followed by an INPUTENDMARKER token
+     * (unless the list already ends w/one).
+     * @param tokens {@link List} of tokens (e.g. produced by {@link LexicalAnalyser#scan})
+     * @return {@link TokenSource} for the tokens
+     */
+    static <T extends Token<?>> TokenSource of(List<T> tokens) {
+        Iterator<T> iterator = tokens.iterator();
+        return () -> iterator.hasNext() ? iterator.next() : StreamingLexer.END;
+    }
+}
@@ -0,0 +1,156 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Histogram {
+    /**
+     * Histogram of non negative long values (e.g. latencies in ns, or counts per expression), w/log-linear buckets:
+     * values < 8 have a bucket each & every power of 2 above is split into 8 buckets, so a percentile is within
+     * 12.5% of the exact value whatever the range of the values. The count, sum, min & max are exact.
+     * Thread safe & lock free: recording a value is a few atomic adds.
+     */
+
+    private static final int SUB_BUCKETS = 8;  // buckets per power of 2
+    private static final int SUB_BITS = 3;
+    private static final int NUM_BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    /**
+     * Records a value (negative values are recorded as 0).
+     * @param value value to record
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        min.accumulate(value);
+        max.accumulate(value);
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);  // >= SUB_BITS
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /** @return largest value which goes in the given bucket */
+    private static long bucketMax(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return low + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /** Forgets all the values recorded (values recorded concurrently may or may not be forgotten) */
+    public void reset() {
+        for (int i = 0; i < NUM_BUCKETS; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        min.reset();
+        max.reset();
+    }
+
+    /**
+     * Takes a snapshot of the values recorded so far.
+     * @return {@link Snapshot} of the histogram
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[NUM_BUCKETS];
+        long total = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        long maxValue = max.get();
+        return new Snapshot(total, sum.sum(), total == 0 ? 0 : min.get(), total == 0 ? 0 : maxValue,
+                percentile(counts, total, 0.5, maxValue),
+                percentile(counts, total, 0.9, maxValue),
+                percentile(counts, total, 0.99, maxValue));
+    }
+
+    /** @return upper bound of the bucket of the value at the given quantile (clamped to the max) */
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        if (total == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(bucketMax(i), maxValue);
+        }
+        return maxValue;
+    }
+
+    /** Immutable summary of a histogram */
+    public static final class Snapshot {
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+
+        Snapshot(long count, long sum, long min, long max, long p50, long p90, long p99) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /** @return median (approximate, see {@link Histogram}) */
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "count=%d sum=%d min=%d mean=%.1f p50=%d p90=%d p99=%d max=%d",
+                    count, sum, min, getMean(), p50, p90, p99, max);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for lexing a file (see {@link lexer.LexicalAnalyser#scan(java.io.File)}).
+ */
+@Name("compilers.Lex")
+@Label("Lex File")
+@Category({"Compilers", "Lexer"})
+@Description("Lexing of a whole file")
+@StackTrace(false)
+public final class LexEvent extends jdk.jfr.Event {
+    @Label("File")
+    public String file;
+
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+
+    @Label("Tokens")
+    public long tokens;
+}
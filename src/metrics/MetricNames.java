@@ -0,0 +1,52 @@
+package metrics;
+
+public final class MetricNames {
+    /**
+     * Names of the metrics recorded into {@link Metrics#global()}.
+     * Durations are in ns. Gauges hold the values for the last grammar loaded or table constructed.
+     */
+
+    // lexing of files (LexicalAnalyser.scan(File ...))
+    public static final String LEXER_FILES = "lexer.files";  // counter
+    public static final String LEXER_BYTES = "lexer.bytes";  // counter
+    public static final String LEXER_TOKENS = "lexer.tokens";  // counter
+    public static final String LEXER_NANOS = "lexer.nanos";  // histogram, per file
+
+    // grammar loading
+    public static final String GRAMMAR_NANOS = "grammar.nanos";  // histogram, reading & preparing a grammar
+    public static final String GRAMMAR_FIRST_FOLLOW_NANOS = "grammar.firstFollow.nanos";  // histogram, FIRST & FOLLOW fixpoints
+    public static final String GRAMMAR_FIRST_COMPONENTS = "grammar.first.components";  // gauge, cycles (SCCs) of nonterms in the FIRST relation
+    public static final String GRAMMAR_FOLLOW_COMPONENTS = "grammar.follow.components";  // gauge, cycles (SCCs) of nonterms in the FOLLOW relation
+    public static final String GRAMMAR_UPDATED_FIRST = "grammar.updated.first";  // gauge, nonterms whose nullable & FIRST were recalculated when changing a grammar
+    public static final String GRAMMAR_UPDATED_FOLLOW = "grammar.updated.follow";  // gauge, nonterms whose FOLLOW was recalculated when changing a grammar
+
+    // parsing table construction
+    public static final String TABLE_NANOS = "table.nanos";  // histogram, whole construction (incl. grammar loading)
+    public static final String TABLE_AUTOMATON_NANOS = "table.automaton.nanos";  // histogram, canonical collection
+    public static final String TABLE_LOOKAHEAD_NANOS = "table.lookahead.nanos";  // histogram, FOLLOW/LALR(1)/LR(1) lookaheads of reductions
+    public static final String TABLE_STATES = "table.states";  // gauge, size of the canonical collection
+    public static final String TABLE_TERMINALS = "table.terminals";  // gauge
+    public static final String TABLE_NONTERMINALS = "table.nonterminals";  // gauge
+    public static final String TABLE_PRODUCTIONS = "table.productions";  // gauge
+    public static final String TABLE_ACTIONS = "table.actions";  // gauge, nr of ACTION entries which aren't errors
+    public static final String TABLE_ACTION_CELLS = "table.actionCells";  // gauge, states * terminals (density = actions / cells)
+    public static final String TABLE_GOTOS = "table.gotos";  // gauge, nr of GOTO entries which are defined
+    public static final String TABLE_CONFLICTS = "table.conflicts";  // gauge, shift/reduce & reduce/reduce conflicts resolved
+    public static final String TABLE_BYTES = "table.bytes";  // gauge, size of the dense ACTION & GOTO arrays
+    public static final String TABLE_COMPRESSED_BYTES = "table.compressed.bytes";  // gauge, size of the last compressed tables
+    public static final String TABLE_COMPRESSED_ACTION_ROWS = "table.compressed.actionRows";  // gauge, distinct ACTION rows stored
+    public static final String TABLE_UPDATE_NANOS = "table.update.nanos";  // histogram, updating a table for added/removed productions
+    public static final String TABLE_UPDATE_REUSED_STATES = "table.update.reusedStates";  // gauge, LR(0) states copied from the old automaton
+
+    // parses (recorded by ParseMetrics)
+    public static final String PARSES = "parse.count";  // counter
+    public static final String PARSE_ERRORS = "parse.errors";  // counter
+    public static final String PARSE_TOKENS = "parse.tokens";  // counter, tokens shifted
+    public static final String PARSE_REUSED_TOKENS = "parse.reusedTokens";  // counter, tokens in the subtrees reused by incremental parses
+    public static final String PARSE_REDUCTIONS = "parse.reductions";  // counter
+    public static final String PARSE_NANOS = "parse.nanos";  // histogram, per expression
+    public static final String PARSE_TOKENS_PER_EXPRESSION = "parse.tokensPerExpression";  // histogram
+    public static final String PARSE_REDUCTIONS_PER_EXPRESSION = "parse.reductionsPerExpression";  // histogram
+
+    private MetricNames() {}
+}
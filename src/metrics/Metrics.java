@@ -0,0 +1,87 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+public final class Metrics {
+    /**
+     * Registry of named metrics:
+     *  - counters: totals which only increase (e.g. "lexer.tokens")
+     *  - gauges: last value set (e.g. "table.states")
+     *  - histograms: distributions of values (e.g. "parse.nanos", see {@link Histogram})
+     * Metrics are created the 1st time they're used. The lexer & the parser record into the {@link #global()}
+     * registry (see {@link MetricNames} for what they record), whose current values can be exported w/{@link #snapshot()}.
+     * Thread safe.
+     */
+
+    private static final Metrics GLOBAL = new Metrics();
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> gauges = new ConcurrentHashMap<>();
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /** @return registry shared by the whole program */
+    public static Metrics global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Adds to a counter.
+     * @param name {@link String} name of the counter
+     * @param delta amount to add
+     */
+    public void add(String name, long delta) {
+        counters.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Sets a gauge.
+     * @param name {@link String} name of the gauge
+     * @param value new value of the gauge
+     */
+    public void set(String name, long value) {
+        gauges.computeIfAbsent(name, k -> new AtomicLong()).set(value);
+    }
+
+    /**
+     * Gets a histogram (creating it if needed), e.g. to keep it & record many values into it.
+     * @param name {@link String} name of the histogram
+     * @return the {@link Histogram}
+     */
+    public Histogram histogram(String name) {
+        return histograms.computeIfAbsent(name, k -> new Histogram());
+    }
+
+    /**
+     * Records a value into a histogram.
+     * @param name {@link String} name of the histogram
+     * @param value value to record
+     */
+    public void record(String name, long value) {
+        histogram(name).record(value);
+    }
+
+    /** Resets all the metrics (counters & gauges to 0, histograms emptied) */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        gauges.values().forEach(gauge -> gauge.set(0));
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * Takes a snapshot of the current values of all the metrics, for exporting them.
+     * @return {@link MetricsSnapshot} of the registry
+     */
+    public MetricsSnapshot snapshot() {
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, counter) -> counterValues.put(name, counter.sum()));
+        Map<String, Long> gaugeValues = new TreeMap<>();
+        gauges.forEach((name, gauge) -> gaugeValues.put(name, gauge.get()));
+        Map<String, Histogram.Snapshot> histogramValues = new TreeMap<>();
+        histograms.forEach((name, histogram) -> histogramValues.put(name, histogram.snapshot()));
+        return new MetricsSnapshot(System.currentTimeMillis(), counterValues, gaugeValues, histogramValues);
+    }
+}
@@ -0,0 +1,93 @@
+package metrics;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+public final class MetricsSnapshot {
+    /**
+     * Immutable copy of the values of the metrics of a {@link Metrics} registry at some point in time, for exporting.
+     * {@link #toString()} gives one metric per line, in the form "name value" for counters & gauges, &
+     * "name.stat value" for each statistic of a histogram (count, sum, min, mean, p50, p90, p99, max),
+     * sorted by name, which can be logged or scraped.
+     */
+
+    private final long timestamp;
+    private final Map<String, Long> counters;
+    private final Map<String, Long> gauges;
+    private final Map<String, Histogram.Snapshot> histograms;
+
+    MetricsSnapshot(long timestamp, Map<String, Long> counters, Map<String, Long> gauges,
+                    Map<String, Histogram.Snapshot> histograms) {
+        this.timestamp = timestamp;
+        this.counters = Collections.unmodifiableMap(counters);
+        this.gauges = Collections.unmodifiableMap(gauges);
+        this.histograms = Collections.unmodifiableMap(histograms);
+    }
+
+    /** @return time the snapshot was taken, in ms since the epoch */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /** @return unmodifiable {@link Map} of the counters, sorted by name */
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /** @return unmodifiable {@link Map} of the gauges, sorted by name */
+    public Map<String, Long> getGauges() {
+        return gauges;
+    }
+
+    /** @return unmodifiable {@link Map} of the histograms, sorted by name */
+    public Map<String, Histogram.Snapshot> getHistograms() {
+        return histograms;
+    }
+
+    /** @return value of the counter, 0 if it was never used */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    /** @return value of the gauge, 0 if it was never set */
+    public long getGauge(String name) {
+        return gauges.getOrDefault(name, 0L);
+    }
+
+    /** @return {@link Histogram.Snapshot} of the histogram, null if nothing was recorded into it */
+    public Histogram.Snapshot getHistogram(String name) {
+        return histograms.get(name);
+    }
+
+    /**
+     * Gets the rate per second of a counter over the time recorded in a histogram of durations in ns,
+     * e.g. getRate("lexer.tokens", "lexer.nanos") is the nr of tokens lexed per second.
+     * @param counter {@link String} name of the counter
+     * @param nanosHistogram {@link String} name of the histogram of durations
+     * @return counter / total duration in s, 0 if no time was recorded
+     */
+    public double getRate(String counter, String nanosHistogram) {
+        Histogram.Snapshot nanos = histograms.get(nanosHistogram);
+        if (nanos == null || nanos.getSum() == 0) return 0;
+        return getCounter(counter) * 1e9 / nanos.getSum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        counters.forEach((name, value) -> buffer.append(name).append(' ').append(value).append('\n'));
+        gauges.forEach((name, value) -> buffer.append(name).append(' ').append(value).append('\n'));
+        histograms.forEach((name, histogram) -> {
+            buffer.append(name).append(".count ").append(histogram.getCount()).append('\n');
+            buffer.append(name).append(".sum ").append(histogram.getSum()).append('\n');
+            buffer.append(name).append(".min ").append(histogram.getMin()).append('\n');
+            buffer.append(name).append(".mean ").append(String.format(Locale.ROOT, "%.1f", histogram.getMean())).append('\n');
+            buffer.append(name).append(".p50 ").append(histogram.getP50()).append('\n');
+            buffer.append(name).append(".p90 ").append(histogram.getP90()).append('\n');
+            buffer.append(name).append(".p99 ").append(histogram.getP99()).append('\n');
+            buffer.append(name).append(".max ").append(histogram.getMax()).append('\n');
+        });
+        return buffer.toString();
+    }
+}
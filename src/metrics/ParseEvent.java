@@ -0,0 +1,32 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event for parsing an expression (recorded by {@link parser.ParseMetrics}).
+ */
+@Name("compilers.Parse")
+@Label("Parse")
+@Category({"Compilers", "Parser"})
+@Description("Parsing of one input (e.g. one expression)")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+    @Label("Tokens")
+    @Description("Nr of tokens shifted")
+    public int tokens;
+
+    @Label("Reductions")
+    public int reductions;
+
+    @Label("Reused Tokens")
+    @Description("Nr of tokens in the subtrees of the previous parse tree reused by an incremental parse")
+    public int reusedTokens;
+
+    @Label("Accepted")
+    @Description("False if there was a syntax error")
+    public boolean accepted;
+}
@@ -0,0 +1,72 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Percentage;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JDK Flight Recorder event for constructing the parsing table of a grammar (see {@link parser.Parser#Parser(java.io.File, parser.ConstructionMethod)}),
+ * w/the time taken by each phase & the size of the table.
+ */
+@Name("compilers.TableConstruction")
+@Label("Parsing Table Construction")
+@Category({"Compilers", "Parser"})
+@Description("Loading of a grammar & construction of its parsing table")
+@StackTrace(false)
+public final class TableConstructionEvent extends jdk.jfr.Event {
+    @Label("Grammar")
+    public String grammar;
+
+    @Label("Construction Method")
+    @Description("SLR, LALR1 or LR1")
+    public String method;
+
+    @Label("Grammar Loading")
+    @Timespan(Timespan.NANOSECONDS)
+    public long grammarNanos;
+
+    @Label("FIRST & FOLLOW")
+    @Description("Time taken by the FIRST & FOLLOW fixpoints (of the grammar & of the augmented grammar)")
+    @Timespan(Timespan.NANOSECONDS)
+    public long firstFollowNanos;
+
+    @Label("Canonical Collection")
+    @Timespan(Timespan.NANOSECONDS)
+    public long automatonNanos;
+
+    @Label("Lookaheads")
+    @Description("Time taken to calculate the lookaheads of the reductions (FOLLOW sets, LALR(1) or LR(1) lookaheads)")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lookaheadNanos;
+
+    @Label("States")
+    public int states;
+
+    @Label("Terminals")
+    public int terminals;
+
+    @Label("Nonterminals")
+    public int nonterminals;
+
+    @Label("Productions")
+    public int productions;
+
+    @Label("ACTION Entries")
+    @Description("Nr of ACTION entries which aren't errors")
+    public int actions;
+
+    @Label("GOTO Entries")
+    public int gotos;
+
+    @Label("Conflicts")
+    @Description("Nr of shift/reduce & reduce/reduce conflicts resolved in the table")
+    public int conflicts;
+
+    @Label("ACTION Density")
+    @Percentage
+    public double density;
+}
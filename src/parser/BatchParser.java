@@ -0,0 +1,216 @@
+package parser;
+
+import lexer.CharSequenceLexer;
+import lexer.InvalidCharException;
+import lexer.MappedFileLexer;
+import lexer.TokenBuffer;
+
+import java.io.*;
+
+public class BatchParser {
+    /**
+     * Parses inputs w/one expression per line, using a single (built) parser.
+     * The lexer, the line buffer, the token buffer & the parser's stacks are reused for every line, & each line's result
+     * (parse tree or error) is reported to a {@link LineHandler} without stopping at errors.
+     * Empty lines are skipped.
+     *
+     * Usage: java parser.BatchParser grammarFile inputFile
+     */
+
+    /** Receives the result of parsing each line */
+    public interface LineHandler {
+        /**
+         * Called when a line has been parsed successfully.
+         * @param lineNr nr of the line (1st line is 1)
+         * @param root root node of the line's parse tree
+         */
+        void parsed(long lineNr, ParseTreeNode root);
+
+        /**
+         * Called when a line couldn't be lexed or parsed.
+         * @param lineNr nr of the line (1st line is 1)
+         * @param line {@link CharSequence} contents of the line (only valid during the call, the buffer is reused)
+         * @param error {@link ParsingError} or {@link InvalidCharException} for the line
+         */
+        void failed(long lineNr, CharSequence line, Exception error);
+    }
+
+    /** Counts & throughput of a batch */
+    public static class Stats {
+        private final long lines;
+        private final long errors;
+        private final long tokens;
+        private final long nanos;
+
+        Stats(long lines, long errors, long tokens, long nanos) {
+            this.lines = lines;
+            this.errors = errors;
+            this.tokens = tokens;
+            this.nanos = nanos;
+        }
+
+        /** @return nr of (non-empty) lines parsed */
+        public long getLines() {
+            return lines;
+        }
+
+        /** @return nr of lines which couldn't be lexed or parsed */
+        public long getErrors() {
+            return errors;
+        }
+
+        /** @return nr of tokens produced by the lexer (input endmarkers not included) */
+        public long getTokens() {
+            return tokens;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        public double getLinesPerSecond() {
+            return nanos == 0 ? 0 : lines * 1e9 / nanos;
+        }
+
+        public double getTokensPerSecond() {
+            return nanos == 0 ? 0 : tokens * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d lines (%d errors), %d tokens in %.3f s: %.0f lines/s, %.0f tokens/s",
+                    lines, errors, tokens, nanos / 1e9, getLinesPerSecond(), getTokensPerSecond());
+        }
+    }
+
+    private final Parser parser;
+    private final ParseContext context = new ParseContext();
+    private final StringBuilder line = new StringBuilder();
+    private final CharSequenceLexer lexer = new CharSequenceLexer(line);
+    private final TokenBuffer tokens = new TokenBuffer();
+    private final char[] buffer = new char[8192];
+    private long lines;
+    private long errors;
+    private long lineNr;
+    private long tokenCount;
+
+    /**
+     * @param parser {@link Parser} w/its parsing table already constructed
+     */
+    public BatchParser(Parser parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * Parses each line of the given file. The file is memory-mapped & lexed a line at a time directly from
+     * its bytes (see {@link MappedFileLexer}), so files of any size can be parsed w/o reading them onto the heap.
+     * @param inputFile {@link File} w/one expression per line
+     * @param handler {@link LineHandler} receiving the result of each line
+     * @return {@link Stats} of the batch
+     * @throws IOException -- cannot read the file
+     */
+    public Stats run(File inputFile, LineHandler handler) throws IOException {
+        lines = 0;
+        errors = 0;
+        lineNr = 0;
+        tokenCount = 0;
+        long start = System.nanoTime();
+
+        try (MappedFileLexer fileLexer = new MappedFileLexer(inputFile)) {
+            while (fileLexer.hasMoreLines()) {
+                lineNr++;
+                try {
+                    fileLexer.scanLine(tokens);
+                } catch (InvalidCharException e) {
+                    lines++;
+                    errors++;
+                    handler.failed(lineNr, fileLexer.getLine(fileLexer.getLineStart()), e);
+                    continue;
+                }
+                if (tokens.size() == 0) continue;  // empty line
+
+                lines++;
+                tokenCount += tokens.size();
+                try {
+                    handler.parsed(lineNr, parser.parse(tokens, context));
+                } catch (ParsingError e) {
+                    errors++;
+                    handler.failed(lineNr, fileLexer.getLine(fileLexer.getLineStart()), e);
+                }
+            }
+        }
+
+        return new Stats(lines, errors, tokenCount, System.nanoTime() - start);
+    }
+
+    /**
+     * Parses each line read from the given reader.
+     * @param input {@link Reader} w/one expression per line (not closed)
+     * @param handler {@link LineHandler} receiving the result of each line
+     * @return {@link Stats} of the batch
+     * @throws IOException -- cannot read the input
+     */
+    public Stats run(Reader input, LineHandler handler) throws IOException {
+        lines = 0;
+        errors = 0;
+        lineNr = 0;
+        tokenCount = 0;
+        long start = System.nanoTime();
+
+        line.setLength(0);
+        int n = input.read(buffer, 0, buffer.length);
+        while (n >= 0) {
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] == '\n') endOfLine(handler);
+                else line.append(buffer[i]);
+            }
+            n = input.read(buffer, 0, buffer.length);
+        }
+        endOfLine(handler);  // last line (w/o a line terminator)
+
+        return new Stats(lines, errors, tokenCount, System.nanoTime() - start);
+    }
+
+    /**
+     * Parses the line in the line buffer (unless it's empty), reports its result & empties the buffer.
+     */
+    private void endOfLine(LineHandler handler) {
+        lineNr++;
+        if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') line.setLength(line.length() - 1);
+        if (line.length() == 0) return;
+
+        lines++;
+        lexer.reset(line);
+        tokens.clear();
+        try {
+            lexer.scanAll(tokens);
+            tokenCount += tokens.size();
+            ParseTreeNode root = parser.parse(tokens, context);
+            handler.parsed(lineNr, root);
+        } catch (ParsingError | InvalidCharException e) {
+            errors++;
+            handler.failed(lineNr, line, e);
+        } finally {
+            line.setLength(0);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java parser.BatchParser grammarFile inputFile");
+            return;
+        }
+        Parser parser = new Parser(new File(args[0]));
+
+        Stats stats = new BatchParser(parser).run(new File(args[1]), new LineHandler() {
+            @Override
+            public void parsed(long lineNr, ParseTreeNode root) {}
+
+            @Override
+            public void failed(long lineNr, CharSequence line, Exception error) {
+                System.out.println("Line " + lineNr + " (" + line + "): " + error);
+            }
+        });
+        System.out.println(stats);
+    }
+}
@@ -0,0 +1,258 @@
+package parser;
+
+import java.util.*;
+
+final class CompressedTables {
+    /**
+     * Compressed form of the ACTION & GOTO tables of a {@link ParsingTable}, w/O(1) lookups:
+     *  - default reductions: the most common reduction of each ACTION row replaces all the error entries of the row,
+     *    so only the other entries (shifts, accept & other reductions) are stored. As in yacc, an erroneous token may
+     *    then cause some reductions before the error is detected, but it's never shifted.
+     *  - default gotos: the most common state of each GOTO column replaces its other entries (undefined GOTO entries
+     *    are never looked up by a correct LR parser, so they can be anything).
+     *  - row displacement (comb vectors): the remaining entries of all the rows (columns for GOTO) are packed into a
+     *    single value array, each row starting at its own base index, so that the entries of different rows never
+     *    use the same slot. A check array stores the base of the row each slot belongs to, so an entry is found at
+     *    base + column if the check there is base, & is the default of the row otherwise.
+     *  - identical rows (w/o their defaults) are only stored once, sharing the same base.
+     * Bases are never shared by different rows, so the check of a slot identifies its row.
+     */
+
+    private final int[] actionBase;  // base of each state's row
+    private final int[] defaultAction;  // default of each state's row (a reduction, or error)
+    private final int[] actionCheck;  // base of the row which has each slot, -1 if the slot is free
+    private final int[] actionValue;
+    private final int actionRows;  // nr of different rows stored
+
+    private final int[] gotoBase;  // base of each nonterm's column
+    private final int[] defaultGoto;  // default state of each nonterm's column
+    private final int[] gotoCheck;
+    private final int[] gotoValue;
+    private final int gotoColumns;
+
+    /**
+     * Compresses the given dense tables (see {@link ParsingTable}).
+     * @param action dense ACTION table, indexed by [state * numTerms + terminal column]
+     * @param gotoTable dense GOTO table, indexed by [state][nonterm], -1 if undefined
+     * @param numTerms nr of terminals (columns of ACTION)
+     */
+    CompressedTables(int[] action, int[][] gotoTable, int numTerms) {
+        int numStates = gotoTable.length;
+        int numNonterms = numStates == 0 ? 0 : gotoTable[0].length;
+
+        // ACTION: rows w/o their default reductions
+        defaultAction = new int[numStates];
+        int[][] rows = new int[numStates][];
+        for (int state = 0; state < numStates; state++) {
+            int row = state * numTerms;
+            int[] entries = new int[numTerms];
+            for (int t = 0; t < numTerms; t++) entries[t] = action[row + t];
+            defaultAction[state] = mostCommon(entries, ParsingTable.ERROR, true);
+            rows[state] = explicitEntries(entries, defaultAction[state], ParsingTable.ERROR);
+        }
+        Packing actions = new Packing(rows, numTerms);
+        actionBase = actions.bases;
+        actionCheck = actions.check;
+        actionValue = actions.values;
+        actionRows = actions.distinct;
+
+        // GOTO: columns w/o their default states
+        defaultGoto = new int[numNonterms];
+        int[][] columns = new int[numNonterms][];
+        for (int n = 0; n < numNonterms; n++) {
+            int[] entries = new int[numStates];
+            for (int state = 0; state < numStates; state++) entries[state] = gotoTable[state][n];
+            defaultGoto[n] = mostCommon(entries, -1, false);
+            columns[n] = explicitEntries(entries, defaultGoto[n], -1);
+        }
+        Packing gotos = new Packing(columns, numStates);
+        gotoBase = gotos.bases;
+        gotoCheck = gotos.check;
+        gotoValue = gotos.values;
+        gotoColumns = gotos.distinct;
+    }
+
+    /**
+     * Gets the packed ACTION[state, column] entry.
+     * @param state state of the parser automaton
+     * @param column terminal column (>= 0)
+     * @return packed action (the default reduction of the state for error entries of states which have one)
+     */
+    int action(int state, int column) {
+        int base = actionBase[state];
+        int i = base + column;
+        return actionCheck[i] == base ? actionValue[i] : defaultAction[state];
+    }
+
+    /**
+     * Gets GOTO[state, nonterm].
+     * @param state state of the parser automaton
+     * @param nonterm index of the nonterminal
+     * @return state given by GOTO[state, nonterm] (the default state of the nonterm if GOTO[state, nonterm] is undefined)
+     */
+    int goTo(int state, int nonterm) {
+        int base = gotoBase[nonterm];
+        int i = base + state;
+        return gotoCheck[i] == base ? gotoValue[i] : defaultGoto[nonterm];
+    }
+
+    /** @return nr of bytes taken by the arrays of the tables */
+    long getBytes() {
+        return ParsingTable.bytes(actionBase) + ParsingTable.bytes(defaultAction) + ParsingTable.bytes(actionCheck)
+                + ParsingTable.bytes(actionValue) + ParsingTable.bytes(gotoBase) + ParsingTable.bytes(defaultGoto)
+                + ParsingTable.bytes(gotoCheck) + ParsingTable.bytes(gotoValue);
+    }
+
+    /** @return nr of different ACTION rows stored (after removing the default reductions & merging identical rows) */
+    int getNumActionRows() {
+        return actionRows;
+    }
+
+    /** @return nr of different GOTO columns stored */
+    int getNumGotoColumns() {
+        return gotoColumns;
+    }
+
+    /** @return length of the packed ACTION value (& check) array */
+    int getActionSlots() {
+        return actionValue.length;
+    }
+
+    /**
+     * Gets the default of a row: its most common value, only considering reductions for ACTION.
+     * @param entries entries of the row
+     * @param none value of empty entries (error, or undefined GOTO), which is the default if no entry is eligible
+     * @param reductionsOnly true for ACTION rows
+     */
+    private static int mostCommon(int[] entries, int none, boolean reductionsOnly) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        int best = none;
+        int bestCount = 0;
+        for (int entry : entries) {
+            if (entry == none || (reductionsOnly && ParsingTable.kind(entry) != ParsingTable.REDUCE)) continue;
+            int count = counts.merge(entry, 1, Integer::sum);
+            if (count > bestCount) {
+                best = entry;
+                bestCount = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Gets the entries of a row which must be stored, i.e. which aren't empty or its default.
+     * @param entries entries of the row
+     * @param defaultValue default of the row
+     * @param none value of empty entries (error, or undefined GOTO), left out even if the default isn't empty
+     * @return (column, value) pairs of the entries, in order of column
+     */
+    private static int[] explicitEntries(int[] entries, int defaultValue, int none) {
+        int size = 0;
+        int[] explicit = new int[2 * entries.length];
+        for (int column = 0; column < entries.length; column++) {
+            if (entries[column] == defaultValue || entries[column] == none) continue;
+            explicit[size++] = column;
+            explicit[size++] = entries[column];
+        }
+        return Arrays.copyOf(explicit, size);
+    }
+
+    /** Row displacement packing of rows given as (column, value) pairs, w/identical rows merged */
+    private static final class Packing {
+        final int[] bases;
+        int[] check;
+        int[] values;
+        int distinct;
+
+        private final BitSet usedBases = new BitSet();
+        private int length = 0;  // nr of slots used (the arrays may be longer)
+
+        Packing(int[][] rows, int width) {
+            bases = new int[rows.length];
+            check = new int[64];
+            values = new int[64];
+            Arrays.fill(check, -1);
+
+            // place the fullest rows 1st (they're the hardest to fit), reusing the base of an identical row
+            Integer[] order = new Integer[rows.length];
+            for (int r = 0; r < rows.length; r++) order[r] = r;
+            Arrays.sort(order, (a, b) -> Integer.compare(rows[b].length, rows[a].length));
+            Map<Row, Integer> baseOfRow = new HashMap<>();
+            int firstFree = 0;  // all slots before it are used
+            for (int r : order) {
+                Row row = new Row(rows[r]);
+                Integer base = baseOfRow.get(row);
+                if (base == null) {
+                    while (firstFree < length && check[firstFree] != -1) firstFree++;
+                    base = fit(rows[r], firstFree);
+                    place(rows[r], base);
+                    baseOfRow.put(row, base);
+                    distinct++;
+                }
+                bases[r] = base;
+            }
+
+            // every base + column must be in the arrays
+            int size = Math.max(length, usedBases.length() - 1 + width);
+            ensureCapacity(size);
+            check = Arrays.copyOf(check, size);
+            values = Arrays.copyOf(values, size);
+        }
+
+        /** @return 1st base (not used by another row) where all the entries of the row go in free slots */
+        private int fit(int[] row, int firstFree) {
+            int base = row.length == 0 ? 0 : Math.max(0, firstFree - row[0]);
+            while (true) {
+                base = usedBases.nextClearBit(base);
+                boolean fits = true;
+                for (int k = 0; k < row.length && fits; k += 2) {
+                    int slot = base + row[k];
+                    fits = slot >= check.length || check[slot] == -1;
+                }
+                if (fits) return base;
+                base++;
+            }
+        }
+
+        private void place(int[] row, int base) {
+            usedBases.set(base);
+            for (int k = 0; k < row.length; k += 2) {
+                int slot = base + row[k];
+                ensureCapacity(slot + 1);
+                check[slot] = base;
+                values[slot] = row[k + 1];
+                length = Math.max(length, slot + 1);
+            }
+        }
+
+        private void ensureCapacity(int size) {
+            if (size <= check.length) return;
+            int oldLength = check.length;
+            int newLength = Math.max(size, 2 * oldLength);
+            check = Arrays.copyOf(check, newLength);
+            values = Arrays.copyOf(values, newLength);
+            Arrays.fill(check, oldLength, newLength, -1);
+        }
+    }
+
+    /** Entries of a row, as a key to find identical rows */
+    private static final class Row {
+        private final int[] entries;
+        private final int hash;
+
+        Row(int[] entries) {
+            this.entries = entries;
+            this.hash = Arrays.hashCode(entries);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Row && hash == ((Row) o).hash && Arrays.equals(entries, ((Row) o).entries);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package parser;
+
+public enum ConstructionMethod {
+    /**
+     * Method used to construct the parsing table of a {@link Parser} (see {@link Parser#Parser(java.io.File, ConstructionMethod)}).
+     * All of them use the same conflict resolution (see {@link ParsingConflict}), they only differ in the
+     * lookaheads on which reductions are entered & in the nr of states.
+     */
+
+    /** LR(0) automaton, reductions on FOLLOW(A) (smallest table, but the most conflicts) */
+    SLR,
+    /** LR(0) automaton, reductions on the LALR(1) lookaheads (calculated w/DeRemer & Pennello's algorithm) */
+    LALR1,
+    /** canonical LR(1) automaton (fewest conflicts, but usually many more states) */
+    LR1
+}
@@ -0,0 +1,111 @@
+package parser;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+final class Digraph {
+    /**
+     * DeRemer & Pennello's digraph algorithm, for set equations of the form F(x) = F'(x) ∪ U{F(y) | x R y}
+     * (e.g. FIRST & FOLLOW sets, or the Read & Follow sets of LALR(1) lookaheads).
+     * The relation R is walked depth first, finding its strongly connected components (as in Tarjan's algorithm):
+     * each set is unioned along each edge once & all the elements of a component get the same (shared) set, so the
+     * equations are solved in time linear in the size of the relation, instead of iterating until nothing changes.
+     * The walk uses explicit stacks, so long chains (e.g. of nonterminals) can't overflow the call stack.
+     */
+
+    private Digraph() {}
+
+    /**
+     * Solves F(x) = F'(x) ∪ U{F(y) | x R y} for every x.
+     * @param relation R, as the elements y w/x R y, for each x
+     * @param sets F'(x) for each x, replaced by F(x) (elements of the same strongly connected component share their set)
+     * @return nr of strongly connected components w/more than one element
+     */
+    static int solve(int[][] relation, BitSet[] sets) {
+        int n = relation.length;
+        int[] low = new int[n];  // 0 if not visited yet, MAX_VALUE once its component is done
+        int[] entry = new int[n];  // depth of the element in the stack when it was visited
+        int[] stack = new int[n];  // visited elements whose component isn't done yet
+        int[] path = new int[n];  // elements being visited (the "call stack")
+        int[] nextEdge = new int[n];
+        int top = 0;
+        int components = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (low[root] != 0) continue;
+            int depth = 0;
+            stack[top++] = root;
+            entry[root] = low[root] = top;
+            path[depth++] = root;
+
+            while (depth > 0) {
+                int x = path[depth - 1];
+                if (nextEdge[x] < relation[x].length) {
+                    int y = relation[x][nextEdge[x]++];
+                    if (low[y] == 0) {  // visit y
+                        stack[top++] = y;
+                        entry[y] = low[y] = top;
+                        path[depth++] = y;
+                    } else {
+                        low[x] = Math.min(low[x], low[y]);
+                        sets[x].or(sets[y]);
+                    }
+                    continue;
+                }
+
+                // all the edges of x are done
+                depth--;
+                if (low[x] == entry[x]) {  // x is the root of a component: pop it & give its set to all its elements
+                    int size = 0;
+                    int y;
+                    do {
+                        y = stack[--top];
+                        low[y] = Integer.MAX_VALUE;
+                        sets[y] = sets[x];
+                        size++;
+                    } while (y != x);
+                    if (size > 1) components++;
+                }
+                if (depth > 0) {  // back in the element which visited x
+                    int parent = path[depth - 1];
+                    low[parent] = Math.min(low[parent], low[x]);
+                    sets[parent].or(sets[x]);
+                }
+            }
+        }
+        return components;
+    }
+
+    /** Builder of a relation on 0 to n - 1, from its pairs (x, y) */
+    static final class Relation {
+        private final int n;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int size = 0;
+
+        Relation(int n) {
+            this.n = n;
+        }
+
+        /** Adds x R y */
+        void add(int x, int y) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+            }
+            from[size] = x;
+            to[size++] = y;
+        }
+
+        /** @return the elements y w/x R y, for each x (in the order the pairs were added) */
+        int[][] toArray() {
+            int[] count = new int[n];
+            for (int i = 0; i < size; i++) count[from[i]]++;
+            int[][] relation = new int[n][];
+            for (int x = 0; x < n; x++) relation[x] = new int[count[x]];
+            Arrays.fill(count, 0);
+            for (int i = 0; i < size; i++) relation[from[i]][count[from[i]]++] = to[i];
+            return relation;
+        }
+    }
+}
@@ -0,0 +1,822 @@
+package parser;
+
+import metrics.MetricNames;
+import metrics.Metrics;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+class Grammar {
+    private Set<Production> productionsSet; // note: dif prod bodies for same nonterm stored as separate elements in set
+    private Map<String, Set<String>> productionsMap;  // stores prod bodies assoc w/each nonterm (--head)
+    private Set<String> nonterminals;
+    private Set<String> terminals;
+    private Set<String> grammarSymbols;
+    private String startSymbol;
+    private long firstFollowNanos;
+
+    // int-encoded form of the grammar (see internSymbols())
+    private SymbolTable symbols;
+    private Production[] productions;  // productions in order of declaration, indexed by production nr
+    private int[] prodHead;  // symbol id of the head of each production
+    private int[][] prodBody;  // symbol ids of the body of each production (empty for ε productions)
+    private int[][] prodsOfNonterm;  // production nrs for each nonterm (indexed by nonterm nr, i.e. id - nr of terminals)
+    private int[] itemStart;  // LR(0) item nr of [A -> · α] for each production
+    private int[] itemProd;  // production nr of each item
+    private int[] itemNextSymb;  // symbol id right after the dot of each item, -1 if dot is at the end
+    private boolean[] itemNullable;  // if the rest of the body from the dot of each item (β in [A -> α · β]) derives ε
+    private BitSet[] itemFirst;  // FIRST(β) as terminal ids for each item [A -> α · β] (ε not included)
+    private boolean[] nullable;  // if each nonterm derives ε (indexed by nonterm nr)
+    private BitSet[] first;  // FIRST(A) as terminal ids for each nonterm A (ε not included)
+    private BitSet[] follow;  // FOLLOW(A) as terminal ids for each nonterm A
+    private int[][] occurrences;  // items [A -> α B · β] right after each occurrence of each nonterm B (by nonterm nr)
+
+    // for a grammar changed from another one (see Grammar(Grammar, List, List))
+    private int[] prodOfOldProd;  // production nr of each production of the old grammar, -1 if it was removed
+    private int[] oldProdOfProd;  // production nr in the old grammar of each production, -1 if it was added
+    private BitSet changedHeads = new BitSet();  // symbol ids of the nonterms whose productions changed
+
+    /**
+     * Create Grammar object from grammar specification in given file.
+     * Note: the grammarSpecification file must have the following format:
+     *  - 1st line: non-terminals, separated by a comma. 1st one is start symbol.
+     *  - 2nd line: terminals, separated by a comma.
+     *  - Note: if grammar has "ε" in any production body, must include ε in the 2nd line w/the terminals
+     *  - then, one production per line
+     *  - preferably a single production per non-terminal for clarity
+     * The file is read as UTF-8 (whatever the platform's default charset), so ε is always read correctly.
+     */
+    Grammar(File grammarSpecification) throws IOException {
+        long start = System.nanoTime();
+        productionsSet = new LinkedHashSet<>();
+        productionsMap = new HashMap<>();
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(grammarSpecification), StandardCharsets.UTF_8))) {
+            try {
+                String nextLine = reader.readLine();  // read next line from file
+                // get non-terminals & terminals
+                String[] nontermSplit = nextLine.split(",");
+                nonterminals = new LinkedHashSet<>(Arrays.asList(nontermSplit));  // 1st line has non-terminals
+                startSymbol = nontermSplit[0]; // 1st non-term is the start symbol
+                grammarSymbols = new LinkedHashSet<>(nonterminals);
+                nextLine = reader.readLine();
+                terminals = new LinkedHashSet<>(Arrays.asList(nextLine.split(",")));  // 2nd line has terminals
+                grammarSymbols.addAll(terminals);
+                nextLine = reader.readLine();
+
+                // get productions
+                while (nextLine != null) {
+                    // add all prod for this non-term (in this line) to productionsSet & productionsMap
+                    for (Production prod : parseProductions(nextLine)) {
+                        productionsSet.add(prod);
+                        productionsMap.computeIfAbsent(prod.getHead(), k -> new LinkedHashSet<>()).add(prod.getBody());
+                    }
+
+                    nextLine = reader.readLine();  // read next line
+                }
+
+                // assign ints to all gram symb & encode productions/items with them
+                internSymbols();
+
+                // calc first & follow for all gram symb & nonterm
+                calcFirstAndFollowSets();
+
+            } catch (NullPointerException e) {
+                System.out.println("Incorrect format of grammar file.");
+            }
+
+        } catch (IOException e) {
+            throw new IOException("Can't access file " + grammarSpecification, e);
+        }
+        Metrics.global().record(MetricNames.GRAMMAR_NANOS, System.nanoTime() - start);
+    }
+
+    /**
+     * Create Grammar object from another grammar (i.e. expand this grammar)
+     * @param grammar gram to expand
+     * @param addNonterm new, additiona non-terminals
+     * @param addTerm new, additional terminals
+     * @param addProd new, additional productions
+     * @param newStartSymb specifies new start symb
+     */
+    Grammar(Grammar grammar, Set<String> addNonterm, Set<String> addTerm, Set<Production> addProd, String newStartSymb){
+        nonterminals = new LinkedHashSet<>(grammar.getNonterminals());
+        if(addNonterm != null) nonterminals.addAll(addNonterm);
+
+        terminals = new LinkedHashSet<>(grammar.getTerminals());
+        if(addTerm != null) terminals.addAll(addTerm);
+
+        grammarSymbols = new LinkedHashSet<>(nonterminals);
+        grammarSymbols.addAll(terminals);
+
+        productionsSet = new LinkedHashSet<>(grammar.getProductionsSet());
+        productionsMap = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : grammar.getProductionsMap().entrySet()) {
+            productionsMap.put(entry.getKey(), new LinkedHashSet<>(entry.getValue()));
+        }
+        if(addProd != null) {
+            productionsSet.addAll(addProd);
+            for (Production newProd : addProd) {
+                productionsMap.computeIfAbsent(newProd.getHead(), k -> new LinkedHashSet<>()).add(newProd.getBody());
+            }
+        }
+
+        if(newStartSymb != null) startSymbol = newStartSymb;
+        else startSymbol = grammar.startSymbol;
+
+        // assign ints to all gram symb & encode productions/items with them
+        internSymbols();
+
+        // calc first & follow for all gram symb & nonterm
+        calcFirstAndFollowSets();
+    }
+
+    /**
+     * Create Grammar object from another grammar w/some productions added & removed (i.e. change this grammar).
+     * The heads of added productions which aren't nonterminals of the grammar become new nonterminals, which get
+     * the next ids, so all the symbols keep their ids. The added productions go after the others (so they're
+     * numbered after them), except the productions of the start symbol at the end (as S' -> StartSymbol of an
+     * augmented grammar), which stay last. Only the nullable, FIRST & FOLLOW entries the change can affect are recalculated
+     * (see {@link #updateFirstAndFollowSets(Grammar, boolean[])}), the others are taken from the given grammar.
+     * @param grammar gram to change (not modified)
+     * @param addProd productions to add
+     * @param removeProd productions to remove (matched by head & body)
+     * @throws IllegalArgumentException -- a production to add has a terminal as head or a symbol which isn't in the
+     * grammar, or is already in the grammar, or a production to remove isn't in the grammar
+     */
+    Grammar(Grammar grammar, List<Production> addProd, List<Production> removeProd){
+        nonterminals = new LinkedHashSet<>(grammar.nonterminals);
+        terminals = new LinkedHashSet<>(grammar.terminals);
+        startSymbol = grammar.startSymbol;
+        for (Production prod : addProd) {
+            if (terminals.contains(prod.getHead())) throw new IllegalArgumentException("Head of " + prod + " is a terminal");
+            nonterminals.add(prod.getHead());
+        }
+        grammarSymbols = new LinkedHashSet<>(nonterminals);
+        grammarSymbols.addAll(terminals);
+        for (Production prod : addProd) {
+            for (String symb : bodySymbols(prod.getBody())) {
+                if (!grammarSymbols.contains(symb)) throw new IllegalArgumentException("Unknown grammar symbol " + symb + " in " + prod);
+            }
+        }
+
+        // match the productions by their string repr "head -> body"
+        Map<String, Integer> prodNrs = new HashMap<>();
+        for (int p = 0; p < grammar.productions.length; p++) prodNrs.put(grammar.productions[p].toString(), p);
+        boolean[] removed = new boolean[grammar.productions.length];
+        for (Production prod : removeProd) {
+            Integer p = prodNrs.get(prod.toString());
+            if (p == null || removed[p]) throw new IllegalArgumentException(prod + " isn't in the grammar");
+            removed[p] = true;
+        }
+        Set<String> added = new HashSet<>();
+        for (Production prod : addProd) {
+            Integer p = prodNrs.get(prod.toString());
+            if ((p != null && !removed[p]) || !added.add(prod.toString())) throw new IllegalArgumentException(prod + " is already in the grammar");
+        }
+
+        // the added productions go before the productions of the start symbol at the end (e.g. S' -> StartSymbol)
+        int insertAt = grammar.productions.length;
+        while (insertAt > 0 && grammar.productions[insertAt - 1].getHead().equals(startSymbol)) insertAt--;
+        productionsSet = new LinkedHashSet<>();
+        productionsMap = new HashMap<>();
+        prodOfOldProd = new int[grammar.productions.length];
+        int firstAdded = -1;
+        for (int p = 0; p <= grammar.productions.length; p++) {
+            if (p == insertAt) {
+                firstAdded = productionsSet.size();
+                productionsSet.addAll(addProd);
+            }
+            if (p == grammar.productions.length) break;
+            if (removed[p]) {
+                prodOfOldProd[p] = -1;
+                continue;
+            }
+            prodOfOldProd[p] = productionsSet.size();
+            productionsSet.add(grammar.productions[p]);
+        }
+        for (Production prod : productionsSet) {
+            productionsMap.computeIfAbsent(prod.getHead(), k -> new LinkedHashSet<>()).add(prod.getBody());
+        }
+        oldProdOfProd = new int[productionsSet.size()];
+        Arrays.fill(oldProdOfProd, -1);
+        for (int p = 0; p < prodOfOldProd.length; p++) {
+            if (prodOfOldProd[p] >= 0) oldProdOfProd[prodOfOldProd[p]] = p;
+        }
+
+        // assign ints to all gram symb (the same ones for the symbols of the given grammar) & encode productions/items
+        internSymbols();
+
+        for (int p = 0; p < removed.length; p++) {
+            if (removed[p]) changedHeads.set(grammar.prodHead[p]);
+        }
+        for (int p = firstAdded; p < firstAdded + addProd.size(); p++) changedHeads.set(prodHead[p]);
+
+        // recalc the first & follow entries which can change
+        updateFirstAndFollowSets(grammar, removed);
+    }
+
+    /**
+     * Reads the productions in a line of a grammar specification, e.g. "E' -> PLUS S E' | ε"
+     * (the bodies are separated by " | ").
+     * @param line {@link String} line w/the head & the bodies
+     * @return {@link List} of the productions, in order
+     * @throws IllegalArgumentException -- the line has no " -> "
+     */
+    static List<Production> parseProductions(String line){
+        String[] splitHeadBody = line.split("\\s->\\s");
+        if (splitHeadBody.length != 2) throw new IllegalArgumentException("Not a production: " + line);
+        List<Production> prods = new ArrayList<>();
+        for (String body : splitHeadBody[1].split("\\s\\|\\s")) prods.add(new Production(splitHeadBody[0], body));
+        return prods;
+    }
+
+    /** @return names of the symbols of a production body (none for "ε") */
+    private static String[] bodySymbols(String body){
+        return body.equals("ε") ? new String[0] : body.split("\\s");
+    }
+
+    Set<Production> getProductionsSet() {
+        return new LinkedHashSet<>(productionsSet);
+    }
+    Map<String, Set<String>> getProductionsMap() {
+        return new HashMap<>(productionsMap);
+    }
+    Set<String> getNonterminals() {
+        return new LinkedHashSet<>(nonterminals);
+    }
+    Set<String> getTerminals() {
+        return new LinkedHashSet<>(terminals);
+    }
+    String getStartSymbol() {
+        return startSymbol;
+    }
+    Set<String> getGramSymbols() {
+        return new LinkedHashSet<>(grammarSymbols);
+    }
+
+    /**
+     * Interns all grammar symbols in a {@link SymbolTable} & builds the int-encoded productions and
+     * LR(0) items used for constructing the parsing tables.
+     * An item [A -> α · β] of production p is encoded as the int itemStart[p] + |α|, so items of the
+     * same production are consecutive & moving the dot one place to the right is just adding 1.
+     */
+    private void internSymbols(){
+        symbols = new SymbolTable(terminals, nonterminals);
+
+        productions = productionsSet.toArray(new Production[0]);
+        prodHead = new int[productions.length];
+        prodBody = new int[productions.length][];
+        itemStart = new int[productions.length];
+        int numItems = 0;
+        for (int p = 0; p < productions.length; p++) {
+            prodHead[p] = symbols.getId(productions[p].getHead());
+            String[] elements = bodySymbols(productions[p].getBody());
+            prodBody[p] = new int[elements.length];
+            for (int i = 0; i < elements.length; i++) prodBody[p][i] = symbols.getId(elements[i]);
+            itemStart[p] = numItems;
+            numItems += elements.length + 1;  // dot can be at positions 0 to |body|
+        }
+
+        itemProd = new int[numItems];
+        itemNextSymb = new int[numItems];
+        for (int p = 0; p < productions.length; p++) {
+            for (int dot = 0; dot <= prodBody[p].length; dot++) {
+                itemProd[itemStart[p] + dot] = p;
+                itemNextSymb[itemStart[p] + dot] = dot < prodBody[p].length ? prodBody[p][dot] : -1;
+            }
+        }
+
+        List<List<Integer>> prods = new ArrayList<>();
+        for (int n = 0; n < symbols.getNumNonterminals(); n++) prods.add(new ArrayList<>());
+        for (int p = 0; p < productions.length; p++) prods.get(prodHead[p] - symbols.getNumTerminals()).add(p);
+        prodsOfNonterm = new int[prods.size()][];
+        for (int n = 0; n < prods.size(); n++) {
+            prodsOfNonterm[n] = prods.get(n).stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        Digraph.Relation occurs = new Digraph.Relation(symbols.getNumNonterminals());
+        for (int p = 0; p < productions.length; p++) {
+            for (int dot = 0; dot < prodBody[p].length; dot++) {
+                if (!symbols.isTerminal(prodBody[p][dot])) occurs.add(prodBody[p][dot] - symbols.getNumTerminals(), itemStart[p] + dot + 1);
+            }
+        }
+        occurrences = occurs.toArray();
+    }
+
+    SymbolTable getSymbols() {
+        return symbols;
+    }
+    int getNumProductions() {
+        return productions.length;
+    }
+    Production getProduction(int prod) {
+        return productions[prod];
+    }
+    int getProdHead(int prod) {
+        return prodHead[prod];
+    }
+    int getProdLength(int prod) {
+        return prodBody[prod].length;
+    }
+    int[] getProdsOfNonterm(int nontermId) {
+        return prodsOfNonterm[nontermId - symbols.getNumTerminals()];
+    }
+    int getNumItems() {
+        return itemProd.length;
+    }
+    /** @return item [A -> · α] for the given production */
+    int getInitialItem(int prod) {
+        return itemStart[prod];
+    }
+    int getItemProd(int item) {
+        return itemProd[item];
+    }
+    int getItemDot(int item) {
+        return item - itemStart[itemProd[item]];
+    }
+    /** @return symbol id right after the dot in the item, -1 if it's a complete item [A -> α ·] */
+    int getItemNextSymb(int item) {
+        return itemNextSymb[item];
+    }
+
+    /** @return production nr of a production of the grammar this one was changed from, -1 if it was removed */
+    int getProdOfOldProd(int oldProd) {
+        return prodOfOldProd[oldProd];
+    }
+    /** @return production nr of a production in the grammar this one was changed from, -1 if it was added */
+    int getOldProdOfProd(int prod) {
+        return oldProdOfProd[prod];
+    }
+    /** @return true if productions of the nonterminal were added or removed when changing the grammar it comes from */
+    boolean isChangedHead(int symb) {
+        return changedHeads.get(symb);
+    }
+
+    /** @return true if the rest of the body from the dot of the item (β in [A -> α · β]) derives ε */
+    boolean isItemNullable(int item) {
+        return itemNullable[item];
+    }
+    /** @return FIRST(β) for the item [A -> α · β], as terminal ids (ε not included, see {@link #isItemNullable(int)}), not to be modified */
+    BitSet getItemFirst(int item) {
+        return itemFirst[item];
+    }
+
+    /**
+     * String repr of the given item, e.g. "E -> S · E'"
+     * @param item int-encoded item
+     * @return {@link String} repr of the item
+     */
+    String itemToString(int item) {
+        int p = itemProd[item];
+        StringBuilder buffer = new StringBuilder(productions[p].getHead()).append(" ->");
+        for (int i = 0; i <= prodBody[p].length; i++) {
+            if (i == getItemDot(item)) buffer.append(" ·");
+            if (i < prodBody[p].length) buffer.append(" ").append(symbols.getName(prodBody[p][i]));
+        }
+        return buffer.toString();
+    }
+
+    /** @return true if the grammar symbol derives ε (only nonterminals can) */
+    boolean isNullable(int symb) {
+        return !symbols.isTerminal(symb) && nullable[symb - symbols.getNumTerminals()];
+    }
+
+    /**
+     * Gets FOLLOW(nonterm) as symbol ids of terminals.
+     * @param nontermId symbol id of the nonterminal
+     * @return ids of the terminals in FOLLOW(nonterm) (INPUTENDMARKER included), in increasing order
+     */
+    int[] calcFollowIds(int nontermId){
+        return follow[nontermId - symbols.getNumTerminals()].stream().toArray();
+    }
+
+    /**
+     * Gets FOLLOW(nonterm).
+     * (FOLLOW(nonterm) repr the set of terminals that can appear immediately to the right of
+     * nonterm (the param) in some sentential form.)
+     * @param nonterm nonterminal for which to get the set of terminals
+     * @return {@link Set} of the names of the terminals (INPUTENDMARKER included)
+     */
+    Set<String> calcFollow(String nonterm){
+        Set<String> result = new HashSet<>();
+        for (int term : calcFollowIds(symbols.getId(nonterm))) result.add(symbols.getName(term));
+        return result;
+    }
+
+    /**
+     * Calculates which nonterminals derive ε, FIRST() & FOLLOW() of all nonterminals & FIRST() of the rest of
+     * the body of every item, on symbol ids w/{@link BitSet}s, recording the time taken.
+     * FIRST & FOLLOW are each solved in a single walk of their inclusion relation (see {@link Digraph}).
+     */
+    private void calcFirstAndFollowSets(){
+        long start = System.nanoTime();
+        calcNullable();
+        int firstComponents = calcAllFirstSets();
+        calcItemFirstSets();
+        int followComponents = calcAllFollowSets();
+        firstFollowNanos = System.nanoTime() - start;
+
+        Metrics metrics = Metrics.global();
+        metrics.record(MetricNames.GRAMMAR_FIRST_FOLLOW_NANOS, firstFollowNanos);
+        metrics.set(MetricNames.GRAMMAR_FIRST_COMPONENTS, firstComponents);
+        metrics.set(MetricNames.GRAMMAR_FOLLOW_COMPONENTS, followComponents);
+    }
+
+    /** @return time taken to calculate FIRST() & FOLLOW(), in ns */
+    long getFirstFollowNanos() {
+        return firstFollowNanos;
+    }
+
+    /**
+     * Calculates which nonterminals derive ε, w/a worklist: a production is nullable once all the symbols of its
+     * body are known to be, so each production keeps the nr of symbols of its body not known to be nullable yet.
+     */
+    private void calcNullable(){
+        int numTerms = symbols.getNumTerminals();
+        nullable = new boolean[symbols.getNumNonterminals()];
+        int[] remaining = new int[productions.length];  // -1 if the body has a terminal
+        Digraph.Relation occurrences = new Digraph.Relation(nullable.length);  // productions each nonterm occurs in
+        int[] worklist = new int[nullable.length];
+        int top = 0;
+
+        for (int p = 0; p < productions.length; p++) {
+            for (int symb : prodBody[p]) {
+                if (symbols.isTerminal(symb)) {
+                    remaining[p] = -1;
+                    break;
+                }
+                remaining[p]++;
+                occurrences.add(symb - numTerms, p);
+            }
+            int head = prodHead[p] - numTerms;
+            if (remaining[p] == 0 && !nullable[head]) {  // A -> ε
+                nullable[head] = true;
+                worklist[top++] = head;
+            }
+        }
+
+        int[][] prodsOfSymbol = occurrences.toArray();
+        while (top > 0) {
+            for (int p : prodsOfSymbol[worklist[--top]]) {
+                int head = prodHead[p] - numTerms;
+                if (remaining[p] > 0 && --remaining[p] == 0 && !nullable[head]) {
+                    nullable[head] = true;
+                    worklist[top++] = head;
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculates FIRST(A) for all nonterminals A: for each production A -> Y1 Y2 ... Yk, a in FIRST(A) if
+     * for some i, a in FIRST(Yi) & Y1, ..., Yi-1 all derive ε. So FIRST(A) is the terminals directly at the start
+     * of its bodies (after nullable nonterminals) plus FIRST(Yi) for each such nonterminal Yi.
+     * @return nr of strongly connected components (nonterminals w/the same FIRST set due to a cycle) found
+     */
+    private int calcAllFirstSets(){
+        int numTerms = symbols.getNumTerminals();
+        first = new BitSet[symbols.getNumNonterminals()];
+        for (int n = 0; n < first.length; n++) first[n] = new BitSet(numTerms);
+        Digraph.Relation includes = new Digraph.Relation(first.length);  // A includes Yi: FIRST(A) ⊇ FIRST(Yi)
+
+        for (int p = 0; p < productions.length; p++) {
+            int head = prodHead[p] - numTerms;
+            for (int symb : prodBody[p]) {
+                if (symbols.isTerminal(symb)) {
+                    first[head].set(symb);
+                    break;
+                }
+                includes.add(head, symb - numTerms);
+                if (!nullable[symb - numTerms]) break;
+            }
+        }
+        return Digraph.solve(includes.toArray(), first);
+    }
+
+    /**
+     * Calculates FIRST(β) of the rest of the body of every item [A -> α · β] (& if β derives ε), as needed for
+     * FOLLOW & LR(1) lookaheads. Goes through each body from its end, so FIRST(β) of [A -> α · X β] is built from
+     * that of [A -> α X · β].
+     */
+    private void calcItemFirstSets(){
+        itemNullable = new boolean[itemProd.length];
+        itemFirst = new BitSet[itemProd.length];
+        for (int p = 0; p < productions.length; p++) calcItemFirstSets(p);
+    }
+
+    /** Calculates FIRST(β) (& if β derives ε) of the items [A -> α · β] of the given production */
+    private void calcItemFirstSets(int p){
+        int numTerms = symbols.getNumTerminals();
+        int item = itemStart[p] + prodBody[p].length;
+        itemNullable[item] = true;
+        itemFirst[item] = new BitSet(numTerms);
+        for (int dot = prodBody[p].length - 1; dot >= 0; dot--, item--) {
+            int symb = prodBody[p][dot];
+            BitSet firstOfRest = new BitSet(numTerms);
+            if (symbols.isTerminal(symb)) {
+                firstOfRest.set(symb);
+            } else {
+                firstOfRest.or(first[symb - numTerms]);
+                if (nullable[symb - numTerms]) firstOfRest.or(itemFirst[item]);
+            }
+            itemFirst[item - 1] = firstOfRest;
+            itemNullable[item - 1] = itemNullable[item] && isNullable(symb);
+        }
+    }
+
+    /**
+     * Calculates FOLLOW(B) for all nonterminals B: INPUTENDMARKER is in FOLLOW(start symbol), &
+     * for each occurrence of B in a production A -> α B β, FIRST(β) is in FOLLOW(B), as is FOLLOW(A) if β derives ε.
+     * Every occurrence is considered (also when B appears several times in the same body).
+     * @return nr of strongly connected components (nonterminals w/the same FOLLOW set due to a cycle) found
+     */
+    private int calcAllFollowSets(){
+        int numTerms = symbols.getNumTerminals();
+        follow = new BitSet[symbols.getNumNonterminals()];
+        for (int n = 0; n < follow.length; n++) follow[n] = new BitSet(numTerms);
+        follow[symbols.getId(startSymbol) - numTerms].set(symbols.getEndMarker());
+        Digraph.Relation includes = new Digraph.Relation(follow.length);  // B includes A: FOLLOW(B) ⊇ FOLLOW(A)
+
+        for (int p = 0; p < productions.length; p++) {
+            int item = itemStart[p];
+            for (int symb : prodBody[p]) {
+                item++;  // [A -> α B · β]
+                if (symbols.isTerminal(symb)) continue;
+                follow[symb - numTerms].or(itemFirst[item]);
+                if (itemNullable[item]) includes.add(symb - numTerms, prodHead[p] - numTerms);
+            }
+        }
+        return Digraph.solve(includes.toArray(), follow);
+    }
+
+    /**
+     * Updates nullable, FIRST & FOLLOW after a change of the productions (see {@link #Grammar(Grammar, List, List)}),
+     * starting from those of the old grammar, recording the time taken:
+     *  - only the nonterminals which derive a changed head through productions w/o terminals can get a different
+     *    nullable, so only theirs is recalculated (that of the other nonterminals being a constant).
+     *  - only the nonterminals which derive a sentential form starting w/a changed head or w/a nonterminal whose
+     *    nullable changed can get a different FIRST, so only theirs is recalculated too.
+     *  - FIRST(β) of the items is only recalculated for the added productions & those w/a nonterminal whose nullable
+     *    or FIRST changed.
+     *  - FOLLOW can only change for the nonterminals in the bodies of those productions & of the removed ones, & for
+     *    the ones whose FOLLOW includes the FOLLOW of a nonterminal whose FOLLOW can change.
+     * @param grammar grammar this one was changed from
+     * @param removed if each production of the old grammar was removed
+     */
+    private void updateFirstAndFollowSets(Grammar grammar, boolean[] removed){
+        long start = System.nanoTime();
+        BitSet changed = new BitSet(symbols.getNumNonterminals());  // nonterms w/changed productions, nullable or FIRST
+        for (int head = changedHeads.nextSetBit(0); head >= 0; head = changedHeads.nextSetBit(head + 1)) {
+            changed.set(head - symbols.getNumTerminals());
+        }
+        changed.or(updateNullable(grammar, nontermsDeriving(changed, grammar, false)));
+        int[] firstDerivers = nontermsDeriving(changed, grammar, true);
+        changed.or(updateFirst(grammar, firstDerivers));
+        BitSet followChanges = updateItemFirstSets(grammar, changed, removed);
+        int followers = updateFollow(grammar, followChanges);
+        firstFollowNanos = System.nanoTime() - start;
+
+        Metrics metrics = Metrics.global();
+        metrics.record(MetricNames.GRAMMAR_FIRST_FOLLOW_NANOS, firstFollowNanos);
+        metrics.set(MetricNames.GRAMMAR_UPDATED_FIRST, firstDerivers.length);
+        metrics.set(MetricNames.GRAMMAR_UPDATED_FOLLOW, followers);
+    }
+
+    /**
+     * Finds the nonterminals A which derive one of the given nonterminals B, by going from each B to the heads of the
+     * productions A -> α B β it occurs in (in this grammar), either only if the body has no terminals, or only if α
+     * derives ε (in this grammar or in the old one).
+     * @param nonterms nrs of the nonterms B
+     * @param grammar grammar this one was changed from
+     * @param atStart true to only go through the occurrences after an α deriving ε, false to only go through bodies w/o terminals
+     * @return nrs of the nonterms found (the given ones included), in increasing order
+     */
+    private int[] nontermsDeriving(BitSet nonterms, Grammar grammar, boolean atStart){
+        int numTerms = symbols.getNumTerminals();
+        int oldNonterms = grammar.nullable.length;
+        BitSet derivers = (BitSet) nonterms.clone();
+        int[] worklist = nonterms.stream().toArray();
+        int top = worklist.length;
+        worklist = Arrays.copyOf(worklist, symbols.getNumNonterminals());
+        while (top > 0) {
+            for (int item : occurrences[worklist[--top]]) {  // [A -> α B · β]
+                int p = itemProd[item];
+                int head = prodHead[p] - numTerms;
+                if (derivers.get(head)) continue;
+                boolean derives = true;
+                if (atStart) {
+                    boolean nullableBefore = true;  // α derives ε in this grammar
+                    boolean nullableOldBefore = true;  // & in the old one
+                    for (int k = itemStart[p]; k < item - 1; k++) {
+                        int symb = itemNextSymb[k];
+                        nullableBefore &= isNullable(symb);
+                        nullableOldBefore &= !symbols.isTerminal(symb) && symb - numTerms < oldNonterms && grammar.nullable[symb - numTerms];
+                    }
+                    derives = nullableBefore || nullableOldBefore;
+                } else {
+                    for (int symb : prodBody[p]) derives &= !symbols.isTerminal(symb);
+                }
+                if (!derives) continue;
+                derivers.set(head);
+                worklist[top++] = head;
+            }
+        }
+        return derivers.stream().toArray();
+    }
+
+    /**
+     * Recalculates the nullable of the given nonterminals, as {@link #calcNullable()} does, but only over their
+     * productions: the other nonterminals keep the nullable of the old grammar.
+     * @param grammar grammar this one was changed from
+     * @param derivers nrs of the nonterminals to recalculate, in increasing order
+     * @return nrs of the nonterminals whose nullable changed (or which are new)
+     */
+    private BitSet updateNullable(Grammar grammar, int[] derivers){
+        int numTerms = symbols.getNumTerminals();
+        int numNonterms = symbols.getNumNonterminals();
+        int[] index = indexOf(derivers, numNonterms);
+
+        nullable = Arrays.copyOf(grammar.nullable, numNonterms);
+        for (int n : derivers) nullable[n] = false;
+        int[] remaining = new int[productions.length];  // -1 if the body has a terminal or a (fixed) non-nullable nonterm
+        Digraph.Relation occurs = new Digraph.Relation(derivers.length);  // productions each deriver occurs in
+        int[] worklist = new int[derivers.length];
+        int top = 0;
+        for (int n : derivers) {
+            for (int p : prodsOfNonterm[n]) {
+                for (int symb : prodBody[p]) {
+                    if (symbols.isTerminal(symb) || (index[symb - numTerms] < 0 && !nullable[symb - numTerms])) {
+                        remaining[p] = -1;
+                        break;
+                    }
+                    if (index[symb - numTerms] < 0) continue;  // fixed nullable nonterm
+                    remaining[p]++;
+                    occurs.add(index[symb - numTerms], p);
+                }
+                if (remaining[p] == 0 && !nullable[n]) {
+                    nullable[n] = true;
+                    worklist[top++] = n;
+                }
+            }
+        }
+        int[][] prodsOfSymbol = occurs.toArray();
+        while (top > 0) {
+            for (int p : prodsOfSymbol[index[worklist[--top]]]) {
+                int head = prodHead[p] - numTerms;
+                if (remaining[p] > 0 && --remaining[p] == 0 && !nullable[head]) {
+                    nullable[head] = true;
+                    worklist[top++] = head;
+                }
+            }
+        }
+
+        BitSet changed = new BitSet(numNonterms);
+        for (int n : derivers) {
+            if (n >= grammar.nullable.length || nullable[n] != grammar.nullable[n]) changed.set(n);
+        }
+        return changed;
+    }
+
+    /**
+     * Recalculates FIRST of the given nonterminals, as {@link #calcAllFirstSets()} does, but only over their
+     * productions: the other nonterminals keep the FIRST of the old grammar.
+     * @param grammar grammar this one was changed from
+     * @param derivers nrs of the nonterminals to recalculate, in increasing order
+     * @return nrs of the nonterminals whose FIRST changed (or which are new)
+     */
+    private BitSet updateFirst(Grammar grammar, int[] derivers){
+        int numTerms = symbols.getNumTerminals();
+        int numNonterms = symbols.getNumNonterminals();
+        int[] index = indexOf(derivers, numNonterms);
+
+        first = Arrays.copyOf(grammar.first, numNonterms);
+        BitSet[] firstOfDerivers = new BitSet[derivers.length];
+        Digraph.Relation includes = new Digraph.Relation(derivers.length);
+        for (int i = 0; i < derivers.length; i++) {
+            firstOfDerivers[i] = new BitSet(numTerms);
+            for (int p : prodsOfNonterm[derivers[i]]) {
+                for (int symb : prodBody[p]) {
+                    if (symbols.isTerminal(symb)) {
+                        firstOfDerivers[i].set(symb);
+                        break;
+                    }
+                    if (index[symb - numTerms] >= 0) includes.add(i, index[symb - numTerms]);
+                    else firstOfDerivers[i].or(first[symb - numTerms]);
+                    if (!nullable[symb - numTerms]) break;
+                }
+            }
+        }
+        Digraph.solve(includes.toArray(), firstOfDerivers);
+
+        BitSet changed = new BitSet(numNonterms);
+        for (int i = 0; i < derivers.length; i++) {
+            int n = derivers[i];
+            first[n] = firstOfDerivers[i];
+            if (n >= grammar.first.length || !first[n].equals(grammar.first[n])) changed.set(n);
+        }
+        return changed;
+    }
+
+    /**
+     * Calculates FIRST(β) of the items of the added productions & of those w/a nonterminal whose nullable or FIRST changed
+     * (see {@link #calcItemFirstSets(int)}), taking those of the other items from the old grammar.
+     * @param grammar grammar this one was changed from
+     * @param changed nrs of the nonterminals whose nullable or FIRST changed
+     * @param removed if each production of the old grammar was removed
+     * @return nrs of the nonterminals in the bodies of those productions, of the removed ones & of the new nonterminals,
+     * i.e. those whose FOLLOW may change directly
+     */
+    private BitSet updateItemFirstSets(Grammar grammar, BitSet changed, boolean[] removed){
+        int numTerms = symbols.getNumTerminals();
+        BitSet followChanges = new BitSet(symbols.getNumNonterminals());
+        itemNullable = new boolean[itemProd.length];
+        itemFirst = new BitSet[itemProd.length];
+        for (int p = 0; p < productions.length; p++) {
+            int oldProd = oldProdOfProd[p];
+            boolean recalc = oldProd < 0;
+            for (int symb : prodBody[p]) {
+                if (!symbols.isTerminal(symb) && changed.get(symb - numTerms)) recalc = true;
+            }
+            if (recalc) {
+                calcItemFirstSets(p);
+                for (int symb : prodBody[p]) {
+                    if (!symbols.isTerminal(symb)) followChanges.set(symb - numTerms);
+                }
+            } else {  // (the sets aren't modified, so they can be shared w/the old grammar)
+                System.arraycopy(grammar.itemFirst, grammar.itemStart[oldProd], itemFirst, itemStart[p], prodBody[p].length + 1);
+                System.arraycopy(grammar.itemNullable, grammar.itemStart[oldProd], itemNullable, itemStart[p], prodBody[p].length + 1);
+            }
+        }
+        for (int p = 0; p < removed.length; p++) {
+            if (!removed[p]) continue;
+            for (int symb : grammar.prodBody[p]) {
+                if (!symbols.isTerminal(symb)) followChanges.set(symb - numTerms);
+            }
+        }
+        followChanges.set(grammar.nullable.length, symbols.getNumNonterminals());
+        return followChanges;
+    }
+
+    /**
+     * Recalculates FOLLOW of the nonterminals whose FOLLOW may change, as {@link #calcAllFollowSets()} does but only over
+     * their occurrences: these are the given ones & (transitively) each B in a production A -> α B β w/β deriving ε,
+     * for A one of them. The other nonterminals keep the FOLLOW of the old grammar.
+     * @param grammar grammar this one was changed from
+     * @param followChanges nrs of the nonterminals whose FOLLOW may change directly (added to)
+     * @return nr of nonterminals whose FOLLOW was recalculated
+     */
+    private int updateFollow(Grammar grammar, BitSet followChanges){
+        int numTerms = symbols.getNumTerminals();
+        int numNonterms = symbols.getNumNonterminals();
+        int[] worklist = followChanges.stream().toArray();
+        int top = worklist.length;
+        worklist = Arrays.copyOf(worklist, numNonterms);
+        while (top > 0) {
+            for (int p : prodsOfNonterm[worklist[--top]]) {
+                for (int dot = prodBody[p].length - 1; dot >= 0 && !symbols.isTerminal(prodBody[p][dot]); dot--) {
+                    int n = prodBody[p][dot] - numTerms;
+                    if (!followChanges.get(n)) {
+                        followChanges.set(n);
+                        worklist[top++] = n;
+                    }
+                    if (!nullable[n]) break;
+                }
+            }
+        }
+
+        int[] followers = followChanges.stream().toArray();
+        int[] index = indexOf(followers, numNonterms);
+        follow = Arrays.copyOf(grammar.follow, numNonterms);
+        BitSet[] followOfFollowers = new BitSet[followers.length];
+        Digraph.Relation includes = new Digraph.Relation(followers.length);
+        for (int i = 0; i < followers.length; i++) {
+            followOfFollowers[i] = new BitSet(numTerms);
+            if (numTerms + followers[i] == symbols.getId(startSymbol)) followOfFollowers[i].set(symbols.getEndMarker());
+            for (int item : occurrences[followers[i]]) {  // [A -> α B · β]
+                followOfFollowers[i].or(itemFirst[item]);
+                if (!itemNullable[item]) continue;
+                int head = prodHead[itemProd[item]] - numTerms;
+                if (index[head] >= 0) includes.add(i, index[head]);
+                else followOfFollowers[i].or(follow[head]);
+            }
+        }
+        Digraph.solve(includes.toArray(), followOfFollowers);
+        for (int i = 0; i < followers.length; i++) follow[followers[i]] = followOfFollowers[i];
+        return followers.length;
+    }
+
+    /** @return index of each nonterm (by nonterm nr) among the given ones, -1 if it isn't one of them */
+    private static int[] indexOf(int[] nonterms, int numNonterms){
+        int[] index = new int[numNonterms];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < nonterms.length; i++) index[nonterms[i]] = i;
+        return index;
+    }
+}
@@ -0,0 +1,55 @@
+package parser;
+
+import java.util.Arrays;
+
+final class ItemSet {
+    /**
+     * Immutable set of int-encoded LR(0) items (see {@link Grammar}), stored as a sorted int array.
+     * The hash is computed once, so item sets can be used as keys of hash maps cheaply.
+     */
+
+    private final int[] items;
+    private final int hash;
+
+    /**
+     * @param sortedItems items of the set, in increasing order & without duplicates (not copied)
+     */
+    ItemSet(int[] sortedItems) {
+        this.items = sortedItems;
+        this.hash = Arrays.hashCode(sortedItems);
+    }
+
+    int size() {
+        return items.length;
+    }
+
+    boolean isEmpty() {
+        return items.length == 0;
+    }
+
+    int get(int i) {
+        return items[i];
+    }
+
+    boolean contains(int item) {
+        return Arrays.binarySearch(items, item) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ItemSet)) return false;
+        ItemSet other = (ItemSet) o;
+        return hash == other.hash && Arrays.equals(items, other.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(items);
+    }
+}
@@ -0,0 +1,118 @@
+package parser;
+
+import java.util.*;
+
+final class LALRLookaheads {
+    /**
+     * LALR(1) lookaheads of the reductions of an LR(0) automaton, calculated w/DeRemer & Pennello's algorithm
+     * ("Efficient Computation of LALR(1) Look-Ahead Sets", 1982) instead of building LR(1) item sets & merging them.
+     * For each nonterminal transition (p, A) of the automaton (i.e. GOTO(p, A) defined):
+     *  - DR(p, A) = terminals t w/a transition out of GOTO(p, A) ("directly read" after A)
+     *  - (p, A) reads (r, C) if r = GOTO(p, A) & C derives ε
+     *  - (p, A) includes (p', B) if B -> β A γ, γ derives ε & p' reaches p on β
+     *  - Read(p, A) = DR(p, A) ∪ U{Read(r, C) | (p, A) reads (r, C)}
+     *  - Follow(p, A) = Read(p, A) ∪ U{Follow(p', B) | (p, A) includes (p', B)}
+     * Both unions over the relations are solved w/the digraph algorithm (see {@link Digraph}). Then the lookaheads of [A -> ω ·] in state q are the union of
+     * Follow(p, A) for each (p, A) whose state p reaches q on ω (the lookback relation).
+     */
+
+    private final Grammar grammar;
+    private final int numTerms;
+
+    // nonterminal transitions
+    private final int[] transState;  // p of each transition (p, A)
+    private final int[] transNonterm;  // symbol id of A of each transition (p, A)
+    private final int[][] transIndex;  // index of the transition (p, A) by [p][nonterm nr], -1 if there's none
+
+    private final Map<Long, BitSet> lookaheads = new HashMap<>();  // by (state, complete item) (see key())
+
+    /**
+     * Calculates the lookaheads of all the reductions of the automaton.
+     * @param augmentedGrammar {@link Grammar} G' w/start production S' -> StartSymbol
+     * @param automaton {@link LR0Automaton} canonical collection of sets of LR(0) items of G'
+     * @param acceptItem the item [S' -> StartSymbol ·] (its state is the only one w/INPUTENDMARKER after StartSymbol)
+     */
+    LALRLookaheads(Grammar augmentedGrammar, LR0Automaton automaton, int acceptItem) {
+        this.grammar = augmentedGrammar;
+        SymbolTable symbols = augmentedGrammar.getSymbols();
+        numTerms = symbols.getNumTerminals();
+        int numStates = automaton.getNumStates();
+
+        // number the nonterminal transitions
+        transIndex = new int[numStates][symbols.getNumNonterminals()];
+        int numTrans = 0;
+        for (int p = 0; p < numStates; p++) {
+            for (int n = 0; n < transIndex[p].length; n++) {
+                transIndex[p][n] = automaton.getTransition(p, numTerms + n) >= 0 ? numTrans++ : -1;
+            }
+        }
+        transState = new int[numTrans];
+        transNonterm = new int[numTrans];
+        for (int p = 0; p < numStates; p++) {
+            for (int n = 0; n < transIndex[p].length; n++) {
+                if (transIndex[p][n] < 0) continue;
+                transState[transIndex[p][n]] = p;
+                transNonterm[transIndex[p][n]] = numTerms + n;
+            }
+        }
+
+        // DR & reads
+        BitSet[] read = new BitSet[numTrans];
+        Digraph.Relation reads = new Digraph.Relation(numTrans);
+        for (int x = 0; x < numTrans; x++) {
+            int r = automaton.getTransition(transState[x], transNonterm[x]);
+            read[x] = new BitSet(numTerms);
+            for (int t = 0; t < numTerms; t++) {
+                if (automaton.getTransition(r, t) >= 0) read[x].set(t);
+            }
+            if (automaton.getItemSet(r).contains(acceptItem)) read[x].set(symbols.getEndMarker());
+
+            for (int n = 0; n < transIndex[r].length; n++) {
+                if (transIndex[r][n] >= 0 && grammar.isNullable(numTerms + n)) reads.add(x, transIndex[r][n]);
+            }
+        }
+
+        Digraph.solve(reads.toArray(), read);
+
+        // includes & lookback, by walking each production B -> X1 ... Xn from each transition (p', B)
+        Digraph.Relation includes = new Digraph.Relation(numTrans);
+        List<int[]> lookback = new ArrayList<>();  // {state q, complete item, transition (p', B)}
+        for (int y = 0; y < numTrans; y++) {
+            for (int prod : grammar.getProdsOfNonterm(transNonterm[y])) {
+                int q = transState[y];
+                int item = grammar.getInitialItem(prod);
+                for (int symb; (symb = grammar.getItemNextSymb(item)) >= 0; item++) {
+                    // (q, Xi) includes (p', B) if Xi+1 ... Xn derives ε
+                    if (!symbols.isTerminal(symb) && grammar.isItemNullable(item + 1)) {
+                        includes.add(transIndex[q][symb - numTerms], y);
+                    }
+                    q = automaton.getTransition(q, symb);
+                }
+                lookback.add(new int[]{q, item, y});
+            }
+        }
+
+        BitSet[] follow = new BitSet[numTrans];
+        for (int x = 0; x < numTrans; x++) follow[x] = (BitSet) read[x].clone();  // Read sets may be shared in an SCC
+        Digraph.solve(includes.toArray(), follow);
+
+        for (int[] entry : lookback) {
+            lookaheads.computeIfAbsent(key(entry[0], entry[1]), k -> new BitSet(numTerms)).or(follow[entry[2]]);
+        }
+    }
+
+    /**
+     * Gets the LALR(1) lookaheads of the reduction by a complete item in a state.
+     * @param state state of the automaton
+     * @param item complete item [A -> ω ·] of the state
+     * @return ids of the terminals on which to reduce, in increasing order
+     */
+    int[] get(int state, int item) {
+        BitSet terms = lookaheads.get(key(state, item));
+        return terms == null ? new int[0] : terms.stream().toArray();
+    }
+
+    private long key(int state, int item) {
+        return (long) state * grammar.getNumItems() + item;
+    }
+}
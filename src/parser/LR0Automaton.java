@@ -0,0 +1,246 @@
+package parser;
+
+import java.util.*;
+
+final class LR0Automaton implements LRAutomaton {
+    /**
+     * Canonical collection of sets of LR(0) items of an augmented grammar, together with the
+     * transitions between them (i.e. GOTO(Ii, X) for every state Ii & grammar symbol X).
+     * Built with a worklist: every new state is expanded exactly once & states are identified
+     * by their kernel items (through a hash index), so the transitions come out as the sets are found.
+     */
+
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final List<ItemSet> kernels = new ArrayList<>();  // kernel items of each state
+    private final List<ItemSet> itemSets = new ArrayList<>();  // closure of the kernel of each state
+    private final List<int[]> transitions = new ArrayList<>();  // GOTO(state, symb id), -1 if empty
+    private final Map<ItemSet, Integer> stateOfKernel = new HashMap<>();
+    private int reusedStates;  // nr of states copied from the automaton of the grammar before a change
+
+    // scratch space reused by closure()
+    private final BitSet closureItems;
+    private final boolean[] added;
+    private final int[] worklist;
+
+    /**
+     * Builds the canonical collection of the given augmented grammar.
+     * @param augmentedGrammar {@link Grammar} G' with start production S' -> StartSymbol
+     * @param startProd production nr of S' -> StartSymbol
+     */
+    LR0Automaton(Grammar augmentedGrammar, int startProd) {
+        this(augmentedGrammar);
+
+        // init c with closure({[S' -> · StartSymbol]}), then expand states in the order they're found
+        addState(new ItemSet(new int[]{grammar.getInitialItem(startProd)}));
+        for (int state = 0; state < kernels.size(); state++) {
+            expand(state);
+        }
+    }
+
+    /**
+     * Builds the canonical collection of an augmented grammar changed by adding & removing productions
+     * (see {@link Grammar#Grammar(Grammar, List, List)}) from that of the grammar before the change.
+     * The states are found in the same order as by {@link #LR0Automaton(Grammar, int)}, but a state whose kernel is
+     * that of an old state whose closure doesn't expand a nonterminal w/changed productions has the same items &
+     * transitions as the old state (up to the renumbering of the items), so these are copied instead of calculated.
+     * @param automaton {@link LR0Automaton} of the grammar before the change (not modified)
+     * @param augmentedGrammar {@link Grammar} G' after the change
+     * @param startProd production nr of S' -> StartSymbol in G'
+     */
+    LR0Automaton(LR0Automaton automaton, Grammar augmentedGrammar, int startProd) {
+        this(augmentedGrammar);
+
+        // map the items between the old & the new grammar (-1 for items of removed or added productions)
+        Grammar oldGrammar = automaton.grammar;
+        int[] itemOfOldItem = new int[oldGrammar.getNumItems()];
+        for (int item = 0; item < itemOfOldItem.length; item++) {
+            int prod = grammar.getProdOfOldProd(oldGrammar.getItemProd(item));
+            itemOfOldItem[item] = prod < 0 ? -1 : grammar.getInitialItem(prod) + oldGrammar.getItemDot(item);
+        }
+        int[] oldItemOfItem = new int[grammar.getNumItems()];
+        for (int item = 0; item < oldItemOfItem.length; item++) {
+            int oldProd = grammar.getOldProdOfProd(grammar.getItemProd(item));
+            oldItemOfItem[item] = oldProd < 0 ? -1 : oldGrammar.getInitialItem(oldProd) + grammar.getItemDot(item);
+        }
+
+        addState(new ItemSet(new int[]{grammar.getInitialItem(startProd)}));
+        for (int state = 0; state < kernels.size(); state++) {
+            int oldState = automaton.stateOf(kernels.get(state), oldItemOfItem);
+            if (oldState >= 0 && automaton.isUnchanged(oldState, itemOfOldItem, grammar)) {
+                copy(automaton, oldState, itemOfOldItem);
+                reusedStates++;
+            } else {
+                expand(state);
+            }
+        }
+    }
+
+    /** Initialises the (empty) collection & the scratch space of closure() */
+    private LR0Automaton(Grammar augmentedGrammar) {
+        grammar = augmentedGrammar;
+        symbols = augmentedGrammar.getSymbols();
+        closureItems = new BitSet(grammar.getNumItems());
+        added = new boolean[symbols.getNumSymbols()];
+        worklist = new int[grammar.getNumItems()];
+    }
+
+    @Override
+    public int getNumStates() {
+        return itemSets.size();
+    }
+
+    /** @return nr of states copied from the automaton of the grammar before the change (0 if built from scratch) */
+    int getNumReusedStates() {
+        return reusedStates;
+    }
+
+    ItemSet getKernel(int state) {
+        return kernels.get(state);
+    }
+
+    @Override
+    public ItemSet getItemSet(int state) {
+        return itemSets.get(state);
+    }
+
+    @Override
+    public int getTransition(int state, int gramSymb) {
+        return transitions.get(state)[gramSymb];
+    }
+
+    private int addState(ItemSet kernel) {
+        int state = kernels.size();
+        kernels.add(kernel);
+        stateOfKernel.put(kernel, state);
+        return state;
+    }
+
+    /**
+     * Calculates the closure of the kernel of the state & GOTO(state, X) for every grammar symbol X, adding the
+     * sets of items not seen before to the collection, & records the resulting transitions.
+     * @param state state to expand (the next one, states are expanded in order)
+     */
+    private void expand(int state) {
+        ItemSet itemSet = closure(kernels.get(state));
+        itemSets.add(itemSet);
+        int[] row = new int[symbols.getNumSymbols()];
+        Arrays.fill(row, -1);
+        transitions.add(row);
+
+        // count kernel items of GOTO(state, X) for each X
+        int[] count = new int[symbols.getNumSymbols()];
+        for (int i = 0; i < itemSet.size(); i++) {
+            int gramSymb = grammar.getItemNextSymb(itemSet.get(i));
+            if (gramSymb >= 0) count[gramSymb]++;
+        }
+
+        // "for each item A -> α · X β in itemSet" add item A -> α X · β to kernel of GOTO(state, X)
+        // (items of itemSet are sorted, so the kernels come out sorted too)
+        int[][] gotoKernels = new int[symbols.getNumSymbols()][];
+        int[] size = new int[symbols.getNumSymbols()];
+        for (int i = 0; i < itemSet.size(); i++) {
+            int item = itemSet.get(i);
+            int gramSymb = grammar.getItemNextSymb(item);
+            if (gramSymb < 0) continue;
+            if (gotoKernels[gramSymb] == null) gotoKernels[gramSymb] = new int[count[gramSymb]];
+            gotoKernels[gramSymb][size[gramSymb]++] = item + 1;
+        }
+
+        for (int gramSymb = 0; gramSymb < gotoKernels.length; gramSymb++) {
+            if (gotoKernels[gramSymb] == null) continue;
+            ItemSet kernel = new ItemSet(gotoKernels[gramSymb]);
+            Integer target = stateOfKernel.get(kernel);
+            row[gramSymb] = (target != null) ? target : addState(kernel);
+        }
+    }
+
+    /**
+     * Gets the state w/the given kernel, of the grammar before a change.
+     * @param kernel {@link ItemSet} kernel, as items of the grammar after the change
+     * @param oldItemOfItem item of the grammar before the change for each item, -1 if its production was added
+     * @return the state, -1 if there's none (or an item is from an added production)
+     */
+    private int stateOf(ItemSet kernel, int[] oldItemOfItem) {
+        int[] items = new int[kernel.size()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = oldItemOfItem[kernel.get(i)];
+            if (items[i] < 0) return -1;
+        }
+        Integer state = stateOfKernel.get(new ItemSet(items));  // (the mapping keeps the order of the items)
+        return state != null ? state : -1;
+    }
+
+    /**
+     * @return true if the state has the same items in the changed grammar: none of its items is from a removed
+     * production & its closure doesn't expand any nonterminal whose productions changed
+     */
+    private boolean isUnchanged(int state, int[] itemOfOldItem, Grammar changedGrammar) {
+        ItemSet itemSet = itemSets.get(state);
+        for (int i = 0; i < itemSet.size(); i++) {
+            int item = itemSet.get(i);
+            if (itemOfOldItem[item] < 0) return false;
+            int gramSymb = grammar.getItemNextSymb(item);
+            if (gramSymb >= 0 && changedGrammar.isChangedHead(gramSymb)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies the items & transitions of an unchanged state of the automaton of the grammar before a change
+     * (see {@link #isUnchanged}) as those of the next state, adding the targets of the transitions not seen before.
+     */
+    private void copy(LR0Automaton automaton, int oldState, int[] itemOfOldItem) {
+        itemSets.add(map(automaton.itemSets.get(oldState), itemOfOldItem));
+        int[] oldRow = automaton.transitions.get(oldState);
+        int[] row = new int[symbols.getNumSymbols()];  // (new nonterms can't have transitions from an unchanged state)
+        Arrays.fill(row, -1);
+        transitions.add(row);
+        for (int gramSymb = 0; gramSymb < oldRow.length; gramSymb++) {
+            if (oldRow[gramSymb] < 0) continue;
+            ItemSet kernel = map(automaton.kernels.get(oldRow[gramSymb]), itemOfOldItem);
+            Integer target = stateOfKernel.get(kernel);
+            row[gramSymb] = (target != null) ? target : addState(kernel);
+        }
+    }
+
+    private static ItemSet map(ItemSet itemSet, int[] itemOfOldItem) {
+        int[] items = new int[itemSet.size()];
+        for (int i = 0; i < items.length; i++) items[i] = itemOfOldItem[itemSet.get(i)];
+        return new ItemSet(items);
+    }
+
+    /**
+     * Calculates closure of the given set of items
+     *
+     * @param kernel {@link ItemSet} set of (kernel) items
+     * @return set of items forming the closure of the given set of items
+     */
+    private ItemSet closure(ItemSet kernel) {
+        closureItems.clear();
+        Arrays.fill(added, false);  // indicates if items B -> · γ have been added to the closure
+        int top = 0;
+
+        for (int i = 0; i < kernel.size(); i++) {
+            closureItems.set(kernel.get(i));
+            worklist[top++] = kernel.get(i);
+        }
+
+        // "for each item A -> α · B β in closure"
+        while (top > 0) {
+            int element = grammar.getItemNextSymb(worklist[--top]);  // get 1st element after dot
+            // check it's a non-term (& that its items haven't been added yet)
+            if (element < 0 || symbols.isTerminal(element) || added[element]) continue;
+            added[element] = true;
+
+            // "for each prod B -> γ of grammar" add B -> · γ to closure
+            for (int prod : grammar.getProdsOfNonterm(element)) {
+                int itemToAdd = grammar.getInitialItem(prod);
+                if (closureItems.get(itemToAdd)) continue;
+                closureItems.set(itemToAdd);
+                worklist[top++] = itemToAdd;
+            }
+        }
+        return new ItemSet(closureItems.stream().toArray());
+    }
+}
@@ -0,0 +1,184 @@
+package parser;
+
+import java.util.*;
+
+final class LR1Automaton implements LRAutomaton {
+    /**
+     * Canonical collection of sets of LR(1) items of an augmented grammar, together with the transitions between them.
+     * An LR(1) item [A -> α · β, a] is encoded as the int (LR(0) item nr) * (nr of terminals) + a, so the LR(1) items
+     * w/the same core are consecutive in a sorted {@link ItemSet} & moving the dot is adding the nr of terminals.
+     * Built like {@link LR0Automaton} (worklist, states identified by their kernels), but states w/the same cores
+     * aren't merged, so there are usually many more states than in the LR(0) (& LALR(1)) automaton.
+     */
+
+    private final Grammar grammar;
+    private final SymbolTable symbols;
+    private final int numTerms;
+    private final List<ItemSet> itemSets = new ArrayList<>();  // closure of the kernel of each state (LR(1) items)
+    private final List<ItemSet> cores = new ArrayList<>();  // LR(0) items of each state
+    private final List<int[]> transitions = new ArrayList<>();  // GOTO(state, symb id), -1 if empty
+    private final Map<ItemSet, Integer> stateOfKernel = new HashMap<>();
+
+    // scratch space reused by closure()
+    private final BitSet closureItems;
+    private final int[] worklist;
+
+    /**
+     * Builds the canonical collection of sets of LR(1) items of the given augmented grammar.
+     * @param augmentedGrammar {@link Grammar} G' with start production S' -> StartSymbol
+     * @param startProd production nr of S' -> StartSymbol
+     */
+    LR1Automaton(Grammar augmentedGrammar, int startProd) {
+        grammar = augmentedGrammar;
+        symbols = augmentedGrammar.getSymbols();
+        numTerms = symbols.getNumTerminals();
+        closureItems = new BitSet(grammar.getNumItems() * numTerms);
+        worklist = new int[grammar.getNumItems() * numTerms];
+
+        // init c with closure({[S' -> · StartSymbol, $]}), then expand states in the order they're found
+        addState(new ItemSet(new int[]{encode(grammar.getInitialItem(startProd), symbols.getEndMarker())}));
+        for (int state = 0; state < itemSets.size(); state++) {
+            expand(state);
+        }
+    }
+
+    private int encode(int item, int lookahead) {
+        return item * numTerms + lookahead;
+    }
+
+    @Override
+    public int getNumStates() {
+        return itemSets.size();
+    }
+
+    @Override
+    public ItemSet getItemSet(int state) {
+        return cores.get(state);
+    }
+
+    @Override
+    public int getTransition(int state, int gramSymb) {
+        return transitions.get(state)[gramSymb];
+    }
+
+    /**
+     * Gets the lookaheads of an item of a state (i.e. the terminals a w/[A -> α · β, a] in the state).
+     * @param state state of the automaton
+     * @param item int-encoded LR(0) item (core)
+     * @return ids of the terminals, in increasing order
+     */
+    int[] getLookaheads(int state, int item) {
+        ItemSet itemSet = itemSets.get(state);
+        // the items w/this core are consecutive
+        int lo = 0;
+        int hi = itemSet.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (itemSet.get(mid) < encode(item, 0)) lo = mid + 1;
+            else hi = mid;
+        }
+        int end = lo;
+        while (end < itemSet.size() && itemSet.get(end) < encode(item + 1, 0)) end++;
+        int[] lookaheads = new int[end - lo];
+        for (int i = lo; i < end; i++) lookaheads[i - lo] = itemSet.get(i) % numTerms;
+        return lookaheads;
+    }
+
+    private int addState(ItemSet kernel) {
+        int state = itemSets.size();
+        ItemSet itemSet = closure(kernel);
+        itemSets.add(itemSet);
+
+        // core items (the LR(1) items are sorted, so the ones w/the same core are together)
+        int[] core = new int[itemSet.size()];
+        int size = 0;
+        for (int i = 0; i < itemSet.size(); i++) {
+            int item = itemSet.get(i) / numTerms;
+            if (size == 0 || core[size - 1] != item) core[size++] = item;
+        }
+        cores.add(new ItemSet(Arrays.copyOf(core, size)));
+        stateOfKernel.put(kernel, state);
+        return state;
+    }
+
+    /**
+     * Calculates GOTO(state, X) for every grammar symbol X, adding the sets of items not seen
+     * before to the collection, & records the resulting transitions.
+     * @param state state to expand
+     */
+    private void expand(int state) {
+        ItemSet itemSet = itemSets.get(state);
+        int[] row = new int[symbols.getNumSymbols()];
+        Arrays.fill(row, -1);
+        transitions.add(row);
+
+        // count kernel items of GOTO(state, X) for each X
+        int[] count = new int[symbols.getNumSymbols()];
+        for (int i = 0; i < itemSet.size(); i++) {
+            int gramSymb = grammar.getItemNextSymb(itemSet.get(i) / numTerms);
+            if (gramSymb >= 0) count[gramSymb]++;
+        }
+
+        // "for each item [A -> α · X β, a] in itemSet" add item [A -> α X · β, a] to kernel of GOTO(state, X)
+        int[][] gotoKernels = new int[symbols.getNumSymbols()][];
+        int[] size = new int[symbols.getNumSymbols()];
+        for (int i = 0; i < itemSet.size(); i++) {
+            int item = itemSet.get(i);
+            int gramSymb = grammar.getItemNextSymb(item / numTerms);
+            if (gramSymb < 0) continue;
+            if (gotoKernels[gramSymb] == null) gotoKernels[gramSymb] = new int[count[gramSymb]];
+            gotoKernels[gramSymb][size[gramSymb]++] = item + numTerms;
+        }
+
+        for (int gramSymb = 0; gramSymb < gotoKernels.length; gramSymb++) {
+            if (gotoKernels[gramSymb] == null) continue;
+            ItemSet kernel = new ItemSet(gotoKernels[gramSymb]);
+            Integer target = stateOfKernel.get(kernel);
+            row[gramSymb] = (target != null) ? target : addState(kernel);
+        }
+    }
+
+    /**
+     * Calculates closure of the given set of LR(1) items
+     *
+     * @param kernel {@link ItemSet} set of (kernel) LR(1) items
+     * @return set of LR(1) items forming the closure of the given set of items
+     */
+    private ItemSet closure(ItemSet kernel) {
+        closureItems.clear();
+        int top = 0;
+
+        for (int i = 0; i < kernel.size(); i++) {
+            closureItems.set(kernel.get(i));
+            worklist[top++] = kernel.get(i);
+        }
+
+        // "for each item [A -> α · B β, a] in closure"
+        while (top > 0) {
+            int lr1Item = worklist[--top];
+            int item = lr1Item / numTerms;
+            int element = grammar.getItemNextSymb(item);  // get 1st element after dot
+            if (element < 0 || symbols.isTerminal(element)) continue;
+
+            // "for each prod B -> γ of grammar & each terminal b in FIRST(β a)" add [B -> · γ, b] to closure
+            BitSet firstOfRest = grammar.getItemFirst(item + 1);
+            boolean addLookahead = grammar.isItemNullable(item + 1);
+            for (int prod : grammar.getProdsOfNonterm(element)) {
+                int initialItem = grammar.getInitialItem(prod);
+                for (int b = firstOfRest.nextSetBit(0); b >= 0; b = firstOfRest.nextSetBit(b + 1)) {
+                    top = add(encode(initialItem, b), top);
+                }
+                if (addLookahead) top = add(encode(initialItem, lr1Item % numTerms), top);
+            }
+        }
+        return new ItemSet(closureItems.stream().toArray());
+    }
+
+    /** Adds the LR(1) item to the closure & to the worklist if it isn't in the closure yet, returning the new top */
+    private int add(int lr1Item, int top) {
+        if (closureItems.get(lr1Item)) return top;
+        closureItems.set(lr1Item);
+        worklist[top++] = lr1Item;
+        return top;
+    }
+}
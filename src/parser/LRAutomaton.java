@@ -0,0 +1,25 @@
+package parser;
+
+interface LRAutomaton {
+    /**
+     * States of an LR automaton (the sets of items of an augmented grammar) & the transitions between them,
+     * from which the parsing tables are constructed (see {@link LR0Automaton} & {@link LR1Automaton}).
+     */
+
+    int getNumStates();
+
+    /**
+     * Gets the LR(0) items of a state (for LR(1) states, the cores of its items, i.e. w/o their lookaheads).
+     * @param state state of the automaton
+     * @return {@link ItemSet} of the int-encoded LR(0) items of the state (see {@link Grammar})
+     */
+    ItemSet getItemSet(int state);
+
+    /**
+     * Gets GOTO(state, gramSymb).
+     * @param state state of the automaton
+     * @param gramSymb symbol id of a grammar symbol
+     * @return state reached from state on gramSymb, -1 if GOTO(state, gramSymb) is empty
+     */
+    int getTransition(int state, int gramSymb);
+}
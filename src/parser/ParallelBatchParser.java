@@ -0,0 +1,240 @@
+package parser;
+
+import lexer.CharSequenceLexer;
+import lexer.InvalidCharException;
+import lexer.TokenBuffer;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ParallelBatchParser {
+    /**
+     * Parses inputs w/one expression per line on the threads of a {@link ForkJoinPool}, all sharing a
+     * single (immutable) parser. Each worker thread reuses its own {@link ParseContext}, lexer & token buffer.
+     * The lines are split into ranges which are parsed in parallel, so the handler receives the results
+     * from many threads & not in line order (it must be thread safe).
+     * Like {@link BatchParser}, errors are reported per line without stopping & empty lines are skipped.
+     * Lines read from a file or reader are split like {@link BatchParser#run(File, BatchParser.LineHandler)} does:
+     * they're terminated by '\n' or "\r\n" & a '\r' on its own is an invalid char of its line.
+     *
+     * Usage: java parser.ParallelBatchParser grammarFile inputFile [nrOfThreads]
+     */
+
+    private static final int CHUNK_SIZE = 4096;  // nr of lines read from a file before handing them to the pool
+    private static final int MIN_RANGE = 256;  // ranges of lines smaller than this aren't split any further
+
+    private final Parser parser;
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Worker> workers = ThreadLocal.withInitial(Worker::new);
+
+    // stats of the current batch
+    private final LongAdder lines = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder tokens = new LongAdder();
+
+    /**
+     * Create a parallel batch parser running on the common fork/join pool.
+     * @param parser {@link Parser} shared by all worker threads
+     */
+    public ParallelBatchParser(Parser parser) {
+        this(parser, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param parser {@link Parser} shared by all worker threads
+     * @param pool {@link ForkJoinPool} to run on
+     */
+    public ParallelBatchParser(Parser parser, ForkJoinPool pool) {
+        this.parser = parser;
+        this.pool = pool;
+    }
+
+    /**
+     * Parses the given lines in parallel.
+     * @param input {@link List} of lines, w/o their line terminators (1st line has nr 1)
+     * @param handler thread safe {@link BatchParser.LineHandler} receiving the result of each line
+     * @return {@link BatchParser.Stats} of the batch
+     */
+    public synchronized BatchParser.Stats run(List<? extends CharSequence> input, BatchParser.LineHandler handler) {
+        resetStats();
+        long start = System.nanoTime();
+        pool.invoke(new ParseRange(input, 1, 0, input.size(), handler));
+        return getStats(System.nanoTime() - start);
+    }
+
+    /**
+     * Parses the lines of the given file in parallel. The file is read in chunks of lines (by the calling thread)
+     * while the chunks already read are being parsed, so the whole file is never held in memory.
+     * Each byte of the file is a char (as ISO-8859-1, like {@link lexer.MappedFileLexer} reads it, so bytes which
+     * aren't ASCII are invalid chars whatever the platform's default charset).
+     * @param inputFile {@link File} w/one expression per line
+     * @param handler thread safe {@link BatchParser.LineHandler} receiving the result of each line
+     * @return {@link BatchParser.Stats} of the batch
+     * @throws IOException -- cannot read the file
+     */
+    public BatchParser.Stats run(File inputFile, BatchParser.LineHandler handler) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(inputFile), StandardCharsets.ISO_8859_1)) {
+            return run(reader, handler);
+        } catch (IOException e) {
+            throw new IOException("Can't access file " + inputFile, e);
+        }
+    }
+
+    /**
+     * Parses the lines read from the given reader in parallel (see {@link #run(File, BatchParser.LineHandler)}).
+     * @param input {@link Reader} w/one expression per line (not closed)
+     * @param handler thread safe {@link BatchParser.LineHandler} receiving the result of each line
+     * @return {@link BatchParser.Stats} of the batch
+     * @throws IOException -- cannot read the input
+     */
+    public synchronized BatchParser.Stats run(Reader input, BatchParser.LineHandler handler) throws IOException {
+        resetStats();
+        long start = System.nanoTime();
+        Deque<ForkJoinTask<?>> inFlight = new ArrayDeque<>();
+        int maxInFlight = 2 * pool.getParallelism();  // limits nr of chunks in memory
+
+        long lineNr = 1;
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        StringBuilder line = new StringBuilder();
+        char[] buffer = new char[8192];
+        int n = input.read(buffer, 0, buffer.length);
+        while (n >= 0) {
+            for (int i = 0; i < n; i++) {
+                if (buffer[i] != '\n') {
+                    line.append(buffer[i]);
+                    continue;
+                }
+                if (line.length() > 0 && line.charAt(line.length() - 1) == '\r') line.setLength(line.length() - 1);  // "\r\n" terminator
+                chunk.add(line.toString());
+                line.setLength(0);
+                if (chunk.size() == CHUNK_SIZE) {
+                    lineNr = submit(chunk, lineNr, handler, inFlight, maxInFlight);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            n = input.read(buffer, 0, buffer.length);
+        }
+        if (line.length() > 0) chunk.add(line.toString());  // last line (w/o a line terminator)
+        if (!chunk.isEmpty()) submit(chunk, lineNr, handler, inFlight, maxInFlight);
+        while (!inFlight.isEmpty()) inFlight.removeFirst().join();
+
+        return getStats(System.nanoTime() - start);
+    }
+
+    /**
+     * Hands a chunk of lines to the pool, 1st waiting for the oldest chunk if there are too many in flight.
+     * @return line nr of the line after the chunk
+     */
+    private long submit(List<String> chunk, long lineNr, BatchParser.LineHandler handler, Deque<ForkJoinTask<?>> inFlight,
+                        int maxInFlight) {
+        if (inFlight.size() == maxInFlight) inFlight.removeFirst().join();
+        inFlight.addLast(pool.submit(new ParseRange(chunk, lineNr, 0, chunk.size(), handler)));
+        return lineNr + chunk.size();
+    }
+
+    private void resetStats() {
+        lines.reset();
+        errors.reset();
+        tokens.reset();
+    }
+
+    private BatchParser.Stats getStats(long nanos) {
+        return new BatchParser.Stats(lines.sum(), errors.sum(), tokens.sum(), nanos);
+    }
+
+    /** Task parsing the lines [from, to) of a list, splitting itself while the range is large */
+    private class ParseRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends CharSequence> input;
+        private final long firstLineNr;  // line nr of input.get(0)
+        private final int from;
+        private final int to;
+        private final BatchParser.LineHandler handler;
+
+        ParseRange(List<? extends CharSequence> input, long firstLineNr, int from, int to, BatchParser.LineHandler handler) {
+            this.input = input;
+            this.firstLineNr = firstLineNr;
+            this.from = from;
+            this.to = to;
+            this.handler = handler;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MIN_RANGE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ParseRange(input, firstLineNr, from, mid, handler),
+                        new ParseRange(input, firstLineNr, mid, to, handler));
+                return;
+            }
+            Worker worker = workers.get();
+            for (int i = from; i < to; i++) worker.parseLine(firstLineNr + i, input.get(i), handler);
+            worker.flushStats();
+        }
+    }
+
+    /** Per-thread state: parse context, lexer, token buffer & stats not yet added to the batch's stats */
+    private class Worker {
+        private final ParseContext context = new ParseContext();
+        private final CharSequenceLexer lexer = new CharSequenceLexer("");
+        private final TokenBuffer tokenBuffer = new TokenBuffer();
+        private long lineCount;
+        private long errorCount;
+        private long tokenCount;
+
+        void parseLine(long lineNr, CharSequence line, BatchParser.LineHandler handler) {
+            if (line.length() == 0) return;
+
+            lineCount++;
+            lexer.reset(line);
+            tokenBuffer.clear();
+            try {
+                lexer.scanAll(tokenBuffer);
+                tokenCount += tokenBuffer.size();
+                handler.parsed(lineNr, parser.parse(tokenBuffer, context));
+            } catch (ParsingError | InvalidCharException e) {
+                errorCount++;
+                handler.failed(lineNr, line, e);
+            }
+        }
+
+        void flushStats() {
+            lines.add(lineCount);
+            errors.add(errorCount);
+            tokens.add(tokenCount);
+            lineCount = 0;
+            errorCount = 0;
+            tokenCount = 0;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java parser.ParallelBatchParser grammarFile inputFile [nrOfThreads]");
+            return;
+        }
+        Parser parser = new Parser(new File(args[0]));
+        ForkJoinPool pool = args.length > 2 ? new ForkJoinPool(Integer.parseInt(args[2])) : ForkJoinPool.commonPool();
+
+        BatchParser.Stats stats = new ParallelBatchParser(parser, pool).run(new File(args[1]), new BatchParser.LineHandler() {
+            @Override
+            public void parsed(long lineNr, ParseTreeNode root) {}
+
+            @Override
+            public synchronized void failed(long lineNr, CharSequence line, Exception error) {
+                System.out.println("Line " + lineNr + " (" + line + "): " + error);
+            }
+        });
+        System.out.println(stats);
+        if (pool != ForkJoinPool.commonPool()) pool.shutdown();
+    }
+}
@@ -0,0 +1,18 @@
+package parser;
+
+public final class ParseContext {
+    /**
+     * Per-parse state of the LR parsing program (its stacks), kept so it can be reused
+     * for many parses instead of being allocated again for each one.
+     * A context must only be used by one thread at a time (e.g. keep one per thread),
+     * while the {@link Parser} itself can be shared.
+     */
+
+    // stacks, grown as needed (their contents are only meaningful during a parse)
+    int[] states = new int[64];  // parsing stack (of states)
+    ParseTreeNode[] treeNodes = new ParseTreeNode[64];  // node stack for building a parse tree of ParseTreeNodes
+    int[] nodes = new int[64];  // node stack for building a ParseTree
+    ParseTreeNode[] subtrees = new ParseTreeNode[64];  // subtrees of the previous tree ahead of an incremental parse
+    int[] subtreeStarts = new int[64];  // index of the 1st token of each of those subtrees (before the edit)
+    final ValueStack values = new ValueStack();  // for evaluating while parsing
+}
@@ -0,0 +1,59 @@
+package parser;
+
+import lexer.TokenName;
+
+/**
+ * Receives the events of an LR parse (see e.g. {@link Parser#parse(lexer.TokenSource, ParseContext, ParseListener)}),
+ * for tracing or debugging. All the methods do nothing by default, so a listener only needs to implement the
+ * events it uses. {@link #NONE} is the listener used when no tracing is wanted: its calls are empty, so the JIT
+ * inlines them away & parsing w/o a listener costs nothing.
+ * Listeners are called from the parse loop, so they should be quick & mustn't throw.
+ */
+public interface ParseListener {
+
+    /** Listener which ignores all events */
+    ParseListener NONE = new ParseListener() {};
+
+    /**
+     * Called at the start of each parse, before any other event.
+     */
+    default void start() {}
+
+    /**
+     * Called when the parser shifts a token.
+     * @param state state on top of the stack
+     * @param token {@link TokenName} name of the token shifted
+     * @param nextState state pushed onto the stack
+     */
+    default void shift(int state, TokenName token, int nextState) {}
+
+    /**
+     * Called when the parser reduces by a production.
+     * @param state state on top of the stack before popping the body of the production
+     * @param production index of the production (see {@link Parser#getProductionString(int)})
+     * @param nextState state pushed onto the stack (GOTO of the head of the production)
+     */
+    default void reduce(int state, int production, int nextState) {}
+
+    /**
+     * Called when an incremental parse (see {@link Parser#reparse}) pushes a subtree of the previous parse tree,
+     * instead of parsing its tokens again.
+     * @param state state on top of the stack
+     * @param tokens nr of tokens spanned by the subtree
+     * @param nextState state pushed onto the stack (GOTO of the symbol at the root of the subtree)
+     */
+    default void reuse(int state, int tokens, int nextState) {}
+
+    /**
+     * Called when the parser accepts the input.
+     * @param state state on top of the stack
+     */
+    default void accept(int state) {}
+
+    /**
+     * Called when the parser detects a syntax error, just before throwing a {@link ParsingError}.
+     * @param state state on top of the stack
+     * @param token {@link TokenName} name of the token which can't be parsed
+     */
+    default void error(int state, TokenName token) {}
+}
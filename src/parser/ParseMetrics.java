@@ -0,0 +1,112 @@
+package parser;
+
+import lexer.TokenName;
+import metrics.Histogram;
+import metrics.MetricNames;
+import metrics.Metrics;
+import metrics.ParseEvent;
+
+import jdk.jfr.EventType;
+
+public final class ParseMetrics implements ParseListener {
+    /**
+     * Listener which records metrics for each parse into a {@link Metrics} registry (see {@link MetricNames}):
+     * nr of parses & errors, tokens & reductions (in total & per expression), tokens reused by incremental parses
+     * & the duration of each parse.
+     * Each parse is also recorded as a {@link ParseEvent} when JDK Flight Recorder is recording it.
+     * The counts of the current parse are kept in the listener, so it must only be used by one thread at a time
+     * (e.g. keep one per thread, like a {@link ParseContext}); the registry can be shared.
+     */
+
+    private static final EventType PARSE_EVENT = EventType.getEventType(ParseEvent.class);
+
+    private final Metrics metrics;
+    private final Histogram nanos;
+    private final Histogram tokensPerExpression;
+    private final Histogram reductionsPerExpression;
+
+    // current parse
+    private long start;
+    private int tokens;
+    private int reductions;
+    private int reusedTokens;
+    private ParseEvent event;  // null if JFR isn't recording parse events
+
+    /**
+     * Create a listener recording into the global registry.
+     */
+    public ParseMetrics() {
+        this(Metrics.global());
+    }
+
+    /**
+     * @param metrics {@link Metrics} registry to record into
+     */
+    public ParseMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        nanos = metrics.histogram(MetricNames.PARSE_NANOS);
+        tokensPerExpression = metrics.histogram(MetricNames.PARSE_TOKENS_PER_EXPRESSION);
+        reductionsPerExpression = metrics.histogram(MetricNames.PARSE_REDUCTIONS_PER_EXPRESSION);
+    }
+
+    @Override
+    public void start() {
+        tokens = 0;
+        reductions = 0;
+        reusedTokens = 0;
+        event = null;
+        if (PARSE_EVENT.isEnabled()) {
+            event = new ParseEvent();
+            event.begin();
+        }
+        start = System.nanoTime();
+    }
+
+    @Override
+    public void shift(int state, TokenName token, int nextState) {
+        tokens++;
+    }
+
+    @Override
+    public void reduce(int state, int production, int nextState) {
+        reductions++;
+    }
+
+    @Override
+    public void reuse(int state, int tokens, int nextState) {
+        reusedTokens += tokens;
+    }
+
+    @Override
+    public void accept(int state) {
+        finish(true);
+    }
+
+    @Override
+    public void error(int state, TokenName token) {
+        finish(false);
+    }
+
+    private void finish(boolean accepted) {
+        nanos.record(System.nanoTime() - start);
+        tokensPerExpression.record(tokens);
+        reductionsPerExpression.record(reductions);
+        metrics.add(MetricNames.PARSES, 1);
+        if (!accepted) metrics.add(MetricNames.PARSE_ERRORS, 1);
+        metrics.add(MetricNames.PARSE_TOKENS, tokens);
+        metrics.add(MetricNames.PARSE_REDUCTIONS, reductions);
+        if (reusedTokens > 0) metrics.add(MetricNames.PARSE_REUSED_TOKENS, reusedTokens);
+
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.tokens = tokens;
+                event.reductions = reductions;
+                event.reusedTokens = reusedTokens;
+                event.accepted = accepted;
+                event.commit();
+            }
+            event = null;
+        }
+    }
+}
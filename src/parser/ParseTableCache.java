@@ -0,0 +1,197 @@
+package parser;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class ParseTableCache {
+    /**
+     * Persistent cache of built parsing tables (constructed w/one {@link ConstructionMethod}, SLR by default).
+     * The tables built for a grammar are stored in a compact binary file in the cache directory, named after a
+     * fingerprint (SHA-256 hash) of the contents of the grammar specification file & w/an extension for the
+     * construction method (".slr", ".lalr1" or ".lr1"). Later runs with the same grammar
+     * memory-map that file & load the tables from it, instead of recomputing FIRST/FOLLOW, the canonical collection
+     * & the parsing table.
+     * Cache file format: magic nr, format version, fingerprint, the tables (see {@link ParsingTable#write}), then the
+     * nr of conflicts found when constructing them & the conflicts (see {@link ParsingConflict#write}), so a parser
+     * loaded from the cache reports the same conflicts as one built from the grammar.
+     */
+
+    private static final int MAGIC = 0x534C5254;  // "SLRT"
+    // must be changed whenever the format or the construction of tables changes
+    // (2: FOLLOW sets of nonterms occurring more than once in a body fixed, which changes SLR tables,
+    //  3: conflicts stored after the tables)
+    private static final int VERSION = 3;
+
+    private final File cacheDir;
+    private final ConstructionMethod method;
+    private final String extension;
+
+    /**
+     * Create a cache of SLR tables which stores its files in the given directory (created if it doesn't exist).
+     * @param cacheDir {@link File} directory for the cache files
+     */
+    public ParseTableCache(File cacheDir) {
+        this(cacheDir, ConstructionMethod.SLR);
+    }
+
+    /**
+     * Create a cache of the tables constructed w/the given method, which stores its files in the given directory
+     * (created if it doesn't exist).
+     * @param cacheDir {@link File} directory for the cache files
+     * @param method {@link ConstructionMethod} of the tables
+     */
+    public ParseTableCache(File cacheDir, ConstructionMethod method) {
+        this.cacheDir = cacheDir;
+        this.method = method;
+        this.extension = "." + method.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Create a cache of SLR tables which stores its files in the "slr-parser-cache" directory in the system's temp directory.
+     */
+    public ParseTableCache() {
+        this(new File(System.getProperty("java.io.tmpdir"), "slr-parser-cache"));
+    }
+
+    /**
+     * Gets a parser (w/its parsing table already constructed) for the grammar in the given file.
+     * The tables are loaded from the cache if they're there, otherwise they're built & stored in the cache.
+     * @param gramSpecification {@link File} grammar specification (see {@link Parser#Parser(File)})
+     * @return {@link Parser} ready to parse
+     * @throws IOException -- cannot access the grammar file or the cache directory
+     */
+    public Parser getParser(File gramSpecification) throws IOException {
+        byte[] fingerprint = fingerprint(gramSpecification);
+        Parser parser = load(getCacheFile(fingerprint), fingerprint);
+        if (parser != null) return parser;
+        return build(gramSpecification, fingerprint);
+    }
+
+    /**
+     * Builds the parsing table for the grammar in the given file, ignoring (& replacing) any cached tables.
+     * @param gramSpecification {@link File} grammar specification
+     * @return {@link Parser} ready to parse
+     * @throws IOException -- cannot access the grammar file or the cache directory
+     */
+    public Parser rebuild(File gramSpecification) throws IOException {
+        return build(gramSpecification, fingerprint(gramSpecification));
+    }
+
+    /**
+     * Checks if valid tables for the current contents of the given grammar file are in the cache.
+     * @param gramSpecification {@link File} grammar specification
+     * @return true if {@link #getParser(File)} would load the tables from the cache
+     * @throws IOException -- cannot access the grammar file
+     */
+    public boolean isCached(File gramSpecification) throws IOException {
+        byte[] fingerprint = fingerprint(gramSpecification);
+        return load(getCacheFile(fingerprint), fingerprint) != null;
+    }
+
+    /**
+     * Removes the cached tables of the given grammar file (if any).
+     * @param gramSpecification {@link File} grammar specification
+     * @return true if a cache file was deleted
+     * @throws IOException -- cannot access the grammar file or delete the cache file
+     */
+    public boolean invalidate(File gramSpecification) throws IOException {
+        return Files.deleteIfExists(getCacheFile(fingerprint(gramSpecification)).toPath());
+    }
+
+    /**
+     * Gets the cache file for the current contents of the given grammar file.
+     * @param gramSpecification {@link File} grammar specification
+     * @return {@link File} where its tables are (or would be) cached
+     * @throws IOException -- cannot access the grammar file
+     */
+    public File getCacheFile(File gramSpecification) throws IOException {
+        return getCacheFile(fingerprint(gramSpecification));
+    }
+
+    private File getCacheFile(byte[] fingerprint) {
+        StringBuilder name = new StringBuilder();
+        for (byte b : fingerprint) name.append(String.format("%02x", b));
+        return new File(cacheDir, name.append(extension).toString());
+    }
+
+    private Parser build(File gramSpecification, byte[] fingerprint) throws IOException {
+        Parser parser = new Parser(gramSpecification, method);
+        store(parser, fingerprint);
+        return parser;
+    }
+
+    /**
+     * Writes the tables & conflicts of the parser to the cache (to a temp file first, which then replaces the cache
+     * file, so other processes never see a partly written cache file).
+     */
+    private void store(Parser parser, byte[] fingerprint) throws IOException {
+        File cacheFile = getCacheFile(fingerprint);
+        try {
+            Files.createDirectories(cacheDir.toPath());
+            Path tempFile = Files.createTempFile(cacheDir.toPath(), "tables", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(fingerprint.length);
+                out.write(fingerprint);
+                parser.getTable().write(out);
+                out.writeInt(parser.getConflicts().size());
+                for (ParsingConflict conflict : parser.getConflicts()) conflict.write(out);
+            }
+            try {
+                Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IOException("Can't write cache file " + cacheFile, e);
+        }
+    }
+
+    /**
+     * Memory-maps the cache file & loads the tables & conflicts in it.
+     * @return parser w/the tables, null if the file doesn't exist or isn't a valid cache file for this fingerprint
+     */
+    private Parser load(File cacheFile, byte[] fingerprint) {
+        if (!cacheFile.isFile()) return null;
+
+        try (FileChannel channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) return null;
+            if (in.getInt() != fingerprint.length) return null;
+            byte[] storedFingerprint = new byte[fingerprint.length];
+            in.get(storedFingerprint);
+            if (!MessageDigest.isEqual(storedFingerprint, fingerprint)) return null;
+            ParsingTable table = ParsingTable.read(in);
+            List<ParsingConflict> conflicts = new ArrayList<>();
+            for (int n = in.getInt(); n > 0; n--) conflicts.add(ParsingConflict.read(in));
+            return new Parser(table, method, conflicts);
+        } catch (IOException | RuntimeException e) {  // unreadable or corrupt (e.g. truncated) cache file
+            return null;
+        }
+    }
+
+    /**
+     * Calculates the fingerprint (SHA-256 hash) of the contents of the given grammar file.
+     */
+    private static byte[] fingerprint(File gramSpecification) throws IOException {
+        byte[] contents;
+        try {
+            contents = Files.readAllBytes(gramSpecification.toPath());
+        } catch (IOException e) {
+            throw new IOException("Can't access file " + gramSpecification, e);
+        }
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(contents);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);  // every Java platform must support it
+        }
+    }
+}
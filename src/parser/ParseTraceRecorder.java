@@ -0,0 +1,169 @@
+package parser;
+
+import lexer.TokenName;
+
+public final class ParseTraceRecorder implements ParseListener {
+    /**
+     * Listener which keeps the last N parse events in a ring buffer of primitive arrays, so a parser can run
+     * quietly (nothing is output & nothing is allocated per event) & the events leading to a failure can still
+     * be dumped afterwards (see {@link #dump(Parser)}).
+     * A recorder must only be used by one thread at a time (e.g. keep one per thread, like a {@link ParseContext}).
+     */
+
+    public static final byte SHIFT = 0;
+    public static final byte REDUCE = 1;
+    public static final byte ACCEPT = 2;
+    public static final byte ERROR = 3;
+    public static final byte REUSE = 4;
+
+    private static final TokenName[] TOKEN_NAMES = TokenName.values();
+
+    private final byte[] kinds;
+    private final int[] states;
+    private final int[] args;  // ordinal of the token (shift, error), index of the production (reduce) or nr of tokens (reuse)
+    private final int[] nextStates;
+    private long count = 0;  // nr of events recorded since the last clear, the next one goes in [count % capacity]
+
+    /**
+     * @param capacity max nr of events kept (older events are overwritten)
+     */
+    public ParseTraceRecorder(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1: " + capacity);
+        kinds = new byte[capacity];
+        states = new int[capacity];
+        args = new int[capacity];
+        nextStates = new int[capacity];
+    }
+
+    @Override
+    public void shift(int state, TokenName token, int nextState) {
+        record(SHIFT, state, token.ordinal(), nextState);
+    }
+
+    @Override
+    public void reduce(int state, int production, int nextState) {
+        record(REDUCE, state, production, nextState);
+    }
+
+    @Override
+    public void reuse(int state, int tokens, int nextState) {
+        record(REUSE, state, tokens, nextState);
+    }
+
+    @Override
+    public void accept(int state) {
+        record(ACCEPT, state, -1, -1);
+    }
+
+    @Override
+    public void error(int state, TokenName token) {
+        record(ERROR, state, token.ordinal(), -1);
+    }
+
+    private void record(byte kind, int state, int arg, int nextState) {
+        int i = (int) (count++ % kinds.length);
+        kinds[i] = kind;
+        states[i] = state;
+        args[i] = arg;
+        nextStates[i] = nextState;
+    }
+
+    public int getCapacity() {
+        return kinds.length;
+    }
+
+    /** @return nr of events kept (at most the capacity) */
+    public int size() {
+        return (int) Math.min(count, kinds.length);
+    }
+
+    /** @return nr of events recorded since the last {@link #clear()} (including those overwritten) */
+    public long getCount() {
+        return count;
+    }
+
+    /** Forgets the events recorded (e.g. at the start of each parse, to only keep the events of the last one) */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * @param i index of the event, 0 being the oldest event kept
+     * @return kind of the event ({@link #SHIFT}, {@link #REDUCE}, {@link #REUSE}, {@link #ACCEPT} or {@link #ERROR})
+     */
+    public byte getKind(int i) {
+        return kinds[slot(i)];
+    }
+
+    /** @return state on top of the stack when the i-th event happened */
+    public int getState(int i) {
+        return states[slot(i)];
+    }
+
+    /** @return {@link TokenName} shifted (or which caused the error) in the i-th event, null for other events */
+    public TokenName getToken(int i) {
+        int slot = slot(i);
+        return kinds[slot] == SHIFT || kinds[slot] == ERROR ? TOKEN_NAMES[args[slot]] : null;
+    }
+
+    /** @return index of the production reduced by in the i-th event, -1 for other events */
+    public int getProduction(int i) {
+        int slot = slot(i);
+        return kinds[slot] == REDUCE ? args[slot] : -1;
+    }
+
+    /** @return nr of tokens spanned by the subtree reused in the i-th event, -1 for other events */
+    public int getReusedTokens(int i) {
+        int slot = slot(i);
+        return kinds[slot] == REUSE ? args[slot] : -1;
+    }
+
+    /** @return state pushed onto the stack in the i-th event, -1 for accept & error events */
+    public int getNextState(int i) {
+        return nextStates[slot(i)];
+    }
+
+    private int slot(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException("Event " + i + " of " + size());
+        return (int) ((count - size() + i) % kinds.length);
+    }
+
+    /**
+     * Builds a listing of the events kept, oldest 1st & one per line (e.g. "#7 state 4: reduce N -> sign INT, goto 9").
+     * @param parser {@link Parser} which parsed (to get the productions from), null to only output their indices
+     * @return {@link String} listing of the events
+     */
+    public String dump(Parser parser) {
+        StringBuilder buffer = new StringBuilder();
+        long first = count - size();
+        for (int i = 0; i < size(); i++) {
+            buffer.append('#').append(first + i).append(" state ").append(getState(i)).append(": ");
+            switch (getKind(i)) {
+                case SHIFT:
+                    buffer.append("shift ").append(getToken(i)).append(", goto ").append(getNextState(i));
+                    break;
+                case REDUCE:
+                    buffer.append("reduce ");
+                    if (parser != null) buffer.append(parser.getProductionString(getProduction(i)));
+                    else buffer.append(getProduction(i));
+                    buffer.append(", goto ").append(getNextState(i));
+                    break;
+                case REUSE:
+                    buffer.append("reuse ").append(getReusedTokens(i)).append(" tokens, goto ").append(getNextState(i));
+                    break;
+                case ACCEPT:
+                    buffer.append("accept");
+                    break;
+                default:
+                    buffer.append("error on ").append(getToken(i));
+            }
+            buffer.append('\n');
+        }
+        return buffer.toString();
+    }
+
+    @Override
+    public String toString() {
+        return dump(null);
+    }
+}
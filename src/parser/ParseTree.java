@@ -0,0 +1,278 @@
+package parser;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public final class ParseTree {
+    /**
+     * Compact store for the nodes of a parse tree, built by {@link Parser#parse(lexer.TokenBuffer, ParseContext, ParseTree)}.
+     * The nodes are kept in parallel primitive arrays (an "arena") & referred to by their index (a node handle):
+     *  - symbol: terminal column for a leaf, nr of terminals + nonterm index for an inner node
+     *  - production: index of the production an inner node was reduced by (-1 for leaves)
+     *  - first child & next sibling: node indices (-1 if none), children are in left-to-right order
+     *  - payload: value of INT (the long) & FLOAT (the raw bits of the double) leaves
+     * Unlike {@link ParseTreeNode}, number values aren't stored as extra child nodes & ε productions don't get
+     * an "ε" leaf (their node just has no children). A tree can be cleared & reused for many parses,
+     * so building trees only allocates when the arrays need to grow.
+     * Use {@link #node(int)} for an object view of a node, or {@link #toParseTreeNode(int)} to convert a subtree.
+     */
+
+    public static final int NONE = -1;
+    private static final int BIG = -2;  // production of INT leaves whose payload is an index in bigValues
+
+    private ParsingTable table;  // table of the parser which built the tree (for the names of symbols)
+    private int[] symbol;
+    private int[] production;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private long[] payload;
+    private int size = 0;
+    private BigInteger[] bigValues = new BigInteger[0];  // values of INTs which don't fit in a long (payload is the index)
+    private int bigSize = 0;
+
+    public ParseTree() {
+        this(256);
+    }
+
+    /**
+     * @param initialCapacity nr of nodes the tree can hold before growing
+     */
+    public ParseTree(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 1);
+        symbol = new int[capacity];
+        production = new int[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        payload = new long[capacity];
+    }
+
+    /** @return nr of nodes in the tree */
+    public int size() {
+        return size;
+    }
+
+    /** @return symbol (id) of the node, see {@link #getNumTerminals()} */
+    public int getSymbol(int node) {
+        return symbol[node];
+    }
+
+    /** @return nr of terminals of the grammar, symbols below it are terminals & the others nonterminals */
+    public int getNumTerminals() {
+        return table.getNumTerminals();
+    }
+
+    /** @return name of the node's symbol (terminal or nonterminal) */
+    public String getSymbolName(int node) {
+        int s = symbol[node];
+        return s < table.getNumTerminals() ? table.getTerminal(s) : table.getNonterminal(s - table.getNumTerminals());
+    }
+
+    public boolean isTerminal(int node) {
+        return symbol[node] < table.getNumTerminals();
+    }
+
+    /** @return index of the production the node was reduced by, -1 for a leaf */
+    public int getProduction(int node) {
+        return production[node];
+    }
+
+    /** @return string representation of the production the node was reduced by, null for a leaf */
+    public String getProductionString(int node) {
+        return production[node] < 0 ? null : table.getProduction(production[node]).toString();
+    }
+
+    /** @return 1st (leftmost) child of the node, {@link #NONE} if it has no children */
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    /** @return next sibling (to the right) of the node, {@link #NONE} if it's the last child */
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /** @return value of an INT leaf, which must fit in a long (see {@link #isBig(int)}) */
+    public long getLong(int node) {
+        if (isBig(node)) throw new ArithmeticException("Value of node " + node + " doesn't fit in a long");
+        return payload[node];
+    }
+
+    /** @return value of a FLOAT leaf */
+    public double getDouble(int node) {
+        return Double.longBitsToDouble(payload[node]);
+    }
+
+    /** @return true if the node is an INT leaf whose value doesn't fit in a long */
+    public boolean isBig(int node) {
+        return production[node] == BIG;
+    }
+
+    /** @return value of an INT leaf */
+    public BigInteger getBigInteger(int node) {
+        return isBig(node) ? bigValues[(int) payload[node]] : BigInteger.valueOf(payload[node]);
+    }
+
+    /**
+     * Gets the value of a number leaf as an object (allocates).
+     * @return {@link Long}, {@link BigInteger} or {@link Double} value, null if the node isn't a number
+     */
+    public Object getValue(int node) {
+        switch (getSymbolName(node)) {
+            case "INT":
+                return isBig(node) ? bigValues[(int) payload[node]] : (Object) payload[node];
+            case "FLOAT":
+                return getDouble(node);
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets an object view of a node (the handle & the tree it's in).
+     * @param node index of the node
+     * @return {@link Node} for the node, null for {@link #NONE}
+     */
+    public Node node(int node) {
+        return node == NONE ? null : new Node(node);
+    }
+
+    /**
+     * Converts the subtree rooted at the given node to {@link ParseTreeNode}s, as built by {@link Parser#parse}
+     * (children in the order they're popped off the stack, number values & "ε" as extra leaves).
+     * @param node index of the root of the subtree
+     * @return {@link ParseTreeNode} root of the converted subtree
+     */
+    public ParseTreeNode toParseTreeNode(int node) {
+        List<ParseTreeNode> children = new ArrayList<>();
+        if (isTerminal(node)) {
+            Object value = getValue(node);
+            if (value != null) children.add(new ParseTreeNode(value.toString()));
+        } else if (firstChild[node] == NONE) {
+            children.add(new ParseTreeNode("ε"));
+        } else {
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                children.add(0, toParseTreeNode(child));
+            }
+        }
+        return new ParseTreeNode(getSymbolName(node), children.isEmpty() ? null : children);
+    }
+
+    /** Empties the tree (keeping its capacity) so it can be used for a new parse */
+    void reset(ParsingTable table) {
+        this.table = table;
+        size = 0;
+        if (bigSize > 0) {
+            Arrays.fill(bigValues, 0, bigSize, null);
+            bigSize = 0;
+        }
+    }
+
+    /**
+     * Adds a leaf for a terminal.
+     * @return index of the new node
+     */
+    int addLeaf(int column, long value) {
+        return add(column, -1, NONE, value);
+    }
+
+    /**
+     * Adds a leaf for an INT whose value doesn't fit in a long.
+     * @return index of the new node
+     */
+    int addBigLeaf(int column, BigInteger value) {
+        if (bigSize == bigValues.length) bigValues = Arrays.copyOf(bigValues, Math.max(4, 2 * bigSize));
+        bigValues[bigSize] = value;
+        return add(column, BIG, NONE, bigSize++);
+    }
+
+    /**
+     * Adds an inner node, whose children must already be linked as siblings.
+     * @return index of the new node
+     */
+    int addNode(int nonterm, int prod, int firstChild) {
+        return add(table.getNumTerminals() + nonterm, prod, firstChild, 0);
+    }
+
+    void setNextSibling(int node, int sibling) {
+        nextSibling[node] = sibling;
+    }
+
+    private int add(int sym, int prod, int child, long value) {
+        if (size == symbol.length) {
+            int capacity = 2 * size;
+            symbol = Arrays.copyOf(symbol, capacity);
+            production = Arrays.copyOf(production, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            payload = Arrays.copyOf(payload, capacity);
+        }
+        symbol[size] = sym;
+        production[size] = prod;
+        firstChild[size] = child;
+        nextSibling[size] = NONE;
+        payload[size] = value;
+        return size++;
+    }
+
+    /** Lightweight handle of a node of the tree */
+    public final class Node {
+        private final int index;
+
+        private Node(int index) {
+            this.index = index;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getSymbol() {
+            return getSymbolName(index);
+        }
+
+        public boolean isTerminal() {
+            return ParseTree.this.isTerminal(index);
+        }
+
+        public int getProduction() {
+            return production[index];
+        }
+
+        /** @return 1st child, null if it has no children */
+        public Node getFirstChild() {
+            return node(firstChild[index]);
+        }
+
+        /** @return next sibling, null if it's the last child */
+        public Node getNextSibling() {
+            return node(nextSibling[index]);
+        }
+
+        /** @return value of a number leaf, null for other nodes */
+        public Object getValue() {
+            return ParseTree.this.getValue(index);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Node && ((Node) obj).index == index && ((Node) obj).getTree() == ParseTree.this;
+        }
+
+        @Override
+        public int hashCode() {
+            return index;
+        }
+
+        private ParseTree getTree() {
+            return ParseTree.this;
+        }
+
+        @Override
+        public String toString() {
+            Object value = getValue();
+            return value == null ? getSymbol() : getSymbol() + " " + value;
+        }
+    }
+}
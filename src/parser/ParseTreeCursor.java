@@ -0,0 +1,102 @@
+package parser;
+
+import java.util.Arrays;
+
+public final class ParseTreeCursor {
+    /**
+     * Cursor walking a parse tree iteratively: it points at a node & can move to its first child, its next
+     * sibling or its parent. The path from the root to the current node is kept in an explicit stack,
+     * so nothing is allocated while walking (unless the stack grows) & deep trees can be walked.
+     * {@link #next()} moves through all the nodes in pre-order (depth-first, children in the order of
+     * {@link ParseTreeNode#getChildren()}).
+     */
+
+    private ParseTreeNode[] path = new ParseTreeNode[16];  // path[0] is the root, path[depth] the current node
+    private int[] childIndex = new int[16];  // index of path[i] in the children of path[i - 1]
+    private int depth;
+
+    /**
+     * @param root {@link ParseTreeNode} root of the tree to walk, the cursor starts at it
+     */
+    public ParseTreeCursor(ParseTreeNode root) {
+        reset(root);
+    }
+
+    /**
+     * Moves the cursor to the root of a (new) tree.
+     * @param root {@link ParseTreeNode} root of the tree to walk
+     */
+    public void reset(ParseTreeNode root) {
+        Arrays.fill(path, 0, depth + 1, null);
+        path[0] = root;
+        childIndex[0] = 0;
+        depth = 0;
+    }
+
+    /** @return {@link ParseTreeNode} node the cursor is at */
+    public ParseTreeNode getNode() {
+        return path[depth];
+    }
+
+    /** @return depth of the current node (0 for the root) */
+    public int getDepth() {
+        return depth;
+    }
+
+    /** @return index of the current node in the children of its parent (0 for the root) */
+    public int getChildIndex() {
+        return childIndex[depth];
+    }
+
+    /**
+     * Moves to the 1st child of the current node.
+     * @return false (& doesn't move) if the node has no children
+     */
+    public boolean gotoFirstChild() {
+        ParseTreeNode node = path[depth];
+        if (node.getChildren().isEmpty()) return false;
+        if (depth + 1 == path.length) {
+            path = Arrays.copyOf(path, 2 * path.length);
+            childIndex = Arrays.copyOf(childIndex, 2 * childIndex.length);
+        }
+        path[++depth] = node.getChildren().get(0);
+        childIndex[depth] = 0;
+        return true;
+    }
+
+    /**
+     * Moves to the next sibling of the current node.
+     * @return false (& doesn't move) if the node is the last child of its parent, or the root
+     */
+    public boolean gotoNextSibling() {
+        if (depth == 0) return false;
+        int next = childIndex[depth] + 1;
+        if (next == path[depth - 1].getChildren().size()) return false;
+        path[depth] = path[depth - 1].getChildren().get(next);
+        childIndex[depth] = next;
+        return true;
+    }
+
+    /**
+     * Moves to the parent of the current node.
+     * @return false (& doesn't move) if the node is the root
+     */
+    public boolean gotoParent() {
+        if (depth == 0) return false;
+        path[depth--] = null;
+        return true;
+    }
+
+    /**
+     * Moves to the next node in pre-order: the 1st child of the current node, or else the next sibling of
+     * the current node or of its closest ancestor which has one.
+     * @return false if all the nodes have been walked (the cursor is then back at the root)
+     */
+    public boolean next() {
+        if (gotoFirstChild()) return true;
+        while (!gotoNextSibling()) {
+            if (!gotoParent()) return false;
+        }
+        return true;
+    }
+}
@@ -1,59 +1,173 @@
 package parser;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 public class ParseTreeNode {
     private String symbol;
-    private List<ParseTreeNode> children = new ArrayList<>();
+    private List<ParseTreeNode> children;
+    // for nodes built by the LR parsing program (-1 otherwise), so their subtrees can be reused (see Parser.reparse)
+    private final int state;  // state on top of the stack when the node was pushed
+    private final int numTokens;  // nr of tokens the node spans
 
     ParseTreeNode(String symbol, List<ParseTreeNode> childNodes){
         this.symbol = symbol;
-        if(childNodes != null) children.addAll(childNodes);
+        children = childNodes == null ? Collections.emptyList() : new ArrayList<>(childNodes);
+        state = -1;
+        numTokens = -1;
+    }
+
+    /**
+     * Create a leaf node.
+     */
+    ParseTreeNode(String symbol){
+        this(symbol, (ParseTreeNode) null, -1, -1);
+    }
+
+    /**
+     * Create a node w/a single child.
+     */
+    ParseTreeNode(String symbol, ParseTreeNode child){
+        this(symbol, child, -1, -1);
+    }
+
+    /**
+     * Create a node pushed by the parser, w/a single child (or none if it's null).
+     * @param state state on top of the stack when the node is pushed
+     * @param numTokens nr of tokens the node spans
+     */
+    ParseTreeNode(String symbol, ParseTreeNode child, int state, int numTokens){
+        this.symbol = symbol;
+        children = child == null ? Collections.emptyList() : Collections.singletonList(child);
+        this.state = state;
+        this.numTokens = numTokens;
+    }
+
+    /**
+     * Create a node pushed by the parser, whose children are popped off the top of a node stack (so they're in
+     * the reverse order of the stack), w/o copying them into an intermediate list. It spans their tokens.
+     * @param stack node stack
+     * @param from index of the bottom-most child on the stack
+     * @param count nr of children
+     * @param state state on top of the stack when the node is pushed (once its children are popped)
+     */
+    ParseTreeNode(String symbol, ParseTreeNode[] stack, int from, int count, int state){
+        this.symbol = symbol;
+        ParseTreeNode[] childNodes = new ParseTreeNode[count];
+        int tokens = 0;
+        for (int i = 0; i < count; i++) {
+            childNodes[i] = stack[from + count - 1 - i];
+            tokens += childNodes[i].numTokens;
+        }
+        children = Arrays.asList(childNodes);
+        this.state = state;
+        numTokens = tokens;
     }
 
     public String getSymbol() {
         return symbol;
     }
 
+    /** @return state on top of the parser's stack when this node was pushed, -1 if it wasn't built by a parser */
+    int getState() {
+        return state;
+    }
+
+    /** @return nr of tokens spanned by this node, -1 if it wasn't built by a parser */
+    int getNumTokens() {
+        return numTokens;
+    }
+
+    /**
+     * Gets the children of this node, as a read-only view (nodes are never modified once built,
+     * so nothing needs to be copied).
+     * @return unmodifiable {@link List} of the children, in the order they were popped off the parser's stack
+     */
     public List<ParseTreeNode> getChildren() {
-        List<ParseTreeNode> copy = new ArrayList<>();
-        for(ParseTreeNode node : children){
-            ParseTreeNode nodeCopy = new ParseTreeNode(node.getSymbol(), node.getChildren());
-            copy.add(nodeCopy);
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * Walks the tree rooted at this node depth-first (children in the order of {@link #getChildren()}),
+     * calling the visitor when entering & exiting each node. Uses an explicit stack, so deep trees can be walked.
+     * @param visitor {@link ParseTreeVisitor} to call
+     */
+    public void accept(ParseTreeVisitor visitor) {
+        if (!visitor.enter(this) || children.isEmpty()) {
+            visitor.exit(this);
+            return;
+        }
+        ParseTreeNode[] nodes = new ParseTreeNode[16];  // nodes being visited (whose children are being visited)
+        int[] nextChild = new int[16];  // index of the next child to visit of each node
+        int top = 0;
+        nodes[0] = this;
+
+        while (top >= 0) {
+            ParseTreeNode node = nodes[top];
+            if (nextChild[top] < node.children.size()) {
+                ParseTreeNode child = node.children.get(nextChild[top]++);
+                if (visitor.enter(child) && !child.children.isEmpty()) {
+                    if (++top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * top);
+                        nextChild = Arrays.copyOf(nextChild, 2 * top);
+                    }
+                    nodes[top] = child;
+                    nextChild[top] = 0;
+                } else {
+                    visitor.exit(child);
+                }
+            } else {
+                visitor.exit(node);
+                nodes[top--] = null;
+            }
         }
-        return copy;
     }
 
     public String toString() {
         StringBuilder buffer = new StringBuilder();
-        getStringVersion(buffer, "", "");
+        getStringVersion(buffer);
         return buffer.toString();
     }
 
     /**
      * Build a string representation of the tree rooted at this node.
      * Representation stored/built in buffer. ('horizontal' tree representation is produced)
+     * Uses an explicit stack (like {@link #accept}), so deep trees can be output.
      * @param buffer {@link StringBuilder} where the string repr of the tree is stored/built
-     * @param prefix {@link String} prefix to add to str repr just before this node's symbol
-     * @param childrenPrefix {@link String} prefix to add to str repr of this node's children
      */
-    private void getStringVersion(StringBuilder buffer, String prefix, String childrenPrefix) {
-        // build string version of this node in "buffer"
-        buffer.append(prefix)
-                .append(symbol)
-                .append('\n');
-
-        // iterate through node's children & add their str repr to buffer
-        Iterator<ParseTreeNode> iter = children.iterator();
-
-        while(iter.hasNext()) {
-            ParseTreeNode nextNode = iter.next();
-            if (iter.hasNext()) {
-                nextNode.getStringVersion(buffer, childrenPrefix + "├── ", childrenPrefix + "│   ");
-            } else { // last child
-                nextNode.getStringVersion(buffer, childrenPrefix + "└── ", childrenPrefix + "    ");
+    private void getStringVersion(StringBuilder buffer) {
+        buffer.append(symbol).append('\n');
+        if (children.isEmpty()) return;
+
+        StringBuilder prefix = new StringBuilder();  // prefix of the children of the node on top of the stack
+        ParseTreeNode[] nodes = new ParseTreeNode[16];  // nodes whose children are being output
+        int[] nextChild = new int[16];  // index of the next child to output of each node
+        int[] prefixLength = new int[16];  // length of the prefix of each node's children
+        int top = 0;
+        nodes[0] = this;
+
+        while (top >= 0) {
+            ParseTreeNode node = nodes[top];
+            if (nextChild[top] < node.children.size()) {
+                ParseTreeNode child = node.children.get(nextChild[top]++);
+                boolean last = nextChild[top] == node.children.size();
+                prefix.setLength(prefixLength[top]);
+                buffer.append(prefix).append(last ? "└── " : "├── ").append(child.symbol).append('\n');
+                if (!child.children.isEmpty()) {
+                    prefix.append(last ? "    " : "│   ");
+                    if (++top == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * top);
+                        nextChild = Arrays.copyOf(nextChild, 2 * top);
+                        prefixLength = Arrays.copyOf(prefixLength, 2 * top);
+                    }
+                    nodes[top] = child;
+                    nextChild[top] = 0;
+                    prefixLength[top] = prefix.length();
+                }
+            } else {
+                nodes[top--] = null;
             }
         }
     }
@@ -0,0 +1,23 @@
+package parser;
+
+/**
+ * Callbacks for a depth-first walk of a parse tree (see {@link ParseTreeNode#accept(ParseTreeVisitor)}).
+ * Both methods do nothing by default, so a visitor only needs to implement those it uses.
+ */
+public interface ParseTreeVisitor {
+
+    /**
+     * Called when the walk enters a node, before its children are visited.
+     * @param node {@link ParseTreeNode} entered
+     * @return true to visit the node's children, false to skip them
+     */
+    default boolean enter(ParseTreeNode node) {
+        return true;
+    }
+
+    /**
+     * Called when the walk exits a node, after its children (if visited) have been visited.
+     * @param node {@link ParseTreeNode} exited
+     */
+    default void exit(ParseTreeNode node) {}
+}
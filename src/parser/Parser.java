@@ -1,632 +1,941 @@
 package parser;
 
+import lexer.InvalidCharException;
 import lexer.Token;
 import lexer.TokenName;
+import lexer.TokenBuffer;
+import lexer.TokenEdit;
+import lexer.TokenSource;
+import metrics.MetricNames;
+import metrics.Metrics;
+import metrics.TableConstructionEvent;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.util.*;
 
 public class Parser {
+    /**
+     * LR parser for the grammar in a grammar specification file, w/an SLR (default), LALR(1) or canonical LR(1)
+     * parsing table (see {@link ConstructionMethod}).
+     * A parser is immutable: its parsing table is constructed by the constructor & only read while parsing,
+     * so a single parser can be shared by many threads. The state of each parse is kept in a {@link ParseContext}.
+     */
 
-    class Production {
-        /**
-         * Class representing a production for the grammar
-         */
-        private String head;
-        private String body;
+    private final Grammar augmentedGrammar;
+    private final LR0Automaton automaton;  // kept for updating the table, null for LR(1) tables (which are rebuilt)
+    private final ParsingTable table;
+    private final ConstructionMethod method;
+    private final List<ParsingConflict> conflicts;
 
-        Production(String head, String body) {
-            this.head = head;
-            this.body = body;
-        }
+    private static final ParseTreeNode EPSILON = new ParseTreeNode("ε");  // (immutable) child of ε productions
 
-        String getHead() {
-            return head;
-        }
+    /** Lookaheads of the reductions of a state, for constructing the ACTION table */
+    private interface Lookaheads {
+        /** @return ids of the terminals on which to reduce by the complete item [A -> α ·] in the state */
+        int[] of(int state, int completeItem);
+    }
+
+    /**
+     * Create a parser for the grammar in the given file & construct its SLR parsing table.
+     * @param gramSpecification {@link File} grammar specification (see {@link Grammar#Grammar(File)} for its format)
+     * @throws IOException -- cannot access the grammar file
+     */
+    public Parser(File gramSpecification) throws IOException {
+        this(gramSpecification, ConstructionMethod.SLR);
+    }
+
+    /**
+     * Create a parser for the grammar in the given file & construct its parsing table w/the given method.
+     * Conflicts in the table are resolved (see {@link ParsingConflict}) & reported by {@link #getConflicts()}.
+     * @param gramSpecification {@link File} grammar specification (see {@link Grammar#Grammar(File)} for its format)
+     * @param method {@link ConstructionMethod} SLR, LALR(1) or LR(1)
+     * @throws IOException -- cannot access the grammar file
+     */
+    public Parser(File gramSpecification, ConstructionMethod method) throws IOException {
+        TableConstructionEvent event = new TableConstructionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        this.method = method;
+
+        Grammar grammar = new Grammar(gramSpecification);
+        long grammarNanos = System.nanoTime() - start;
+
+        // create augmented grammar
+        Set<String> newNonterm = new HashSet<>();
+        newNonterm.add("S'");
+        Set<Production> newProd = new HashSet<>();
+        newProd.add(new Production("S'", grammar.getStartSymbol()));
+
+        augmentedGrammar = new Grammar(grammar, newNonterm, null, newProd, "S'");
+        int startProd = startProd(augmentedGrammar);
+        int acceptItem = augmentedGrammar.getInitialItem(startProd) + 1;  // [S' -> StartSymbol ·]
+
+        long automatonStart = System.nanoTime();
+        LRAutomaton states;
+        if (method == ConstructionMethod.LR1) states = new LR1Automaton(augmentedGrammar, startProd);
+        else states = new LR0Automaton(augmentedGrammar, startProd);
+        automaton = method == ConstructionMethod.LR1 ? null : (LR0Automaton) states;
+        long automatonNanos = System.nanoTime() - automatonStart;
+
+        long lookaheadStart = System.nanoTime();
+        Lookaheads lookaheads = lookaheads(method, augmentedGrammar, states, acceptItem);
+        long lookaheadNanos = System.nanoTime() - lookaheadStart;
+
+        List<int[]> tableConflicts = new ArrayList<>();
+        table = buildParsingTable(augmentedGrammar, states, lookaheads, acceptItem, tableConflicts);
+        conflicts = describeConflicts(tableConflicts);
+
+        recordConstruction(event, gramSpecification.getPath(), System.nanoTime() - start, grammarNanos,
+                grammar.getFirstFollowNanos() + augmentedGrammar.getFirstFollowNanos(), automatonNanos, lookaheadNanos);
+    }
+
+    /**
+     * Create a parser for the grammar of the given one w/some productions added & removed, updating its parsing
+     * table (see {@link #withProductionsChanged(Collection, Collection)}).
+     */
+    private Parser(Parser parser, List<Production> addProd, List<Production> removeProd) {
+        TableConstructionEvent event = new TableConstructionEvent();
+        event.begin();
+        long start = System.nanoTime();
+        this.method = parser.method;
+
+        augmentedGrammar = new Grammar(parser.augmentedGrammar, addProd, removeProd);
+        long grammarNanos = System.nanoTime() - start;
+        int startProd = startProd(augmentedGrammar);
+        int acceptItem = augmentedGrammar.getInitialItem(startProd) + 1;  // [S' -> StartSymbol ·]
+
+        // LR(1) states are rebuilt, the LR(0) states which don't change are copied from the old automaton
+        long automatonStart = System.nanoTime();
+        LRAutomaton states;
+        if (method == ConstructionMethod.LR1) states = new LR1Automaton(augmentedGrammar, startProd);
+        else states = new LR0Automaton(parser.automaton, augmentedGrammar, startProd);
+        automaton = method == ConstructionMethod.LR1 ? null : (LR0Automaton) states;
+        long automatonNanos = System.nanoTime() - automatonStart;
+
+        long lookaheadStart = System.nanoTime();
+        Lookaheads lookaheads = lookaheads(method, augmentedGrammar, states, acceptItem);
+        long lookaheadNanos = System.nanoTime() - lookaheadStart;
+
+        List<int[]> tableConflicts = new ArrayList<>();
+        table = buildParsingTable(augmentedGrammar, states, lookaheads, acceptItem, tableConflicts);
+        conflicts = describeConflicts(tableConflicts);
+
+        long nanos = System.nanoTime() - start;
+        Metrics metrics = Metrics.global();
+        metrics.record(MetricNames.TABLE_UPDATE_NANOS, nanos);
+        metrics.set(MetricNames.TABLE_UPDATE_REUSED_STATES, automaton == null ? 0 : automaton.getNumReusedStates());
+        recordConstruction(event, "changed grammar (+" + addProd.size() + " -" + removeProd.size() + " productions)",
+                nanos, grammarNanos, augmentedGrammar.getFirstFollowNanos(), automatonNanos, lookaheadNanos);
+    }
 
-        String getBody() {
-            return body;
+    /** @return lookaheads of the reductions of the automaton of the augmented grammar, for the construction method */
+    private static Lookaheads lookaheads(ConstructionMethod method, Grammar augmentedGrammar, LRAutomaton automaton, int acceptItem) {
+        switch (method) {
+            case LALR1:
+                return new LALRLookaheads(augmentedGrammar, (LR0Automaton) automaton, acceptItem)::get;
+            case LR1:
+                return ((LR1Automaton) automaton)::getLookaheads;
+            default:
+                return slrLookaheads(augmentedGrammar);
         }
+    }
 
-        @Override
-        public String toString() {
-            return head + " -> " + body;
+    /**
+     * Records the metrics of the construction of the table (see {@link MetricNames}) & commits its JFR event.
+     */
+    private void recordConstruction(TableConstructionEvent event, String grammarName, long nanos, long grammarNanos,
+                                    long firstFollowNanos, long automatonNanos, long lookaheadNanos) {
+        int actions = table.getNumActionEntries();
+        int gotos = table.getNumGotoEntries();
+        int cells = table.getNumStates() * table.getNumTerminals();
+
+        Metrics metrics = Metrics.global();
+        metrics.record(MetricNames.TABLE_NANOS, nanos);
+        metrics.record(MetricNames.TABLE_AUTOMATON_NANOS, automatonNanos);
+        metrics.record(MetricNames.TABLE_LOOKAHEAD_NANOS, lookaheadNanos);
+        metrics.set(MetricNames.TABLE_STATES, table.getNumStates());
+        metrics.set(MetricNames.TABLE_TERMINALS, table.getNumTerminals());
+        metrics.set(MetricNames.TABLE_NONTERMINALS, table.getNumNonterminals());
+        metrics.set(MetricNames.TABLE_PRODUCTIONS, table.getNumProductions());
+        metrics.set(MetricNames.TABLE_ACTIONS, actions);
+        metrics.set(MetricNames.TABLE_ACTION_CELLS, cells);
+        metrics.set(MetricNames.TABLE_GOTOS, gotos);
+        metrics.set(MetricNames.TABLE_BYTES, table.getBytes());
+        metrics.set(MetricNames.TABLE_CONFLICTS, conflicts.size());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.grammar = grammarName;
+            event.method = method.name();
+            event.grammarNanos = grammarNanos;
+            event.firstFollowNanos = firstFollowNanos;
+            event.automatonNanos = automatonNanos;
+            event.lookaheadNanos = lookaheadNanos;
+            event.states = table.getNumStates();
+            event.terminals = table.getNumTerminals();
+            event.nonterminals = table.getNumNonterminals();
+            event.productions = table.getNumProductions();
+            event.actions = actions;
+            event.gotos = gotos;
+            event.conflicts = conflicts.size();
+            event.density = cells == 0 ? 0 : (double) actions / cells;
+            event.commit();
         }
     }
 
-    class Grammar {
-        private Set<Production> productionsSet; // note: dif prod bodies for same nonterm stored as separate elements in set
-        private Map<String, Set<String>> productionsMap;  // stores prod bodies assoc w/each nonterm (--head)
-        private Set<String> nonterminals;
-        private Set<String> terminals;
-        private Set<String> grammarSymbols;
-        private String startSymbol;
-        private Map<String, Set<String>> followTable = new HashMap<>(); // stores follow(A) for non-term A
-        private Map<String, Set<String>> firstTable = new HashMap<>(); // stores first(x) for grammar symbol A
-
-        /**
-         * Create Grammar object from grammar specification in given file.
-         * Note: the grammarSpecification file must have the following format:
-         *  - 1st line: non-terminals, separated by a comma. 1st one is start symbol.
-         *  - 2nd line: terminals, separated by a comma.
-         *  - Note: if grammar has "ε" in any production body, must include ε in the 2nd line w/the terminals
-         *  - then, one production per line
-         *  - preferably a single production per non-terminal for clarity
-         */
-        Grammar(File grammarSpecification) throws IOException {
-            productionsSet = new HashSet<>();
-            productionsMap = new HashMap<>();
-
-            try (BufferedReader reader = new BufferedReader(new FileReader(grammarSpecification))) {
-                try {
-                    String nextLine = reader.readLine();  // read next line from file
-                    // get non-terminals & terminals
-                    String[] nontermSplit = nextLine.split(",");
-                    nonterminals = new HashSet<>(Arrays.asList(nontermSplit));  // 1st line has non-terminals
-                    startSymbol = nontermSplit[0]; // 1st non-term is the start symbol
-                    grammarSymbols = new HashSet<>(nonterminals);
-                    nextLine = reader.readLine();
-                    terminals = new HashSet<>(Arrays.asList(nextLine.split(",")));  // 2nd line has terminals
-                    grammarSymbols.addAll(terminals);
-                    nextLine = reader.readLine();
-
-                    // get productions
-                    while (nextLine != null) {
-                        // get head & prod bodies for the prod in this line
-                        String[] splitHeadBody = nextLine.split("\\s->\\s");
-                        String[] bodyProductions = splitHeadBody[1].split("\\s\\|\\s");
-
-                        for (String body : bodyProductions) {  // add all prod for this non-term to productionsSet
-                            Production prod = new Production(splitHeadBody[0], body);
-                            productionsSet.add(prod);
-                        }
-                        // add all prod for this non-term to productionsMap
-                        productionsMap.put(splitHeadBody[0], new HashSet<>(Arrays.asList(bodyProductions)));
-
-                        nextLine = reader.readLine();  // read next line
-                    }
+    /**
+     * Create a parser from already built parsing tables (e.g. loaded by {@link ParseTableCache}).
+     * @param table {@link ParsingTable} tables to parse with
+     * @param method {@link ConstructionMethod} the tables were constructed with
+     * @param conflicts {@link List} of the {@link ParsingConflict}s found when constructing the tables
+     */
+    Parser(ParsingTable table, ConstructionMethod method, List<ParsingConflict> conflicts) {
+        this.augmentedGrammar = null;
+        this.automaton = null;
+        this.table = table;
+        this.method = method;
+        this.conflicts = Collections.unmodifiableList(new ArrayList<>(conflicts));
+    }
 
-                    // calc first for all gram symb
-                    calcAllFirstSets();
+    /** Create a parser for the same grammar as the given one, w/other (equivalent) tables */
+    private Parser(Parser parser, ParsingTable table) {
+        this.augmentedGrammar = parser.augmentedGrammar;
+        this.automaton = parser.automaton;
+        this.table = table;
+        this.method = parser.method;
+        this.conflicts = parser.conflicts;
+    }
 
-                    // calc follow for all nonterm
-                    calcAllFollowSets();
+    /**
+     * Gets a parser for the same grammar w/its ACTION & GOTO tables compressed (default reductions & gotos, rows
+     * packed by row displacement w/check arrays & identical rows merged, see {@link CompressedTables}).
+     * Lookups stay O(1), but are a bit slower than in the dense tables. It accepts the same inputs & gives the same
+     * results, but on an erroneous token it may do some (default) reductions before reporting the error.
+     * @return {@link Parser} w/compressed tables (this parser if its tables are already compressed)
+     */
+    public Parser withCompressedTables() {
+        if (table.isCompressed()) return this;
+        ParsingTable compressedTable = table.compress();
+        Metrics metrics = Metrics.global();
+        metrics.set(MetricNames.TABLE_COMPRESSED_BYTES, compressedTable.getBytes());
+        metrics.set(MetricNames.TABLE_COMPRESSED_ACTION_ROWS, compressedTable.getCompressedTables().getNumActionRows());
+        return new Parser(this, compressedTable);
+    }
 
-                } catch (NullPointerException e) {
-                    System.out.println("Incorrect format of grammar file.");
-                }
+    /**
+     * Gets a parser for the grammar w/the given productions added (see {@link #withProductionsChanged(Collection, Collection)}).
+     * @param productions productions to add, in the format of the grammar file (e.g. "F -> MINUS F | T FACTORIAL")
+     * @return {@link Parser} for the changed grammar
+     */
+    public Parser withProductions(String... productions) {
+        return withProductionsChanged(Arrays.asList(productions), Collections.emptyList());
+    }
+
+    /**
+     * Gets a parser for the grammar w/the given productions removed (see {@link #withProductionsChanged(Collection, Collection)}).
+     * @param productions productions to remove, in the format of the grammar file (e.g. "sign -> MINUS | ε")
+     * @return {@link Parser} for the changed grammar
+     */
+    public Parser withoutProductions(String... productions) {
+        return withProductionsChanged(Collections.emptyList(), Arrays.asList(productions));
+    }
 
-            } catch (IOException e) {
-                throw new IOException("Can't access file " + grammarSpecification, e);
+    /**
+     * Gets a parser for the grammar w/some productions added & removed, updating the parsing table instead of
+     * constructing it from scratch: only the nullable, FIRST & FOLLOW entries which the change can affect are
+     * recalculated, & the LR(0) states whose items don't change are copied (see {@link LR0Automaton}).
+     * LALR(1) lookaheads are recalculated over the updated states & LR(1) states are rebuilt.
+     * The table is the one of a parser created from a grammar file w/the changed productions (the added ones after
+     * the others & their new nonterminals after the others), up to the numbering of the productions & nonterminals.
+     * This parser isn't modified.
+     * @param added productions to add, in the format of the grammar file (e.g. "F -> MINUS F | T FACTORIAL"),
+     * the heads which aren't nonterminals of the grammar becoming new nonterminals
+     * @param removed productions to remove, in the same format
+     * @return {@link Parser} for the changed grammar (w/dense tables)
+     * @throws IllegalArgumentException -- a production isn't in the format of the grammar file, has a terminal or S' as
+     * head or a symbol which isn't in the grammar, or is already in the grammar (for the added ones) or isn't (for the
+     * removed ones)
+     * @throws IllegalStateException -- the parser has no grammar (its tables were loaded from a {@link ParseTableCache})
+     */
+    public Parser withProductionsChanged(Collection<String> added, Collection<String> removed) {
+        if (augmentedGrammar == null) throw new IllegalStateException("The parser has no grammar, its tables were loaded from a cache");
+        return new Parser(this, productions(added), productions(removed));
+    }
+
+    /** @return the productions in the given lines of a grammar specification (which can't have S' as head) */
+    private List<Production> productions(Collection<String> lines) {
+        List<Production> prods = new ArrayList<>();
+        for (String line : lines) prods.addAll(Grammar.parseProductions(line));
+        for (Production prod : prods) {
+            if (prod.getHead().equals(augmentedGrammar.getStartSymbol())) {
+                throw new IllegalArgumentException("The productions of " + prod.getHead() + " can't be changed");
             }
         }
+        return prods;
+    }
 
-        /**
-         * Create Grammar object from another grammar (i.e. expand this grammar)
-         * @param grammar gram to expand
-         * @param addNonterm new, additiona non-terminals
-         * @param addTerm new, additional terminals
-         * @param addProd new, additional productions
-         * @param newStartSymb specifies new start symb
-         */
-        Grammar(Grammar grammar, Set<String> addNonterm, Set<String> addTerm, Set<Production> addProd, String newStartSymb){
-            nonterminals = new HashSet<>(grammar.getNonterminals());
-            if(addNonterm != null) nonterminals.addAll(addNonterm);
-
-            terminals = new HashSet<>(grammar.getTerminals());
-            if(addTerm != null) terminals.addAll(addTerm);
-
-            grammarSymbols = new HashSet<>(nonterminals);
-            grammarSymbols.addAll(terminals);
-
-            productionsSet = new HashSet<>(grammar.getProductionsSet());
-            productionsMap = new HashMap<>(grammar.getProductionsMap());
-            if(addProd != null) {
-                productionsSet.addAll(addProd);
-                for (Production newProd : addProd) {
-                    Set<String> bodies = productionsMap.getOrDefault(newProd.getHead(), new HashSet<>());
-                    bodies.add(newProd.body);
-                    productionsMap.put(newProd.getHead(), bodies);
-                }
-            }
+    /** @return true if the parsing tables are compressed (see {@link #withCompressedTables()}) */
+    public boolean hasCompressedTables() {
+        return table.isCompressed();
+    }
 
-            if(newStartSymb != null) startSymbol = newStartSymb;
-            else startSymbol = grammar.startSymbol;
+    /** @return nr of bytes taken by the ACTION & GOTO tables (dense or compressed) */
+    public long getTableBytes() {
+        return table.getBytes();
+    }
 
-            // calc first for all gram symb
-            calcAllFirstSets();
+    ParsingTable getTable() {
+        return table;
+    }
 
-            // calc follow for all nonterm
-            calcAllFollowSets();
-        }
+    /** @return augmented grammar of the parser (null if its table was loaded from a {@link ParseTableCache}) */
+    Grammar getGrammar() {
+        return augmentedGrammar;
+    }
 
-        Set<Production> getProductionsSet() {
-            return new HashSet<>(productionsSet);
-        }
-        Map<String, Set<String>> getProductionsMap() {
-            return new HashMap<>(productionsMap);
-        }
-        Set<String> getNonterminals() {
-            return new HashSet<>(nonterminals);
-        }
-        Set<String> getTerminals() {
-            return new HashSet<>(terminals);
-        }
-        String getStartSymbol() {
-            return startSymbol;
-        }
-        Set<String> getGramSymbols() {
-            return new HashSet<>(grammarSymbols);
-        }
+    /** @return {@link ConstructionMethod} used to construct the parsing table */
+    public ConstructionMethod getConstructionMethod() {
+        return method;
+    }
 
-        /**
-         * Calculates FOLLOW() for all nonterminals & stores results in followTable.
-         * (FOLLOW(nonterm) repr the set of terminals that can appear immediately to the right of
-         * nonterm (the param) in some sentential form.)
-         */
-        private void calcAllFollowSets(){
-            // init followTable
-            for(String nonterm : nonterminals){
-                followTable.put(nonterm, new HashSet<>());
-            }
+    /**
+     * Gets the conflicts found when constructing the parsing table, in order of state.
+     * @return unmodifiable {@link List} of the {@link ParsingConflict}s (empty if the grammar is SLR/LALR(1)/LR(1)
+     * for the construction method), also when the table was loaded from a {@link ParseTableCache}
+     */
+    public List<ParsingConflict> getConflicts() {
+        return conflicts;
+    }
 
-            // put input right endmarker into follow(start symbol)
-            Set<String> followStartSymb = followTable.get(startSymbol);
-            followStartSymb.add("INPUTENDMARKER");
-            followTable.replace(startSymbol, followStartSymb);
-
-            boolean isUpdated = true;
-            while(isUpdated){
-                isUpdated = false;
-
-                // for each nonterm A
-                for(String nonterm : nonterminals){
-                    Set<String> followA = followTable.get(nonterm); // get follow set calc so far for this nonterm
-                    Set<String> bodies = productionsMap.get(nonterm); // get productions for this nonterm (A -> α B β or A -> α B)
-
-                    for(String body : bodies){
-                        List<String> elementsInBody = Arrays.asList(body.split("\\s"));
-
-                        // for each nonterm B in prod body
-                        for(String element : elementsInBody){
-                            if(!nonterminals.contains(element)) continue; // only consider elements which are nonterminals (B)
-
-                            // construct string β (str of elements after this element in the body of this prod)
-                            StringBuilder betaStr = new StringBuilder();
-                            int start = elementsInBody.indexOf(element) + 1;
-                            for (int i = start; i < elementsInBody.size(); i++) {
-                                if (i == start) betaStr.append(elementsInBody.get(i));
-                                else betaStr.append(" ").append(elementsInBody.get(i));
-                            }
-
-                            Set<String> newFollowB = new HashSet<>(followTable.get(element));
-
-                            // case 3 in alg: prod A -> α B or A -> α B β where epsilon in FIRST(β)
-                            if(betaStr.toString().equals("")) newFollowB.addAll(followA);
-                            else{
-                                Set<String> firstForBetaStr = calcFirstForString(betaStr.toString());
-                                if(firstForBetaStr.contains("ε")) newFollowB.addAll(followA);
-                                // case 2
-                                firstForBetaStr.remove("ε");
-                                newFollowB.addAll(firstForBetaStr);
-                            }
-
-                            //if(!followTable.get(element).containsAll(newFollowB)){
-                            if(followTable.get(element).size() != newFollowB.size()){
-                                isUpdated = true;
-                                followTable.replace(element, newFollowB);
-                            }
-                        }
-                    }
-                }
-            }
-        }
+    /** @return nr of states of the parsing table */
+    public int getNumStates() {
+        return table.getNumStates();
+    }
 
-        /**
-         * Gets FOLLOW(nonterm) from followTable.
-         * nonterm (the param) in some sentential form.
-         * @param nonterm nonterminal for which to calculate set of terminals
-         */
-        Set<String> calcFollow(String nonterm){
-            return new HashSet<>(followTable.get(nonterm));
-        }
+    /** @return nr of ACTION entries which aren't errors */
+    public int getNumActionEntries() {
+        return table.getNumActionEntries();
+    }
 
-        /**
-         * Calculates set of items that begin a string derived from the
-         * given grammar symbol, gramSymb. That is, FIRST(gramSymb)
-         * Note: grammar must NOT be left recursive.
-         *
-         */
-        private void calcAllFirstSets(){
-            // init firstTable
-            for(String gramSymb : grammarSymbols){
-                Set<String> setToAddInit = new HashSet<>();
-                if(terminals.contains(gramSymb)) setToAddInit.add(gramSymb); // if terminal, then first(gramSymb) = {gramSymb}
-                firstTable.put(gramSymb, setToAddInit);
-            }
+    /** @return nr of defined GOTO entries */
+    public int getNumGotoEntries() {
+        return table.getNumGotoEntries();
+    }
 
-            boolean updated = true;
-
-            while(updated) {
-                updated = false;
-
-                // update first(nonterm) set
-                for (String nonterm : nonterminals) {
-                    Set<String> newFirstX = new HashSet<>(firstTable.get(nonterm)); // get current FIRST set calc so far
-                    Set<String> bodies = productionsMap.get(nonterm);
-
-                    for (String body : bodies) {
-                        // prod X (nonterm) —> Y1 Y2 ... Yk, a in FIRST(nonterm X) if:
-                        // for some i, a in FIRST(Yi) & ε in all of FIRST(Y1),..., FIRST(Yi-1);
-                        String[] elements = body.split("\\s"); // get the elements (Yi)
-                        boolean allElReducedToEmpty = true;
-
-                        for (String element : elements) {
-                            Set<String> firstSetForElement = firstTable.get(element);
-                            newFirstX.addAll(firstSetForElement);
-                            // only continue to next element if this one can be reduced to ε
-                            if (!firstSetForElement.contains("ε")) {
-                                allElReducedToEmpty = false;
-                                break;
-                            }
-                        }
-                        // ε in FIRST(gramSymb) only if all elements can be reduced to ε
-                        if (!allElReducedToEmpty && !bodies.contains("ε")) newFirstX.remove("ε");
-                    }
+    /**
+     * Construct the action & goto tables for the SLR parsing table.
+     * @deprecated the table is now constructed when the parser is created, so this does nothing
+     * (kept so that existing callers still work)
+     */
+    @Deprecated
+    public void constructSLRparsingTable(){
+    }
 
-                    if(!firstTable.get(nonterm).containsAll(newFirstX)){
-                        updated = true;
-                        firstTable.replace(nonterm, newFirstX);
-                    }
-                }
+    /** @return SLR lookaheads: FOLLOW(A) for a complete item [A -> α ·] in any state */
+    private static Lookaheads slrLookaheads(Grammar augmentedGrammar) {
+        int numTerms = augmentedGrammar.getSymbols().getNumTerminals();
+        int[][] follow = new int[augmentedGrammar.getSymbols().getNumNonterminals()][];  // FOLLOW(A) for each nonterm A
+        for(int n = 0; n < follow.length; n++) follow[n] = augmentedGrammar.calcFollowIds(numTerms + n);
+        return (state, item) -> follow[augmentedGrammar.getProdHead(augmentedGrammar.getItemProd(item)) - numTerms];
+    }
+
+    /**
+     * Construct the action & goto tables of the LR parsing table of the given augmented grammar.
+     * Conflicts are resolved as follows: shift actions are entered 1st & then reduce actions in order
+     * of declaration of the productions, a later entry overwriting an earlier one.
+     * @param augmentedGrammar {@link Grammar} augmented grammar G' (w/start production S' -> StartSymbol)
+     * @param automaton {@link LRAutomaton} states (sets of items) of G' & their GOTO transitions
+     * @param lookaheads {@link Lookaheads} terminals on which to reduce by each complete item of each state
+     * @param acceptItem the item [S' -> StartSymbol ·]
+     * @param conflicts {@link List} to add the conflicts found to, as {state, terminal, discarded action, chosen action}
+     * @return the dense {@link ParsingTable}
+     */
+    private static ParsingTable buildParsingTable(Grammar augmentedGrammar, LRAutomaton automaton, Lookaheads lookaheads,
+                                                  int acceptItem, List<int[]> conflicts){
+        SymbolTable symbols = augmentedGrammar.getSymbols();
+        int numStates = automaton.getNumStates();
+
+        int numTerms = symbols.getNumTerminals();
+        int numNonterms = symbols.getNumNonterminals();
+
+        int[] action = new int[numStates * numTerms];  // init tables (all entries error)
+        int[][] gotoTable = new int[numStates][numNonterms];
+
+        // build states & determine their parsing actions
+        // for itemSet Ii in canonCollection C = {I0, I1, ..., In}
+        for(int i = 0; i < numStates; i++){
+            ItemSet itemSet = automaton.getItemSet(i);
+            int row = i * numTerms;  // start of ACTION entry for current state
+
+            // case a) [A -> α · a β] is in Ii and GOTO(Ii, a) = Ij (a must be a terminal)
+            for(int k = 0; k < itemSet.size(); k++){
+                int terminalA = augmentedGrammar.getItemNextSymb(itemSet.get(k));
+                if(terminalA < 0 || !symbols.isTerminal(terminalA)) continue;
+
+                // ACTION[i, a] = "shift j"
+                action[row + terminalA] = ParsingTable.pack(ParsingTable.SHIFT, automaton.getTransition(i, terminalA));
             }
-        }
 
-        /**
-         * Gets FIRST(gramSymb) from firstTable.
-         * @param gramSymb grammar symbol for which to calculate set of terminals
-         */
-        private Set<String> calcFirstForGramSymb(String gramSymb){
-            return new HashSet<>(firstTable.get(gramSymb));
-        }
+            for(int k = 0; k < itemSet.size(); k++){
+                int item = itemSet.get(k);
+
+                // case c) [S' -> startSymb ·] in Ii, then ACTION[i, $] = "accept"
+                if(item == acceptItem){
+                    enter(action, row, symbols.getEndMarker(), ParsingTable.ACCEPT, i, conflicts);
 
-        /**
-         * Calculates set of items that begin a string derived from the
-         * given string, strToCalc. That is, FIRST(strToCalc)
-         * @param strToCalc grammar symbol for which to calculate FIRST set
-         */
-        private Set<String> calcFirstForString(String strToCalc){
-            Set<String> result = new HashSet<>();
-            String[] elements = strToCalc.split("\\s"); // get the elements of the str (Xi) (str is X1 X2 ... Xk)
-
-            boolean allElReducedToEmpty = true;
-
-            for(String element : elements){
-                Set<String> firstSetForElement = calcFirstForGramSymb(element);
-                result.addAll(firstSetForElement);
-                // only continue to next element if this one can be reduced to ε
-                if(!firstSetForElement.contains("ε")){
-                    allElReducedToEmpty = false;
-                    break;
+                // case b) [A -> α ·] is in Ii
+                }else if(augmentedGrammar.getItemNextSymb(item) < 0){
+                    // ACTION[i, a] = "reduce A -> α" for all a in the lookaheads of [A -> α ·] (FOLLOW(A) for SLR)
+                    int reduce = ParsingTable.pack(ParsingTable.REDUCE, augmentedGrammar.getItemProd(item));
+                    for(int term : lookaheads.of(i, item)){
+                        enter(action, row, term, reduce, i, conflicts);
+                    }
                 }
             }
 
-            // ε in FIRST(strToCalc) only if all elements can be reduced to ε
-            if(!allElReducedToEmpty) result.remove("ε");
+            // GOTO[i, A] = j if GOTO(Ii, A) = Ij
+            for(int n = 0; n < numNonterms; n++){
+                gotoTable[i][n] = automaton.getTransition(i, numTerms + n);
+            }
+        }
 
-            return result;
+        // productions which can be reduced by & the names of the symbols of the table columns
+        Production[] productions = new Production[augmentedGrammar.getNumProductions()];
+        int[] prodHead = new int[productions.length];
+        int[] prodLength = new int[productions.length];
+        for(int p = 0; p < productions.length; p++){
+            productions[p] = augmentedGrammar.getProduction(p);
+            prodHead[p] = augmentedGrammar.getProdHead(p) - numTerms;
+            prodLength[p] = augmentedGrammar.getProdLength(p);
         }
+        String[] terminals = new String[numTerms];
+        for(int t = 0; t < numTerms; t++) terminals[t] = symbols.getName(t);
+        String[] nonterminals = new String[numNonterms];
+        for(int n = 0; n < numNonterms; n++) nonterminals[n] = symbols.getName(numTerms + n);
+
+        // starting state is one constructed from set of items containing [S' -> · StartSymbol] (i.e. the 1st one)
+        return new ParsingTable(productions, prodHead, prodLength, terminals, nonterminals, 0, action, gotoTable);
     }
 
-    interface ParserAction {
-        String toString();
+    /** Enters a reduce or accept action in ACTION[state, term], recording a conflict if the entry was already set */
+    private static void enter(int[] action, int row, int term, int newAction, int state, List<int[]> conflicts) {
+        int oldAction = action[row + term];
+        if(oldAction != ParsingTable.ERROR && oldAction != newAction) conflicts.add(new int[]{state, term, oldAction, newAction});
+        action[row + term] = newAction;
     }
-    class ShiftAction implements ParserAction{
-        Integer stateToShift;
-        ShiftAction(Integer stateToShift) {
-            this.stateToShift = stateToShift;
-        }
 
-        @Override
-        public String toString() {
-            return "shift " + stateToShift;
+    /** @return unmodifiable list of the conflicts recorded by {@link #buildParsingTable}, described w/the table */
+    private List<ParsingConflict> describeConflicts(List<int[]> tableConflicts) {
+        List<ParsingConflict> described = new ArrayList<>();
+        for (int[] conflict : tableConflicts) {
+            described.add(new ParsingConflict(conflict[0], table.getTerminal(conflict[1]), table.actionToString(conflict[2]),
+                    table.actionToString(conflict[3]), ParsingTable.kind(conflict[2]) == ParsingTable.SHIFT));
         }
+        return Collections.unmodifiableList(described);
     }
-    class ReduceAction implements ParserAction{
-        Production prodToReduceBy;
-        ReduceAction(Production prodToReduceBy){
-            this.prodToReduceBy = prodToReduceBy;
-        }
 
-        @Override
-        public String toString() {
-            return "reduce " + prodToReduceBy;
-        }
+    /** @return index of the start production S' -> StartSymbol of the augmented grammar */
+    private static int startProd(Grammar augmentedGrammar) {
+        return augmentedGrammar.getProdsOfNonterm(augmentedGrammar.getSymbols().getId(augmentedGrammar.getStartSymbol()))[0];
     }
-    class AcceptAction implements ParserAction{
-        AcceptAction(){}
 
-        @Override
-        public String toString() {
-            return "accept";
+    /**
+     * LR parsing program. Builds a parse tree from the given input string, outputting each production
+     * as it reduces by it (see {@link #reductionPrinter}).
+     * @param inputStr {@link List<Token>} stream of tokens from lexer (not modified, the input endmarker is implicit)
+     * @return root node of the parse tree
+     */
+    public ParseTreeNode parse(List<Token> inputStr) throws ParsingError {
+        System.out.println("------------------");
+        System.out.println("Reductions output by parser: \n---");
+
+        try {
+            return parse(TokenSource.of(inputStr), new ParseContext(), reductionPrinter(System.out));
+        } catch (IOException | InvalidCharException e) {
+            throw new IllegalStateException(e);  // can't happen, tokens come from a list & not from a lexer
         }
     }
-    class ErrorAction implements ParserAction{
-        ErrorAction(){}
 
-        @Override
-        public String toString() {
-            return "error";
-        }
+    /**
+     * LR parsing program. Builds a parse tree from the tokens pulled (one at a time) from the given source,
+     * so lexing happens while parsing & the input doesn't need to be tokenised all at once.
+     * Nothing is output (to trace the parse, see {@link #parse(TokenSource, ParseContext, ParseListener)}).
+     * @param input {@link TokenSource} source of tokens, e.g. a streaming lexer (see {@link lexer.LexicalAnalyser#tokens})
+     * @return root node of the parse tree
+     * @throws IOException -- the token source cannot read its input
+     * @throws InvalidCharException -- the token source encounters an invalid char in its input
+     */
+    public ParseTreeNode parse(TokenSource input) throws ParsingError, IOException, InvalidCharException {
+        return parse(input, new ParseContext(), ParseListener.NONE);
     }
 
-    private Grammar grammar;
-    private Grammar augmentedGrammar;
-    private Map<Integer, Map<String, ParserAction>> SLRactionTable;
-    private List<Set<String>> mapIntStToSetOfItems;
-    private Integer startState;
+    /**
+     * LR parsing program. Builds a parse tree from the tokens pulled from the given source, without outputting
+     * the reductions & using (& resetting) the given context instead of allocating a new one.
+     * Safe to call from many threads at the same time, as long as each thread uses its own context.
+     * @param input {@link TokenSource} source of tokens
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @return root node of the parse tree
+     * @throws IOException -- the token source cannot read its input
+     * @throws InvalidCharException -- the token source encounters an invalid char in its input
+     */
+    public ParseTreeNode parse(TokenSource input, ParseContext context) throws ParsingError, IOException, InvalidCharException {
+        return parse(input, context, ParseListener.NONE);
+    }
 
-    public Parser(File gramSpecification) throws IOException {
-        grammar = new Grammar(gramSpecification);
+    /**
+     * LR parsing program. Builds a parse tree from the tokens in the given buffer (see
+     * {@link lexer.LexicalAnalyser#scan(CharSequence, TokenBuffer)}), without outputting the reductions
+     * & using (& resetting) the given context.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @return root node of the parse tree
+     */
+    public ParseTreeNode parse(TokenBuffer tokens, ParseContext context) throws ParsingError {
+        return parse(tokens, context, ParseListener.NONE);
+    }
 
-        // create augmented grammar
-        Set<String> newNonterm = new HashSet<>();
-        newNonterm.add("S'");
-        Set<Production> newProd = new HashSet<>();
-        newProd.add(new Production("S'", grammar.getStartSymbol()));
+    /**
+     * LR parsing program. Builds a parse tree from the tokens in the given buffer, using the given context
+     * & reporting the parse events to the given listener.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param listener {@link ParseListener} receiving the parse events ({@link ParseListener#NONE} for none)
+     * @return root node of the parse tree
+     */
+    public ParseTreeNode parse(TokenBuffer tokens, ParseContext context, ParseListener listener) throws ParsingError {
+        return parse(tokens, context, listener, null, null);
+    }
 
-        augmentedGrammar = new Grammar(grammar, newNonterm, null, newProd, "S'");
+    /**
+     * Incremental LR parsing program. Builds the parse tree for the tokens of an edited input, reusing the
+     * unchanged subtrees of the tree built for the input before the edit.
+     * @see #reparse(ParseTreeNode, TokenBuffer, TokenEdit, ParseContext, ParseListener)
+     */
+    public ParseTreeNode reparse(ParseTreeNode previousTree, TokenBuffer tokens, TokenEdit edit, ParseContext context)
+            throws ParsingError {
+        return reparse(previousTree, tokens, edit, context, ParseListener.NONE);
     }
 
     /**
-     * Calculates closure of the given set of items
-     *
-     * @param itemSet set of items
-     * @return set of items forming the closure of the given set of items itemSet
+     * Incremental LR parsing program. Builds the parse tree for the tokens of an edited input (see
+     * {@link lexer.LexicalAnalyser#rescan}), reusing the subtrees of the tree built by this parser for the input
+     * before the edit. Each node of a tree records the state on top of the stack when it was pushed & the nr of
+     * tokens it spans: when the parser is in that state w/the node's tokens next in the input, followed by the same
+     * token as before, it would build the same subtree again (its actions only depend on the states & the tokens),
+     * so it pushes the node (& GOTO of its symbol) instead. The largest such node starting at the next token is
+     * reused, so the parser only goes through the tokens edited & the nodes on the paths from them to the root.
+     * The nodes reused are shared w/the previous tree (nodes are never modified, so that's safe).
+     * @param previousTree root of the parse tree built by this parser for the tokens before the edit (trees built
+     * in other ways, e.g. from a {@link ParseTree}, don't record states, so nothing is reused from them)
+     * @param tokens {@link TokenBuffer} tokens after the edit (not modified, the input endmarker is implicit)
+     * @param edit {@link TokenEdit} tokens changed by the edit
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param listener {@link ParseListener} receiving the parse events ({@link ParseListener#NONE} for none),
+     * a reused subtree being reported as a single {@link ParseListener#reuse} event
+     * @return root node of the parse tree
      */
-    private Set<String> closure(Set<String> itemSet) {
-        Set<String> j = new HashSet<>(itemSet);
-        boolean itemAddedFlag = true; // true if an item added to j
-        HashMap<String, Boolean> added = new HashMap<>();  // indicates if item (key) has been added to J
-
-        while (itemAddedFlag) {
-            itemAddedFlag = false;
-            Set<String> newJ = new HashSet<>(j);
-
-            // "for each item A -> α · B β in j"
-            for (String item : j) {
-                if(item.indexOf('·') == item.length() - 1) continue;  // do not consider items w/dot at end
-                String[] splitAtDot = item.split("\\s·\\s");
-                String afterDot = splitAtDot[1];
-                String element = afterDot.split("\\s")[0]; // get 1st element after dot (bc elements in items & prod separated by space)
-
-                // if it's ε, (i.e. A -> · ε), then add A -> ε · to closure set (newJ)
-                if(element.equals("ε")) newJ.add(splitAtDot[0] + " ε ·");
-
-                // check it's a non-term
-                if (!grammar.getNonterminals().contains(element)) continue;
-                Set<String> bodies = grammar.getProductionsMap().get(element);  // get all prod bodies for nonterm after dot in item
-
-                // "for each prod B -> γ of grammar"
-                if (!added.getOrDefault(element, false)) {  // if B -> · γ not in j
-
-                    for (String body : bodies) {
-                        String itemToAdd = element + " -> · " + body;  // item B -> · γ
-                        newJ.add(itemToAdd);
+    public ParseTreeNode reparse(ParseTreeNode previousTree, TokenBuffer tokens, TokenEdit edit, ParseContext context,
+                                 ParseListener listener) throws ParsingError {
+        return parse(tokens, context, listener, previousTree, edit);
+    }
+
+    private ParseTreeNode parse(TokenBuffer tokens, ParseContext context, ParseListener listener,
+                                ParseTreeNode previousTree, TokenEdit edit) throws ParsingError {
+        ParseTreeNode[] nodes = context.treeNodes;
+        int np = 0;  // nr of nodes on node stack
+        int tp = 0;  // nr of subtrees of the previous tree on their stack (see split)
+        if (previousTree != null && previousTree.getNumTokens() > 0) {
+            context.subtrees[0] = previousTree;
+            context.subtreeStarts[0] = 0;
+            tp = 1;
+        }
+        int sp = start(context, listener);  // top of state stack
+        int i = 0;  // index of next token
+        int column = column(tokens, 0);
+
+        while(true){
+            int old = tp > 0 ? edit.oldIndex(i) : -1;  // index of the next token before the edit
+            if(old >= 0){
+                // drop the subtrees the parser has gone past & split the one whose tokens it's in the middle of
+                while(tp > 0 && context.subtreeStarts[tp - 1] < old){
+                    ParseTreeNode subtree = context.subtrees[--tp];
+                    context.subtrees[tp] = null;
+                    int start = context.subtreeStarts[tp];
+                    if(start + subtree.getNumTokens() > old) tp = split(context, subtree, start, tp);
+                }
+                // largest subtree starting at the next token which was pushed in the current state, & whose
+                // tokens & the one after them are unchanged
+                ParseTreeNode reused = tp > 0 && context.subtreeStarts[tp - 1] == old ? context.subtrees[tp - 1] : null;
+                int limit = i < edit.getStart() ? edit.getStart() - 1 : Integer.MAX_VALUE;  // max index of its lookahead
+                int nonterm = -1;
+                while(reused != null && (reused.getState() != context.states[sp] || old + reused.getNumTokens() > limit
+                        || (nonterm = table.nonterminal(reused.getSymbol())) < 0)){
+                    reused = leftmostChild(reused);
+                }
+                if(reused != null){
+                    while(context.subtrees[tp - 1] != reused){  // (it's on the leftmost path of the top subtree)
+                        ParseTreeNode subtree = context.subtrees[--tp];
+                        tp = split(context, subtree, context.subtreeStarts[tp], tp);
                     }
-                    added.put(element, true);
-                    itemAddedFlag = true;
+                    context.subtrees[--tp] = null;
+                    if(np == nodes.length) nodes = context.treeNodes = Arrays.copyOf(nodes, 2 * np);
+                    nodes[np++] = reused;
+                    int nextState = table.goTo(context.states[sp], nonterm);
+                    listener.reuse(context.states[sp], reused.getNumTokens(), nextState);
+                    sp = push(context, sp, nextState);
+                    i += reused.getNumTokens();
+                    column = column(tokens, i);
+                    continue;
                 }
             }
-            j = newJ;
+
+            int action = table.action(context.states[sp], column);
+            int actionKind = ParsingTable.kind(action);
+
+            if(actionKind == ParsingTable.SHIFT){
+                // create node for terminal (w/value of INT or FLOAT as child) & push onto node stack
+                TokenName name = tokens.getName(i);
+                String value = null;
+                if(name == TokenName.INT) value = tokens.isBig(i) ? tokens.getBigInteger(i).toString() : Long.toString(tokens.getLong(i));
+                else if(name == TokenName.FLOAT) value = Double.toString(tokens.getDouble(i));
+                if(np == nodes.length) nodes = context.treeNodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np++] = leaf(column, value, context.states[sp]);
+                sp = shift(context, sp, name, action, listener);
+                column = column(tokens, ++i);
+
+            }else if(actionKind == ParsingTable.REDUCE){
+                int prodIndex = ParsingTable.arg(action);
+                int bodyLength = table.getProdLength(prodIndex);
+                np -= bodyLength;
+                if(np == nodes.length) nodes = context.treeNodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np] = node(table.getProdHead(prodIndex), nodes, np, bodyLength, context.states[sp - bodyLength]);
+                np++;
+                sp = reduce(context, sp, prodIndex, listener);
+
+            }else if(actionKind == ParsingTable.ACCEPT){
+                Arrays.fill(context.subtrees, 0, tp, null);
+                listener.accept(context.states[sp]);
+                return popRoot(nodes, np);
+
+            }else{
+                Arrays.fill(nodes, 0, np, null);
+                Arrays.fill(context.subtrees, 0, tp, null);
+                throw syntaxError(context, sp, tokens, i, listener);
+            }
         }
-        return j;
     }
 
     /**
-     * Calculates & returns the value of GOTO(itemSet, gramSymb).
-     *
-     * @param itemSet set of items
-     * @return set of items given by GOTO(itemSet, gramSymb)
+     * Splits a subtree of the previous tree in an incremental parse: pushes its children which span tokens onto the
+     * stack of subtrees ahead of the parser (in place of the subtree, which was popped), so the leftmost is on top.
+     * @param subtree {@link ParseTreeNode} subtree to split
+     * @param start index of its 1st token (before the edit)
+     * @param tp nr of subtrees on the stack
+     * @return nr of subtrees on the stack after pushing the children
      */
-    private Set<String> calcGoto(Set<String> itemSet, String gramSymb){
-        Set<String> result = new HashSet<>();
-
-        // "for each item A -> α · gramSymb β in itemSet"
-        for(String item : itemSet){
-            if(item.indexOf('·') == item.length() - 1) continue;  // do not consider items w/dot at end
+    private static int split(ParseContext context, ParseTreeNode subtree, int start, int tp) {
+        List<ParseTreeNode> children = subtree.getChildren();
+        if(tp + children.size() > context.subtrees.length){
+            int capacity = Math.max(2 * context.subtrees.length, tp + children.size());
+            context.subtrees = Arrays.copyOf(context.subtrees, capacity);
+            context.subtreeStarts = Arrays.copyOf(context.subtreeStarts, capacity);
+        }
+        int end = start + subtree.getNumTokens();
+        for(ParseTreeNode child : children){  // rightmost 1st (children are in the order they were popped)
+            if(child.getNumTokens() <= 0) continue;  // (ε subtrees & values of numbers)
+            end -= child.getNumTokens();
+            context.subtrees[tp] = child;
+            context.subtreeStarts[tp++] = end;
+        }
+        return tp;
+    }
 
+    /** @return leftmost child of a node which spans tokens, null if there's none (e.g. for terminals) */
+    private static ParseTreeNode leftmostChild(ParseTreeNode node) {
+        List<ParseTreeNode> children = node.getChildren();
+        for(int c = children.size() - 1; c >= 0; c--){
+            if(children.get(c).getNumTokens() > 0) return children.get(c);
+        }
+        return null;
+    }
 
-            String[] splitAtDot = item.split("\\s·\\s");
-            String[] elementsAfterDot = splitAtDot[1].split("\\s");
-            if(!gramSymb.equals(elementsAfterDot[0])) continue; // check if item has · directly to the left of gramSymb
+    /**
+     * LR parsing program. Builds the parse tree for the tokens in the given buffer into a compact {@link ParseTree}
+     * (which is cleared 1st), without outputting the reductions & using the given context.
+     * No objects are allocated per token or per node, except when the tree or the stacks need to grow.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param tree {@link ParseTree} to build the parse tree in
+     * @return index of the root node in the tree
+     */
+    public int parse(TokenBuffer tokens, ParseContext context, ParseTree tree) throws ParsingError {
+        return parse(tokens, context, tree, ParseListener.NONE);
+    }
 
-            // get string (β) that appears after the gramSymb in the item
-            StringBuilder betaStr = new StringBuilder();
-            for(int i = 1; i < elementsAfterDot.length; i++){
-                betaStr.append(" ").append(elementsAfterDot[i]);
-            }
+    /**
+     * LR parsing program. Builds the parse tree for the tokens in the given buffer into a compact {@link ParseTree}
+     * (see {@link #parse(TokenBuffer, ParseContext, ParseTree)}), reporting the parse events to the given listener.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param tree {@link ParseTree} to build the parse tree in
+     * @param listener {@link ParseListener} receiving the parse events ({@link ParseListener#NONE} for none)
+     * @return index of the root node in the tree
+     */
+    public int parse(TokenBuffer tokens, ParseContext context, ParseTree tree, ParseListener listener) throws ParsingError {
+        tree.reset(table);
+        int[] nodes = context.nodes;
+        int np = 0;  // nr of nodes on node stack
+        int sp = start(context, listener);  // top of state stack
+        int i = 0;  // index of next token
+        int column = column(tokens, 0);
 
-            // add item A -> α gramSymb · β to set
-            Set<String> itemSetForClosure = new HashSet<>();
-            itemSetForClosure.add(splitAtDot[0] + " " + gramSymb + " ·" + betaStr.toString());
-            result.addAll(closure(itemSetForClosure)); // calc closure of set of item A -> α gramSymb · β
+        while(true){
+            int action = table.action(context.states[sp], column);
+            int actionKind = ParsingTable.kind(action);
+
+            if(actionKind == ParsingTable.SHIFT){
+                // create leaf for terminal, w/value of INT or FLOAT
+                int node;
+                TokenName name = tokens.getName(i);
+                if(name == TokenName.INT && tokens.isBig(i)) node = tree.addBigLeaf(column, tokens.getBigInteger(i));
+                else if(name == TokenName.INT) node = tree.addLeaf(column, tokens.getLong(i));
+                else if(name == TokenName.FLOAT) node = tree.addLeaf(column, Double.doubleToRawLongBits(tokens.getDouble(i)));
+                else node = tree.addLeaf(column, 0);
+                if(np == nodes.length) nodes = context.nodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np++] = node;
+                sp = shift(context, sp, name, action, listener);
+                column = column(tokens, ++i);
+
+            }else if(actionKind == ParsingTable.REDUCE){
+                int prodIndex = ParsingTable.arg(action);
+                int bodyLength = table.getProdLength(prodIndex);
+                // pop |β| nodes, linking them (children of the new node) as siblings
+                np -= bodyLength;
+                for (int k = np; k < np + bodyLength - 1; k++) tree.setNextSibling(nodes[k], nodes[k + 1]);
+                int firstChild = bodyLength > 0 ? nodes[np] : ParseTree.NONE;
+                if(np == nodes.length) nodes = context.nodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np++] = tree.addNode(table.getProdHead(prodIndex), prodIndex, firstChild);
+                sp = reduce(context, sp, prodIndex, listener);
+
+            }else if(actionKind == ParsingTable.ACCEPT){
+                listener.accept(context.states[sp]);
+                return nodes[np - 1];
+
+            }else throw syntaxError(context, sp, tokens, i, listener);
         }
-
-        return result;
     }
 
     /**
-     * Calculates & returns the value of GOTO(state, gramSymb).
-     *
-     * @param state state of SLR parser automaton (integer, it repr a set of items)
-     * @return state which is given by GOTO(state, gramSymb)
+     * LR parsing program which evaluates the input while parsing it, w/o building a parse tree: the action of
+     * each production is run when reducing by it, on a primitive value stack (see {@link SemanticActions}).
+     * Shifting a number pushes its value, other terminals push 0.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param actions {@link SemanticActions} actions for the productions of the grammar
+     * @return value of the start symbol
+     * @throws IllegalArgumentException -- the actions don't match the productions of the grammar
      */
-    private Integer calcSLRGoto(Integer state, String gramSymb){
-        return mapIntStToSetOfItems.indexOf(calcGoto(mapIntStToSetOfItems.get(state), gramSymb));
+    public double evaluate(TokenBuffer tokens, ParseContext context, SemanticActions actions) throws ParsingError {
+        return evaluate(tokens, context, actions, ParseListener.NONE);
     }
 
     /**
-     * Calculate & return the canonical collection of sets of LR(0) items for the augmented
-     * grammar G'
-     * @return canonical collection of items
+     * LR parsing program which evaluates the input while parsing it (see {@link #evaluate(TokenBuffer, ParseContext, SemanticActions)}),
+     * reporting the parse events to the given listener.
+     * @param tokens {@link TokenBuffer} tokens from lexer (not modified, the input endmarker is implicit)
+     * @param context {@link ParseContext} per-thread context whose stacks are used for this parse
+     * @param actions {@link SemanticActions} actions for the productions of the grammar
+     * @param listener {@link ParseListener} receiving the parse events ({@link ParseListener#NONE} for none)
+     * @return value of the start symbol
      */
-    private Set<Set<String>> calcCanonicalCollection(){
-        // init c (canonical collection)
-        Set<String> initISet = new HashSet<>();
-        initISet.add(augmentedGrammar.getStartSymbol() + " -> · " + grammar.getStartSymbol());
-        Set<Set<String>> c = new HashSet<>();
-        c.add(closure(initISet));
-
-        // build c
-        boolean added = true;
-        while(added){
-            added = false;
-            Set<Set<String>> newC = new HashSet<>(c);
-            for(Set<String> itemSet : c){
-                for(String gramSymb : grammar.getGramSymbols()){
-                    Set<String> gotoResult = calcGoto(itemSet, gramSymb);
-
-                    if(gotoResult.isEmpty() || c.contains(gotoResult)) continue;  // goto is empty or goto in c
-                    newC.add(gotoResult);
-                    added = true;
-                }
-            }
-            c = newC;
-        }
+    public double evaluate(TokenBuffer tokens, ParseContext context, SemanticActions actions, ParseListener listener) throws ParsingError {
+        SemanticAction[] prodActions = actions.bind(table);
+        ValueStack values = context.values;
+        values.clear();
+        int sp = start(context, listener);  // top of state stack
+        int i = 0;  // index of next token
+        int column = column(tokens, 0);
 
-        return c;
+        while(true){
+            int action = table.action(context.states[sp], column);
+            int actionKind = ParsingTable.kind(action);
+
+            if(actionKind == ParsingTable.SHIFT){
+                TokenName name = tokens.getName(i);
+                if(name == TokenName.INT) values.push(tokens.isBig(i) ? tokens.getBigInteger(i).doubleValue() : tokens.getLong(i));
+                else if(name == TokenName.FLOAT) values.push(tokens.getDouble(i));
+                else values.push(0);
+                sp = shift(context, sp, name, action, listener);
+                column = column(tokens, ++i);
+
+            }else if(actionKind == ParsingTable.REDUCE){
+                int prodIndex = ParsingTable.arg(action);
+                int base = values.size() - table.getProdLength(prodIndex);
+                values.replace(base, prodActions[prodIndex].reduce(values, base));
+                sp = reduce(context, sp, prodIndex, listener);
+
+            }else if(actionKind == ParsingTable.ACCEPT){
+                listener.accept(context.states[sp]);
+                return values.get(values.size() - 1);
+
+            }else throw syntaxError(context, sp, tokens, i, listener);
+        }
     }
 
     /**
-     * Construct the action & goto tables for the SLR parsing table.
-     * (stored as fields)
+     * LR parsing program, using the stacks of the given context instead of allocating new ones.
+     * The states are kept on a primitive stack & the symbols of the nodes are the precomputed names of the
+     * table's columns, so the only objects allocated are the nodes of the tree (& those of the token source).
+     * Safe to call from many threads at the same time, as long as each thread uses its own context (& listener).
+     * @param input {@link TokenSource} source of tokens
+     * @param context {@link ParseContext} context whose stacks are used for this parse
+     * @param listener {@link ParseListener} receiving the parse events ({@link ParseListener#NONE} for none,
+     * see {@link #reductionPrinter} to output the reductions)
+     * @return root node of the parse tree
+     * @throws IOException -- the token source cannot read its input
+     * @throws InvalidCharException -- the token source encounters an invalid char in its input
      */
-    public void constructSLRparsingTable(){
-        Set<Set<String>> canonCollection = calcCanonicalCollection();
-        mapIntStToSetOfItems = new ArrayList<>(canonCollection); // init map of int states to sets of items
-        SLRactionTable = new HashMap<>();  // init tables
+    public ParseTreeNode parse(TokenSource input, ParseContext context, ParseListener listener)
+            throws ParsingError, IOException, InvalidCharException {
+        ParseTreeNode[] nodes = context.treeNodes;  // node stack for building parse tree
+        int np = 0;  // nr of nodes on node stack
+        int sp = start(context, listener);  // top of state stack
 
-        // build states & determine their parsing actions
-        // for itemSet Ii in canonCollection C = {I0, I1, ..., In}
-        for(Set<String> itemSet : canonCollection){
-            int i = mapIntStToSetOfItems.indexOf(itemSet);
-
-            Map<String, ParserAction> thisSetSLRActionTableEntry = new HashMap<>();  // init action table entry for current state
-
-            for(String item : itemSet){
-                String[] elements = item.split("\\s");
-
-                // case c) [S' -> startSymb] in Ii, then ACTION[i, $] = "accept"
-                if(item.equals(augmentedGrammar.getStartSymbol() + " -> " + grammar.getStartSymbol() + " ·")){
-                    thisSetSLRActionTableEntry.put("INPUTENDMARKER", new AcceptAction());
-                }else {
-                    int dotIndex = Arrays.asList(elements).indexOf("·");
-
-                    // case b) [A -> α ·] is in Ii
-                    if (dotIndex == elements.length - 1) {
-                        // ACTION[i, a] = "reduce A -> α" for all a in FOLLOW(A)
-                        // find string alpha (using StringBuilder...) (i.e. item is [A -> α · ])
-                        StringBuilder alpha = new StringBuilder();
-                        for (int n = 2; n < elements.length - 1; n++) {
-                            if (n != elements.length - 2) alpha.append(elements[n]).append(" ");
-                            else alpha.append(elements[n]);
-                        }
-
-                        // set the reduce actions
-                        for (String term : augmentedGrammar.calcFollow(elements[0])) {
-                            thisSetSLRActionTableEntry.put(term, new ReduceAction(new Production(elements[0], alpha.toString())));
-                        }
-                    }else{ // case a) [A -> α · a β] is in Ii and GOTO(Ii, a) = Ij (a must be a terminal)
-                        // ACTION[i, a] = "shift j"
-                        String terminalA = elements[dotIndex + 1];
-                        if(!grammar.getTerminals().contains(terminalA)) continue;  // a must be a terminal
-
-                        Integer j = calcSLRGoto(i, terminalA);
-                        if(j >= 0 && j <= mapIntStToSetOfItems.size() - 1) thisSetSLRActionTableEntry.put(terminalA, new ShiftAction(j));
-                    }
-                }
+        Token<?> nextToken = input.next(); // get 1st input symbol
+        int column = table.column(nextToken.getName());
+
+        while(true){
+            int action = table.action(context.states[sp], column);
+            int actionKind = ParsingTable.kind(action);
+
+            if(actionKind == ParsingTable.SHIFT){
+                // create node for terminal (w/numeric value of INT or FLOAT as child) & push onto node stack
+                TokenName name = nextToken.getName();
+                String value = name == TokenName.INT || name == TokenName.FLOAT ? nextToken.getValue().toString() : null;
+                if(np == nodes.length) nodes = context.treeNodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np++] = leaf(column, value, context.states[sp]);
+                sp = shift(context, sp, name, action, listener);
+                nextToken = input.next();
+                column = table.column(nextToken.getName());
+
+            }else if(actionKind == ParsingTable.REDUCE){
+                int prodIndex = ParsingTable.arg(action);  // reduce by A -> β
+                int bodyLength = table.getProdLength(prodIndex);
+                // pop |β| nodes off the stack, the nodes becoming the children of the node for A
+                np -= bodyLength;
+                if(np == nodes.length) nodes = context.treeNodes = Arrays.copyOf(nodes, 2 * np);
+                nodes[np] = node(table.getProdHead(prodIndex), nodes, np, bodyLength, context.states[sp - bodyLength]);
+                np++;
+                sp = reduce(context, sp, prodIndex, listener);
+
+            }else if(actionKind == ParsingTable.ACCEPT){
+                listener.accept(context.states[sp]);
+                return popRoot(nodes, np);
+
+            }else{
+                Arrays.fill(nodes, 0, np, null);
+                throw syntaxError(context, sp, nextToken, listener);
             }
-            SLRactionTable.put(i, thisSetSLRActionTableEntry);  // put entry in SLR action table
         }
+    }
 
-        // starting state is one constructed from set of items containing [S' -> · StartSymbol]
-        Set<String> startStateItemSet = new HashSet<>();
-        String itemToSearchFor = augmentedGrammar.getStartSymbol() + " -> · " + grammar.getStartSymbol();
-        int i = 0;
-        for(; i < mapIntStToSetOfItems.size(); i++){
-            Set<String> currentSet = mapIntStToSetOfItems.get(i);
-            if(currentSet.contains(itemToSearchFor)) break;
-        }
-        this.startState = i;
+    // the steps shared by the LR parsing programs (which only differ in what they build from the tokens & reductions)
+
+    /** Pushes the start state onto the (empty) state stack & reports the start of a parse @return top of the stack */
+    private int start(ParseContext context, ParseListener listener) {
+        context.states[0] = table.getStartState();
+        listener.start();
+        return 0;
+    }
+
+    /** Pushes a state onto the state stack (growing it if it's full) @return new top of the stack */
+    private static int push(ParseContext context, int sp, int state) {
+        if(++sp == context.states.length) context.states = Arrays.copyOf(context.states, 2 * sp);
+        context.states[sp] = state;
+        return sp;
+    }
+
+    /** Does a shift action on a terminal: reports it & pushes the state shifted to @return new top of the stack */
+    private static int shift(ParseContext context, int sp, TokenName name, int action, ParseListener listener) {
+        int nextState = ParsingTable.arg(action);
+        listener.shift(context.states[sp], name, nextState);
+        return push(context, sp, nextState);
     }
 
     /**
-     * LR parsing program. Builds a parse tree from the given input string.
-     *  - Must call constructSLRparsing table before calling this method.
-     * @param inputStr {@link List<Token>} stream of tokens from lexer
-     * @return root node of the parse tree
+     * Does the state stack part of reducing by A -> β: pops |β| states, pushes GOTO[state on top of stack, A]
+     * & reports the reduction.
+     * @return new top of the stack
      */
-    public ParseTreeNode parse(List<Token> inputStr) throws ParsingError {
-        Stack<Integer> stack = new Stack<>();  // create parsing stack
-        stack.push(startState);  // initially, starting state is on stack
-        inputStr.add(new Token<>(TokenName.INPUTENDMARKER, "$"));  // add input endmarker to input str
+    private int reduce(ParseContext context, int sp, int prodIndex, ParseListener listener) {
+        int topState = context.states[sp];
+        sp -= table.getProdLength(prodIndex);
+        int nextState = table.goTo(context.states[sp], table.getProdHead(prodIndex));
+        listener.reduce(topState, prodIndex, nextState);
+        return push(context, sp, nextState);
+    }
 
-        Stack<ParseTreeNode> nodeStack = new Stack<>(); // create node stack for building parse tree
+    /** @return terminal column of the i-th token of the buffer (of the input endmarker after its last token) */
+    private int column(TokenBuffer tokens, int i) {
+        return table.column(i < tokens.size() ? tokens.getName(i) : TokenName.INPUTENDMARKER);
+    }
 
-        Iterator<Token> iterator = inputStr.iterator(); // to iterate through input in seq
-        Token nextToken = iterator.next(); // get 1st input symbol
+    /** Reports a syntax error at the i-th token of the buffer (or at its end) & creates the exception to throw */
+    private static ParsingError syntaxError(ParseContext context, int sp, TokenBuffer tokens, int i, ParseListener listener) {
+        Token<?> token = i < tokens.size() ? tokens.getToken(i) : new Token<>(TokenName.INPUTENDMARKER, "$");
+        return syntaxError(context, sp, token, listener);
+    }
 
-        System.out.println("------------------");
-        System.out.println("Reductions output by parser: \n---");
+    /** Reports a syntax error at the given token & creates the exception to throw (w/a copy of the state stack) */
+    private static ParsingError syntaxError(ParseContext context, int sp, Token<?> token, ParseListener listener) {
+        listener.error(context.states[sp], token.getName());
+        return new ParsingError(context.states, sp + 1, token);
+    }
 
-        while(true){
-            Integer topState = stack.peek();
-            ParserAction action = SLRactionTable.get(topState).getOrDefault(nextToken.getStrName(), new ErrorAction());
-
-            if(action instanceof ShiftAction){
-                stack.push(((ShiftAction) action).stateToShift);    // push state onto stack
-                // create node for terminal & push onto stack
-                List<ParseTreeNode> child = null;
-                if(nextToken.getStrName().equals("INT") || nextToken.getStrName().equals("FLOAT")){
-                    // if INT or FLOAT, add numeric value as child
-                    child = new ArrayList<>();
-                    child.add(new ParseTreeNode(nextToken.getValue().toString(), null));
-                }
-                nodeStack.push(new ParseTreeNode(nextToken.getStrName(), child));
-                nextToken = iterator.next();
-
-            }else if(action instanceof ReduceAction){
-                Production prod = ((ReduceAction) action).prodToReduceBy;  // get prod A -> β
-
-                if(!prod.getBody().equals("ε")) {
-                    List<ParseTreeNode> children = new ArrayList<>();
-                    // pop |β| symbols & nodes off stack & nodeStack respectively
-                    for (int i = 0; i < prod.getBody().split(" ").length; i++) {
-                        stack.pop();
-                        children.add(nodeStack.pop());
-                    }
-                    stack.push(calcSLRGoto(stack.peek(), prod.getHead()));  // push GOTO[st on top of stack, A] onto stack
-                    nodeStack.push(new ParseTreeNode(prod.getHead(), children)); // create node for non-term & push onto stack
-
-                }else{ // ε production
-                    stack.push(calcSLRGoto(topState, prod.getHead()));  // push GOTO[st on top of stack, A] onto stack
-                    // create node for non-term
-                    List<ParseTreeNode> children = new ArrayList<>();
-                    children.add(new ParseTreeNode("ε", null));
-                    nodeStack.push(new ParseTreeNode(prod.getHead(), children)); // push node onto stack
-                }
+    /**
+     * Creates a listener which outputs each production as the parser reduces by it (as {@link #parse(List)} does).
+     * @param out {@link PrintStream} to output the productions to
+     * @return {@link ParseListener} outputting the reductions
+     */
+    public ParseListener reductionPrinter(PrintStream out) {
+        return new ParseListener() {
+            @Override
+            public void reduce(int state, int production, int nextState) {
+                out.println(table.getProduction(production));  // output production A -> β
+            }
+        };
+    }
 
-                System.out.println(prod);  // output production A -> β
+    /**
+     * @param production index of a production (e.g. as reported to a {@link ParseListener})
+     * @return {@link String} production, in the form "head -> body"
+     */
+    public String getProductionString(int production) {
+        return table.getProduction(production).toString();
+    }
 
-            }else if(action instanceof AcceptAction) break;
+    /** Creates the node for a terminal shifted in the given state, w/its value (if it's a number) as child */
+    private ParseTreeNode leaf(int column, String value, int state) {
+        String symbol = table.getTerminal(column);
+        return new ParseTreeNode(symbol, value == null ? null : new ParseTreeNode(value), state, 1);
+    }
 
-            else throw new ParsingError(stack, nextToken);
-        }
+    /**
+     * Creates the node for a reduction to the given nonterm, whose children are the top count nodes of the stack,
+     * pushed in the given state
+     */
+    private ParseTreeNode node(int nonterm, ParseTreeNode[] nodes, int from, int count, int state) {
+        String symbol = table.getNonterminal(nonterm);
+        return count == 0 ? new ParseTreeNode(symbol, EPSILON, state, 0) : new ParseTreeNode(symbol, nodes, from, count, state);
+    }
 
-        return nodeStack.pop(); // return root node
+    /** Gets the root node when accepting, clearing the node stack so the context doesn't keep the tree alive */
+    private static ParseTreeNode popRoot(ParseTreeNode[] nodes, int np) {
+        ParseTreeNode root = nodes[np - 1];
+        Arrays.fill(nodes, 0, np, null);
+        return root;
     }
 }
@@ -0,0 +1,239 @@
+package parser;
+
+import lexer.TokenName;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class ParserGenerator {
+    /**
+     * Generates the source of a standalone parser class for a grammar.
+     * The grammar is read & its SLR parsing table constructed by {@link Parser}; the generated class then holds
+     * the tables (as int arrays unpacked from string literals when it's loaded), the reduce code specialised for each
+     * production & a driver loop over a {@link lexer.TokenBuffer} which only does array lookups & switches (no maps,
+     * no action objects, no iterators). It builds the same parse tree as
+     * {@link Parser#parse(lexer.TokenBuffer, ParseContext)}.
+     * The generated class is in the parser package (it creates {@link ParseTreeNode}s & throws {@link ParsingError}s).
+     *
+     * Usage: java parser.ParserGenerator grammarFile outputDir [ClassName]
+     */
+
+    private static final int CHUNK_LENGTH = 8192;  // nr of chars per string literal (must be < 64K bytes once compiled)
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: java parser.ParserGenerator grammarFile outputDir [ClassName]");
+            return;
+        }
+        String className = args.length > 2 ? args[2] : "GeneratedParser";
+        File outputFile = generate(new File(args[0]), new File(args[1]), className);
+        System.out.println("Parser for " + args[0] + " written to " + outputFile);
+    }
+
+    /**
+     * Generates a parser class for the given grammar & writes it to outputDir/className.java
+     * @param gramSpecification {@link File} grammar specification (see {@link Parser#Parser(File)})
+     * @param outputDir {@link File} directory to write the source file to
+     * @param className name of the generated class
+     * @return {@link File} the source file written
+     * @throws IOException -- cannot access the grammar file or write the source file
+     */
+    public static File generate(File gramSpecification, File outputDir, String className) throws IOException {
+        String source = generateSource(gramSpecification, className);
+        File outputFile = new File(outputDir, className + ".java");
+        try {
+            Files.createDirectories(outputDir.toPath());
+            Files.write(outputFile.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IOException("Can't write file " + outputFile, e);
+        }
+        return outputFile;
+    }
+
+    /**
+     * Generates the source of a parser class for the given grammar.
+     * @param gramSpecification {@link File} grammar specification (see {@link Parser#Parser(File)})
+     * @param className name of the generated class
+     * @return {@link String} Java source of the class
+     * @throws IOException -- cannot access the grammar file
+     */
+    public static String generateSource(File gramSpecification, String className) throws IOException {
+        Parser parser = new Parser(gramSpecification);
+        return generateSource(parser.getTable(), className, gramSpecification.getName());
+    }
+
+    static String generateSource(ParsingTable table, String className, String grammarName) {
+        int numStates = table.getNumStates();
+        int numTerms = table.getNumTerminals();
+        int numNonterms = table.getNumNonterminals();
+
+        int[] action = new int[numStates * numTerms];
+        int[] gotoTable = new int[numStates * numNonterms];
+        for (int state = 0; state < numStates; state++) {
+            for (int t = 0; t < numTerms; t++) action[state * numTerms + t] = table.action(state, t);
+            for (int n = 0; n < numNonterms; n++) gotoTable[state * numNonterms + n] = table.goTo(state, n);
+        }
+
+        StringBuilder src = new StringBuilder();
+        src.append("package parser;\n\n")
+                .append("import lexer.Token;\n")
+                .append("import lexer.TokenBuffer;\n")
+                .append("import lexer.TokenName;\n\n")
+                .append("import java.util.Arrays;\n\n")
+                .append("/** SLR parser for ").append(escape(grammarName)).append(", generated by ParserGenerator. Do not edit. */\n")
+                .append("public final class ").append(className).append(" {\n")
+                .append("    private static final int NUM_TERMINALS = ").append(numTerms).append(";\n")
+                .append("    private static final int NUM_NONTERMINALS = ").append(numNonterms).append(";\n")
+                .append("    private static final int START_STATE = ").append(table.getStartState()).append(";\n")
+                .append("    private static final int END_COLUMN = ").append(table.column(TokenName.INPUTENDMARKER)).append(";\n")
+                .append("    private static final Token<String> END = new Token<>(TokenName.INPUTENDMARKER, \"$\");\n")
+                .append("    private static final ParseTreeNode EPSILON = new ParseTreeNode(\"").append(escape("ε")).append("\");\n\n");
+
+        appendIntTable(src, "ACTION", action);
+        appendIntTable(src, "GOTO", gotoTable);
+
+        // terminal column of each token name (-1 if not in grammar)
+        src.append("    private static final int[] COLUMN = new int[TokenName.values().length];\n\n")
+                .append("    static {\n")
+                .append("        Arrays.fill(COLUMN, -1);\n");
+        for (TokenName name : TokenName.values()) {
+            if (table.column(name) >= 0) {
+                src.append("        COLUMN[TokenName.").append(name.name()).append(".ordinal()] = ").append(table.column(name)).append(";\n");
+            }
+        }
+        src.append("    }\n\n");
+
+        src.append("    private ").append(className).append("() {}\n\n")
+                .append("    /**\n")
+                .append("     * LR parsing program. Builds a parse tree from the tokens in the given buffer.\n")
+                .append("     * @param tokens tokens from lexer (not modified, the input endmarker is implicit)\n")
+                .append("     * @return root node of the parse tree\n")
+                .append("     */\n")
+                .append("    public static ParseTreeNode parse(TokenBuffer tokens) throws ParsingError {\n")
+                .append("        int[] stack = new int[64];\n")
+                .append("        ParseTreeNode[] nodes = new ParseTreeNode[64];\n")
+                .append("        int sp = 0;  // top of stack\n")
+                .append("        int np = 0;  // nr of nodes on node stack\n")
+                .append("        stack[0] = START_STATE;\n\n")
+                .append("        int numTokens = tokens.size();\n")
+                .append("        int i = 0;  // index of next token\n")
+                .append("        int column = numTokens > 0 ? COLUMN[tokens.getNameOrdinal(0)] : END_COLUMN;\n\n")
+                .append("        while (true) {\n")
+                .append("            int action = column < 0 ? 0 : ACTION[stack[sp] * NUM_TERMINALS + column];\n")
+                .append("            int nextState;\n")
+                .append("            switch (action & 3) {\n")
+                .append("                case 1:  // shift\n")
+                .append("                    nextState = action >>> 2;\n")
+                .append("                    nodes = push(nodes, np++, leaf(tokens, i, stack[sp]));\n")
+                .append("                    column = ++i < numTokens ? COLUMN[tokens.getNameOrdinal(i)] : END_COLUMN;\n")
+                .append("                    break;\n")
+                .append("                case 2:  // reduce\n")
+                .append("                    switch (action >>> 2) {\n");
+
+        for (int p = 0; p < table.getNumProductions(); p++) {
+            Production prod = table.getProduction(p);
+            int length = table.getProdLength(p);
+            src.append("                        case ").append(p).append(":  // ").append(escape(prod.toString())).append("\n");
+            if (length == 0) {
+                src.append("                            nodes = push(nodes, np++, new ParseTreeNode(\"").append(escape(prod.getHead()))
+                        .append("\", EPSILON, stack[sp], 0));\n");
+            } else {
+                // children popped off the node stack straight into the node (in the order Parser builds them)
+                src.append("                            sp -= ").append(length).append(";\n")
+                        .append("                            np -= ").append(length).append(";\n")
+                        .append("                            nodes[np] = new ParseTreeNode(\"").append(escape(prod.getHead()))
+                        .append("\", nodes, np, ").append(length).append(", stack[sp]);\n")
+                        .append("                            np++;\n");
+            }
+            src.append("                            nextState = GOTO[stack[sp] * NUM_NONTERMINALS + ").append(table.getProdHead(p)).append("];\n")
+                    .append("                            break;\n");
+        }
+
+        src.append("                        default:\n")
+                .append("                            throw new IllegalStateException(\"Unknown production \" + (action >>> 2));\n")
+                .append("                    }\n")
+                .append("                    break;\n")
+                .append("                case 3:  // accept\n")
+                .append("                    return nodes[np - 1];\n")
+                .append("                default:  // error\n")
+                .append("                    throw new ParsingError(stack, sp + 1, i < numTokens ? tokens.getToken(i) : END);\n")
+                .append("            }\n\n")
+                .append("            if (++sp == stack.length) stack = Arrays.copyOf(stack, 2 * stack.length);\n")
+                .append("            stack[sp] = nextState;\n")
+                .append("        }\n")
+                .append("    }\n\n")
+                .append("    /** Creates the node for the i-th token, shifted in the given state, w/its value (if it's a number) as child */\n")
+                .append("    private static ParseTreeNode leaf(TokenBuffer tokens, int i, int state) {\n")
+                .append("        TokenName name = tokens.getName(i);\n")
+                .append("        ParseTreeNode value = null;\n")
+                .append("        if (name == TokenName.INT) {\n")
+                .append("            value = new ParseTreeNode(tokens.isBig(i) ? tokens.getBigInteger(i).toString() : Long.toString(tokens.getLong(i)));\n")
+                .append("        } else if (name == TokenName.FLOAT) {\n")
+                .append("            value = new ParseTreeNode(Double.toString(tokens.getDouble(i)));\n")
+                .append("        }\n")
+                .append("        return new ParseTreeNode(name.name(), value, state, 1);\n")
+                .append("    }\n\n")
+                .append("    private static ParseTreeNode[] push(ParseTreeNode[] nodes, int np, ParseTreeNode node) {\n")
+                .append("        if (np == nodes.length) nodes = Arrays.copyOf(nodes, 2 * nodes.length);\n")
+                .append("        nodes[np] = node;\n")
+                .append("        return nodes;\n")
+                .append("    }\n\n")
+                .append("    /** Decodes an int table stored as string literals (2 chars per int) */\n")
+                .append("    private static int[] unpack(String[] chunks, int length) {\n")
+                .append("        int[] table = new int[length];\n")
+                .append("        int i = 0;\n")
+                .append("        for (String chunk : chunks) {\n")
+                .append("            for (int c = 0; c < chunk.length(); c += 2) table[i++] = (chunk.charAt(c) << 16) | chunk.charAt(c + 1);\n")
+                .append("        }\n")
+                .append("        return table;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        return src.toString();
+    }
+
+    /**
+     * Appends the declaration of a static final int table. The ints are stored as 2 chars each in string literals,
+     * as large array initializers would exceed the max size of a method (the static initializer).
+     */
+    private static void appendIntTable(StringBuilder src, String name, int[] values) {
+        src.append("    private static final int[] ").append(name).append(" = unpack(new String[]{\n");
+        for (int start = 0; start < values.length; start += CHUNK_LENGTH / 2) {
+            src.append("            \"");
+            for (int i = start; i < Math.min(values.length, start + CHUNK_LENGTH / 2); i++) {
+                src.append(charLiteral((char) (values[i] >>> 16))).append(charLiteral((char) values[i]));
+            }
+            src.append("\",\n");
+        }
+        src.append("    }, ").append(values.length).append(");\n\n");
+    }
+
+    /** Escapes a string so it can be put in a Java string literal or comment */
+    private static String escape(String str) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : str.toCharArray()) escaped.append(charLiteral(c));
+        return escaped.toString();
+    }
+
+    /**
+     * Escaped form of a char inside a Java string literal.
+     * (unicode escapes are translated before the source is tokenised, so they can't be used for line
+     * terminators, quotes & backslashes)
+     */
+    private static String charLiteral(char c) {
+        switch (c) {
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            default:
+                if (c >= 0x20 && c <= 0x7E) return String.valueOf(c);
+                return String.format("\\u%04x", (int) c);
+        }
+    }
+}
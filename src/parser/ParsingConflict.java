@@ -0,0 +1,85 @@
+package parser;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public final class ParsingConflict {
+    /**
+     * Conflict found while constructing a parsing table: 2 actions for the same ACTION[state, terminal] entry.
+     * Conflicts are resolved as follows: shift actions are entered 1st & then reduce (& accept) actions in order of
+     * declaration of the productions, a later entry replacing an earlier one. So a reduction always wins over a shift
+     * (e.g. "sign -> ε" in the bundled grammar) & the later production wins a reduce/reduce conflict.
+     */
+
+    private final int state;
+    private final String terminal;
+    private final String discarded;
+    private final String chosen;
+    private final boolean shiftReduce;
+
+    ParsingConflict(int state, String terminal, String discarded, String chosen, boolean shiftReduce) {
+        this.state = state;
+        this.terminal = terminal;
+        this.discarded = discarded;
+        this.chosen = chosen;
+        this.shiftReduce = shiftReduce;
+    }
+
+    /** @return state of the ACTION entry */
+    public int getState() {
+        return state;
+    }
+
+    /** @return name of the terminal of the ACTION entry */
+    public String getTerminal() {
+        return terminal;
+    }
+
+    /** @return true for a shift/reduce conflict, false for a reduce/reduce one */
+    public boolean isShiftReduce() {
+        return shiftReduce;
+    }
+
+    /** @return description of the action which was replaced, e.g. "shift 3" */
+    public String getDiscarded() {
+        return discarded;
+    }
+
+    /** @return description of the action which is in the table, e.g. "reduce sign -> ε" */
+    public String getChosen() {
+        return chosen;
+    }
+
+    /**
+     * Writes the conflict in the binary form of {@link ParsingTable#write} (e.g. to cache it w/the table).
+     * @param out {@link DataOutputStream} to write the conflict to
+     * @throws IOException -- error writing to out
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(state);
+        ParsingTable.writeString(out, terminal);
+        ParsingTable.writeString(out, discarded);
+        ParsingTable.writeString(out, chosen);
+        out.writeBoolean(shiftReduce);
+    }
+
+    /**
+     * Reads a conflict written by {@link #write(DataOutputStream)}.
+     * @param in {@link ByteBuffer} positioned at the start of the conflict (its position is advanced past it)
+     * @return the conflict read
+     */
+    static ParsingConflict read(ByteBuffer in) {
+        int state = in.getInt();
+        String terminal = ParsingTable.readString(in);
+        String discarded = ParsingTable.readString(in);
+        String chosen = ParsingTable.readString(in);
+        return new ParsingConflict(state, terminal, discarded, chosen, in.get() != 0);
+    }
+
+    @Override
+    public String toString() {
+        return (shiftReduce ? "shift/reduce" : "reduce/reduce") + " conflict in state " + state + " on " + terminal
+                + ": " + chosen + " (instead of " + discarded + ")";
+    }
+}
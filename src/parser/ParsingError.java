@@ -2,11 +2,40 @@ package parser;
 
 import lexer.Token;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 public class ParsingError extends Exception {
-    ParsingError(Stack<Integer> stack, Token nextToken){
-        super();
-        System.out.println("Stack contents: " + stack + " | Next lexer.Token: " + nextToken);
+    /**
+     * Syntax error detected by the parser: no action for the next token in the state on top of the stack.
+     * The stack contents & the token are in the message (& can be got w/{@link #getStates()} & {@link #getNextToken()}),
+     * nothing is output when the error is created.
+     */
+
+    private final int[] states;
+    private final Token<?> nextToken;
+
+    /**
+     * @param states parsing stack (of states), w/the top of the stack at index size - 1
+     * @param size nr of states on the stack
+     * @param nextToken {@link Token} the parser can't shift or reduce on
+     */
+    ParsingError(int[] states, int size, Token<?> nextToken){
+        this(Arrays.copyOf(states, size), nextToken);
+    }
+
+    private ParsingError(int[] states, Token<?> nextToken){
+        super("Stack contents: " + Arrays.toString(states) + " | Next lexer.Token: " + nextToken);
+        this.states = states;
+        this.nextToken = nextToken;
+    }
+
+    /** @return copy of the parsing stack (of states) when the error was detected, bottom 1st */
+    public int[] getStates() {
+        return states.clone();
+    }
+
+    /** @return {@link Token} the parser can't shift or reduce on */
+    public Token<?> getNextToken() {
+        return nextToken;
     }
 }
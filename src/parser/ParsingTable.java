@@ -0,0 +1,343 @@
+package parser;
+
+import lexer.TokenName;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+final class ParsingTable {
+    /**
+     * Final, dense form of the ACTION & GOTO tables of an LR parser.
+     *  - ACTION is stored as a single packed int array indexed by [state * nr of terminals + terminal column].
+     *    Each entry holds the kind of action in its 2 lowest bits & its argument (state to shift to or
+     *    index of the production to reduce by) in the remaining bits.
+     *  - GOTO is stored as an int[state][nonterminal] array, -1 if GOTO is undefined.
+     * Once built the tables are never modified, so the parse loop only does array lookups.
+     * {@link #compress()} gives a copy w/the tables in a smaller form (see {@link CompressedTables}), still w/O(1) lookups.
+     */
+
+    static final int ERROR = 0;
+    static final int SHIFT = 1;
+    static final int REDUCE = 2;
+    static final int ACCEPT = 3;
+
+    private final Production[] productions;
+    private final int[] prodHead;     // index of the nonterm at the head of each production
+    private final int[] prodLength;   // nr of symbols in the body of each production (0 for ε productions)
+    private final String[] terminals;
+    private final String[] nonterminals;
+    private final int[] tokenColumn;  // maps TokenName ordinal to its terminal column (-1 if not in grammar)
+    private final Map<String, Integer> nonterminalIndex;
+    private final int numStates;
+    private final int startState;
+    private final int[] action;  // null if compressed
+    private final int[][] gotoTable;  // null if compressed
+    private final CompressedTables compressed;  // null if dense
+    private final int numActionEntries;
+    private final int numGotoEntries;
+
+    ParsingTable(Production[] productions, int[] prodHead, int[] prodLength, String[] terminals,
+                 String[] nonterminals, int startState, int[] action, int[][] gotoTable) {
+        this.productions = productions;
+        this.prodHead = prodHead;
+        this.prodLength = prodLength;
+        this.terminals = terminals;
+        this.nonterminals = nonterminals;
+        this.startState = startState;
+        this.action = action;
+        this.gotoTable = gotoTable;
+        this.compressed = null;
+        this.numStates = gotoTable.length;
+
+        tokenColumn = new int[TokenName.values().length];
+        for (TokenName name : TokenName.values()) {
+            tokenColumn[name.ordinal()] = Arrays.asList(terminals).indexOf(name.name());
+        }
+        nonterminalIndex = new HashMap<>();
+        for (int n = 0; n < nonterminals.length; n++) nonterminalIndex.put(nonterminals[n], n);
+
+        int actions = 0;
+        for (int a : action) if (a != ERROR) actions++;
+        numActionEntries = actions;
+        int gotos = 0;
+        for (int[] row : gotoTable) {
+            for (int g : row) if (g >= 0) gotos++;
+        }
+        numGotoEntries = gotos;
+    }
+
+    /** Copy of the given dense tables in compressed form */
+    private ParsingTable(ParsingTable dense, CompressedTables compressed) {
+        this.productions = dense.productions;
+        this.prodHead = dense.prodHead;
+        this.prodLength = dense.prodLength;
+        this.terminals = dense.terminals;
+        this.nonterminals = dense.nonterminals;
+        this.tokenColumn = dense.tokenColumn;
+        this.nonterminalIndex = dense.nonterminalIndex;
+        this.numStates = dense.numStates;
+        this.startState = dense.startState;
+        this.action = null;
+        this.gotoTable = null;
+        this.compressed = compressed;
+        this.numActionEntries = dense.numActionEntries;
+        this.numGotoEntries = dense.numGotoEntries;
+    }
+
+    /**
+     * Gets the tables in compressed form (see {@link CompressedTables}): lookups of error entries of the ACTION rows
+     * w/a default reduction give that reduction, & lookups of undefined GOTO entries give a default state.
+     * @return {@link ParsingTable} w/compressed tables (this table if they're already compressed)
+     */
+    ParsingTable compress() {
+        if (compressed != null) return this;
+        return new ParsingTable(this, new CompressedTables(action, gotoTable, terminals.length));
+    }
+
+    boolean isCompressed() {
+        return compressed != null;
+    }
+
+    /** @return nr of bytes taken by the arrays of the ACTION & GOTO tables */
+    long getBytes() {
+        if (compressed != null) return compressed.getBytes();
+        long bytes = bytes(action) + 16 + 4L * gotoTable.length;  // (+ the array of GOTO rows)
+        for (int[] row : gotoTable) bytes += bytes(row);
+        return bytes;
+    }
+
+    /** @return nr of bytes taken by an int array (w/a 16 byte header) */
+    static long bytes(int[] array) {
+        return 16 + 4L * array.length;
+    }
+
+    /** @return {@link CompressedTables} of a compressed table, null if it's dense */
+    CompressedTables getCompressedTables() {
+        return compressed;
+    }
+
+    static int pack(int kind, int arg) {
+        return (arg << 2) | kind;
+    }
+
+    static int kind(int action) {
+        return action & 3;
+    }
+
+    static int arg(int action) {
+        return action >>> 2;
+    }
+
+    int getNumStates() {
+        return numStates;
+    }
+
+    int getNumTerminals() {
+        return terminals.length;
+    }
+
+    int getNumNonterminals() {
+        return nonterminals.length;
+    }
+
+    /** @return nr of ACTION entries which aren't errors (in the dense tables, i.e. w/o default reductions) */
+    int getNumActionEntries() {
+        return numActionEntries;
+    }
+
+    /** @return nr of GOTO entries which are defined (in the dense tables) */
+    int getNumGotoEntries() {
+        return numGotoEntries;
+    }
+
+    int getStartState() {
+        return startState;
+    }
+
+    /**
+     * Gets the terminal column corresponding to the given token name.
+     * @param name {@link TokenName} name of the token
+     * @return column of the terminal in the ACTION table, -1 if the grammar doesn't use that token
+     */
+    int column(TokenName name) {
+        return tokenColumn[name.ordinal()];
+    }
+
+    /**
+     * Gets the packed ACTION[state, terminal] entry.
+     * @param state state of the parser automaton
+     * @param column terminal column (see {@link #column(TokenName)}), an unknown terminal (-1) is an error
+     * @return packed action (use {@link #kind(int)} & {@link #arg(int)} to unpack it)
+     */
+    int action(int state, int column) {
+        if (column < 0) return ERROR;
+        if (compressed != null) return compressed.action(state, column);
+        return action[state * terminals.length + column];
+    }
+
+    /**
+     * Gets GOTO[state, nonterm].
+     * @param state state of the parser automaton
+     * @param nonterm index of the nonterminal
+     * @return state given by GOTO[state, nonterm], -1 if undefined (any state for compressed tables)
+     */
+    int goTo(int state, int nonterm) {
+        if (compressed != null) return compressed.goTo(state, nonterm);
+        return gotoTable[state][nonterm];
+    }
+
+    Production getProduction(int prod) {
+        return productions[prod];
+    }
+
+    int getNumProductions() {
+        return productions.length;
+    }
+
+    int getProdHead(int prod) {
+        return prodHead[prod];
+    }
+
+    int getProdLength(int prod) {
+        return prodLength[prod];
+    }
+
+    String getTerminal(int column) {
+        return terminals[column];
+    }
+
+    String getNonterminal(int nonterm) {
+        return nonterminals[nonterm];
+    }
+
+    /** @return index of the nonterm w/the given name, -1 if there's none (e.g. it's a terminal) */
+    int nonterminal(String symbol) {
+        Integer nonterm = nonterminalIndex.get(symbol);
+        return nonterm == null ? -1 : nonterm;
+    }
+
+    /**
+     * String representation of a packed action, e.g. "shift 3", "reduce E -> S E'", "accept" or "error"
+     * @param action packed action
+     * @return {@link String} description of the action
+     */
+    String actionToString(int action) {
+        switch (kind(action)) {
+            case SHIFT:
+                return "shift " + arg(action);
+            case REDUCE:
+                return "reduce " + productions[arg(action)];
+            case ACCEPT:
+                return "accept";
+            default:
+                return "error";
+        }
+    }
+
+    /**
+     * Writes the tables in a compact binary form (big-endian ints & length-prefixed UTF-8 strings),
+     * which can be read back with {@link #read(ByteBuffer)}. Only dense tables can be written: the lookups of
+     * compressed tables give default reductions & gotos for error & undefined entries, which can't be told apart
+     * from the real ones anymore (the dense tables they were compressed from must be written instead).
+     * @param out {@link DataOutputStream} to write the tables to
+     * @throws IOException -- error writing to out
+     * @throws IllegalStateException -- the tables are compressed
+     */
+    void write(DataOutputStream out) throws IOException {
+        if (compressed != null) throw new IllegalStateException("Compressed tables can't be written");
+        writeStrings(out, terminals);
+        writeStrings(out, nonterminals);
+        out.writeInt(productions.length);
+        for (int p = 0; p < productions.length; p++) {
+            writeString(out, productions[p].getHead());
+            writeString(out, productions[p].getBody());
+            out.writeInt(prodHead[p]);
+            out.writeInt(prodLength[p]);
+        }
+        out.writeInt(numStates);
+        out.writeInt(startState);
+        for (int state = 0; state < numStates; state++) {
+            for (int t = 0; t < terminals.length; t++) out.writeInt(action(state, t));
+        }
+        for (int state = 0; state < numStates; state++) {
+            for (int n = 0; n < nonterminals.length; n++) out.writeInt(goTo(state, n));
+        }
+    }
+
+    /**
+     * Reads tables written by {@link #write(DataOutputStream)}.
+     * @param in {@link ByteBuffer} positioned at the start of the tables (its position is advanced past them)
+     * @return the tables read
+     */
+    static ParsingTable read(ByteBuffer in) {
+        String[] terminals = readStrings(in);
+        String[] nonterminals = readStrings(in);
+        Production[] productions = new Production[in.getInt()];
+        int[] prodHead = new int[productions.length];
+        int[] prodLength = new int[productions.length];
+        for (int p = 0; p < productions.length; p++) {
+            productions[p] = new Production(readString(in), readString(in));
+            prodHead[p] = in.getInt();
+            prodLength[p] = in.getInt();
+        }
+        int numStates = in.getInt();
+        int startState = in.getInt();
+        int[] action = readInts(in, numStates * terminals.length);
+        int[][] gotoTable = new int[numStates][];
+        for (int state = 0; state < numStates; state++) gotoTable[state] = readInts(in, nonterminals.length);
+
+        return new ParsingTable(productions, prodHead, prodLength, terminals, nonterminals, startState, action, gotoTable);
+    }
+
+    static void writeString(DataOutputStream out, String str) throws IOException {
+        byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeStrings(DataOutputStream out, String[] strs) throws IOException {
+        out.writeInt(strs.length);
+        for (String str : strs) writeString(out, str);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String[] readStrings(ByteBuffer in) {
+        String[] strs = new String[in.getInt()];
+        for (int i = 0; i < strs.length; i++) strs[i] = readString(in);
+        return strs;
+    }
+
+    private static int[] readInts(ByteBuffer in, int length) {
+        int[] ints = new int[length];
+        in.asIntBuffer().get(ints);  // bulk copy, then skip the ints read
+        in.position(in.position() + length * Integer.BYTES);
+        return ints;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder buffer = new StringBuilder();
+        for (int state = 0; state < numStates; state++) {
+            buffer.append(state).append(":");
+            for (int t = 0; t < terminals.length; t++) {
+                int a = action(state, t);
+                if (a != ERROR) buffer.append("  ").append(terminals[t]).append(" -> ").append(actionToString(a));
+            }
+            for (int n = 0; n < nonterminals.length; n++) {
+                if (goTo(state, n) >= 0) buffer.append("  ").append(nonterminals[n]).append(" -> goto ").append(goTo(state, n));
+            }
+            buffer.append('\n');
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,27 @@
+package parser;
+
+class Production {
+    /**
+     * Class representing a production for the grammar
+     */
+    private String head;
+    private String body;
+
+    Production(String head, String body) {
+        this.head = head;
+        this.body = body;
+    }
+
+    String getHead() {
+        return head;
+    }
+
+    String getBody() {
+        return body;
+    }
+
+    @Override
+    public String toString() {
+        return head + " -> " + body;
+    }
+}
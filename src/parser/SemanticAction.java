@@ -0,0 +1,17 @@
+package parser;
+
+/**
+ * Action run when the parser reduces by a production, computing the value of the production's head from
+ * the values of the symbols of its body (see {@link Parser#evaluate}).
+ */
+@FunctionalInterface
+public interface SemanticAction {
+
+    /**
+     * Computes the value of the head of the production.
+     * @param values {@link ValueStack} value stack, the value of the i-th symbol of the body is values.get(base + i)
+     * @param base index in the value stack of the value of the 1st symbol of the body
+     * @return value of the head
+     */
+    double reduce(ValueStack values, int base);
+}
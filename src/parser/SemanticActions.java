@@ -0,0 +1,106 @@
+package parser;
+
+import kernel.Cosine;
+import kernel.Factorial;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public final class SemanticActions {
+    /**
+     * Semantic actions to run at reduce time, keyed by production (in the form "head -> body",
+     * e.g. "E' -> PLUS S E'", as in the grammar specification file).
+     * Productions w/o an action must have a single symbol in their body, whose value is passed up unchanged
+     * (e.g. "F -> T"). The actions are matched w/the productions of a parser's grammar the 1st time they're used
+     * w/that parser (see {@link Parser#evaluate}), so they shouldn't be changed afterwards.
+     */
+
+    private final Map<String, SemanticAction> actions = new LinkedHashMap<>();
+
+    private volatile Binding binding;  // actions indexed by production, for the table they were last bound to
+
+    private static final class Binding {
+        final ParsingTable table;
+        final SemanticAction[] actions;
+
+        Binding(ParsingTable table, SemanticAction[] actions) {
+            this.table = table;
+            this.actions = actions;
+        }
+    }
+
+    /**
+     * Sets the action to run when reducing by the given production.
+     * @param production {@link String} production, in the form "head -> body"
+     * @param action {@link SemanticAction} to run
+     * @return this, so calls can be chained
+     */
+    public SemanticActions put(String production, SemanticAction action) {
+        actions.put(production.trim(), action);
+        binding = null;
+        return this;
+    }
+
+    /**
+     * Creates the actions evaluating the arithmetic expressions of grammar.txt:
+     *  - sign is -1 for MINUS & 1 for ε, & multiplies the number following it
+     *  - * is right-associative (S -> F MULT S), cos & ! apply to the value of their operand
+     *    (see {@link Cosine} & {@link Factorial}, n! is infinite for n > 170)
+     *  - + & - are left-associative, although they're in the right recursive E' tail: each E' reduction puts its
+     *    signed term aside (so the term of the leftmost E' is on top) & its value is the nr of terms put aside.
+     *    E -> S E' then adds them to S in left-to-right order, exactly like ((S + t1) - t2) ...
+     * @return {@link SemanticActions} for the grammar of grammar.txt
+     */
+    public static SemanticActions arithmetic() {
+        return new SemanticActions()
+                .put("N -> sign INT", (values, base) -> values.get(base) * values.get(base + 1))
+                .put("N -> sign FLOAT", (values, base) -> values.get(base) * values.get(base + 1))
+                .put("sign -> MINUS", (values, base) -> -1)
+                .put("sign -> ε", (values, base) -> 1)
+                .put("E -> S E'", (values, base) -> {
+                    double result = values.get(base);
+                    for (int i = (int) values.get(base + 1); i > 0; i--) result += values.popPending();
+                    return result;
+                })
+                .put("E' -> PLUS S E'", (values, base) -> {
+                    values.pushPending(values.get(base + 1));
+                    return values.get(base + 2) + 1;
+                })
+                .put("E' -> MINUS S E'", (values, base) -> {
+                    values.pushPending(-values.get(base + 1));
+                    return values.get(base + 2) + 1;
+                })
+                .put("E' -> ε", (values, base) -> 0)
+                .put("S -> F MULT S", (values, base) -> values.get(base) * values.get(base + 2))
+                .put("F -> COS F", (values, base) -> Cosine.cos(values.get(base + 1)))
+                .put("T -> INT FACTORIAL", (values, base) -> Factorial.asDouble(values.get(base)));
+    }
+
+    /**
+     * Gets the actions indexed by the productions of the given table.
+     * @throws IllegalArgumentException -- an action is for a production which isn't in the grammar,
+     * or a production whose body doesn't have a single symbol has no action
+     */
+    SemanticAction[] bind(ParsingTable table) {
+        Binding current = binding;
+        if (current != null && current.table == table) return current.actions;
+
+        SemanticAction[] result = new SemanticAction[table.getNumProductions()];
+        Map<String, SemanticAction> unused = new LinkedHashMap<>(actions);
+        for (int p = 0; p < result.length; p++) {
+            String production = table.getProduction(p).toString();
+            SemanticAction action = unused.remove(production);
+            if (action == null) {
+                if (table.getProdLength(p) != 1) {
+                    throw new IllegalArgumentException("No semantic action for production " + production);
+                }
+                action = (values, base) -> values.get(base);  // pass the value of the single symbol up
+            }
+            result[p] = action;
+        }
+        if (!unused.isEmpty()) throw new IllegalArgumentException("Productions not in grammar: " + unused.keySet());
+
+        binding = new Binding(table, result);
+        return result;
+    }
+}
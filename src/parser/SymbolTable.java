@@ -0,0 +1,64 @@
+package parser;
+
+import java.util.*;
+
+final class SymbolTable {
+    /**
+     * Interns the grammar symbols as ints.
+     *  - terminals get ids 0 to (nr of terminals - 1), in order of declaration, INPUTENDMARKER being the last one.
+     *  - nonterminals get the following ids, in order of declaration.
+     * ε is not a symbol (ε productions just have an empty body).
+     */
+
+    static final String END_MARKER = "INPUTENDMARKER";
+
+    private final String[] names;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final int numTerminals;
+
+    SymbolTable(Collection<String> terminals, Collection<String> nonterminals) {
+        List<String> symbols = new ArrayList<>();
+        for (String term : terminals) {
+            if (!term.equals("ε") && !term.equals(END_MARKER)) symbols.add(term);
+        }
+        symbols.add(END_MARKER);
+        numTerminals = symbols.size();
+        symbols.addAll(nonterminals);
+
+        names = symbols.toArray(new String[0]);
+        for (int id = 0; id < names.length; id++) ids.put(names[id], id);
+    }
+
+    /**
+     * Gets the id of the given grammar symbol.
+     * @param symbol {@link String} name of a terminal or nonterminal
+     * @return its id, -1 if it isn't a symbol of the grammar
+     */
+    int getId(String symbol) {
+        return ids.getOrDefault(symbol, -1);
+    }
+
+    String getName(int id) {
+        return names[id];
+    }
+
+    boolean isTerminal(int id) {
+        return id < numTerminals;
+    }
+
+    int getNumTerminals() {
+        return numTerminals;
+    }
+
+    int getNumNonterminals() {
+        return names.length - numTerminals;
+    }
+
+    int getNumSymbols() {
+        return names.length;
+    }
+
+    int getEndMarker() {
+        return numTerminals - 1;
+    }
+}
@@ -0,0 +1,67 @@
+package parser;
+
+import java.util.Arrays;
+
+public final class ValueStack {
+    /**
+     * Primitive value stack used when evaluating while parsing (see {@link Parser#evaluate}).
+     * It holds a double for each symbol on the parsing stack: the value of a number for INT & FLOAT, 0 for other
+     * terminals & the value computed by the {@link SemanticAction} which reduced to it for nonterminals.
+     * Actions which can't compute their value yet (e.g. to apply the operators of a right recursive production
+     * in left-to-right order) can put values aside on a separate stack of pending values.
+     */
+
+    private double[] values = new double[64];
+    private int size = 0;
+    private double[] pending = new double[16];
+    private int pendingSize = 0;
+
+    /**
+     * @param i index in the stack (0 is the bottom)
+     * @return value at the given index
+     */
+    public double get(int i) {
+        return values[i];
+    }
+
+    /** @return nr of values on the stack */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Puts a value aside on the stack of pending values.
+     * @param value value to push
+     */
+    public void pushPending(double value) {
+        if (pendingSize == pending.length) pending = Arrays.copyOf(pending, 2 * pendingSize);
+        pending[pendingSize++] = value;
+    }
+
+    /** @return the last value put aside (removing it from the stack of pending values) */
+    public double popPending() {
+        if (pendingSize == 0) throw new IllegalStateException("No pending values");
+        return pending[--pendingSize];
+    }
+
+    /** @return nr of values on the stack of pending values */
+    public int pendingSize() {
+        return pendingSize;
+    }
+
+    void push(double value) {
+        if (size == values.length) values = Arrays.copyOf(values, 2 * size);
+        values[size++] = value;
+    }
+
+    /** Pops the values from the given index upwards, then pushes the given value */
+    void replace(int base, double value) {
+        size = base;
+        push(value);
+    }
+
+    void clear() {
+        size = 0;
+        pendingSize = 0;
+    }
+}
@@ -0,0 +1,74 @@
+package lexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumberScannerTest {
+    /**
+     * The values of INT & FLOAT literals must be exact: the same BigInteger as the digits & the same double as
+     * {@link Double#parseDouble} (which is correctly rounded), whichever path of the scanner converts them.
+     */
+
+    private final NumberScanner scanner = new NumberScanner();
+
+    @Test
+    void integersAreExact() {
+        Random random = new Random(10);
+        String[] fixed = {"0", "7", "9223372036854775807", "9223372036854775808", "18446744073709551616", "000123"};
+        for (String digits : fixed) assertInteger(digits);
+        for (int i = 0; i < 20000; i++) assertInteger(digits(random, 1 + random.nextInt(30)));
+    }
+
+    @Test
+    void decimalsAreCorrectlyRounded() {
+        Random random = new Random(10);
+        String[] fixed = {
+                "0.1", "0.0", "1.", "123.456", "9007199254740993.0", "9007199254740992.5",
+                "0.30000000000000004", "2.2250738585072011", "4.9406564584124654",
+                "1.00000000000000011102230246251565404236316680908203125",  // halfway between 1 & the next double
+                "179769313486231570814527423731704356798070567525844996598917476803157260780028538760589558632766878"
+                        + "17154045895351438246423432132688946418276846754670353751698604991057655128207624549009038932894407"
+                        + "58685084551339423045832369032229481658085593321233482747978262041447231687381771809192998812504040"
+                        + "26184124858368.0"
+        };
+        for (String number : fixed) assertDecimal(number);
+        for (int i = 0; i < 50000; i++) {
+            String integer = digits(random, 1 + random.nextInt(random.nextBoolean() ? 8 : 25));
+            String fraction = digits(random, random.nextInt(random.nextBoolean() ? 8 : 25));
+            assertDecimal(integer + "." + fraction);
+        }
+        // numbers close to halfway between 2 doubles, where the fast paths can't always decide
+        for (int i = 0; i < 5000; i++) {
+            double d = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+            BigDecimal halfway = new BigDecimal(d).add(new BigDecimal(Math.ulp(d)).divide(BigDecimal.valueOf(2)));
+            String number = halfway.toPlainString();
+            assertDecimal(number.contains(".") ? number : number + ".0");
+        }
+    }
+
+    private void assertInteger(String digits) {
+        assertEquals(digits.length(), scanner.scan(digits, 0, digits.length()), "end of " + digits);
+        assertFalse(scanner.isDecimal(), digits);
+        BigInteger expected = new BigInteger(digits);
+        assertEquals(expected.bitLength() >= 64, scanner.isBig(), "isBig " + digits);
+        assertEquals(expected, scanner.getBigInteger(), digits);
+        if (!scanner.isBig()) assertEquals(expected.longValue(), scanner.getLong(), digits);
+    }
+
+    private void assertDecimal(String number) {
+        assertEquals(number.length(), scanner.scan(number, 0, number.length()), "end of " + number);
+        assertTrue(scanner.isDecimal(), number);
+        assertEquals(Double.doubleToLongBits(Double.parseDouble(number)), Double.doubleToLongBits(scanner.getDouble()), number);
+    }
+
+    private static String digits(Random random, int length) {
+        StringBuilder digits = new StringBuilder();
+        for (int i = 0; i < length; i++) digits.append((char) ('0' + random.nextInt(10)));
+        return digits.toString();
+    }
+}
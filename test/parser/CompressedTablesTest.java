@@ -0,0 +1,94 @@
+package parser;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedTablesTest {
+    /**
+     * Compressed tables (see {@link CompressedTables}) must give the same entries as the dense ones, except that
+     * error entries of ACTION may be the row's default reduction & undefined GOTO entries may be any state,
+     * so parsing w/them must accept the same inputs, build the same trees & report errors at the same tokens.
+     */
+
+    @Test
+    void entriesMatchDenseTables() throws IOException {
+        for (File grammar : new File[]{TestInputs.GRAMMAR, TestInputs.write(TestInputs.levelsGrammar(10))}) {
+            for (ConstructionMethod method : ConstructionMethod.values()) {
+                Parser parser = new Parser(grammar, method);
+                ParsingTable dense = parser.getTable();
+                ParsingTable compressed = parser.withCompressedTables().getTable();
+                assertTrue(compressed.isCompressed(), "compressed");
+                String where = grammar.getName() + " " + method;
+
+                for (int state = 0; state < dense.getNumStates(); state++) {
+                    for (int column = 0; column < dense.getNumTerminals(); column++) {
+                        int expected = dense.action(state, column);
+                        int actual = compressed.action(state, column);
+                        if (ParsingTable.kind(expected) != ParsingTable.ERROR) {
+                            assertEquals(expected, actual, where + " ACTION[" + state + ", " + column + "]");
+                        } else {
+                            assertTrue(ParsingTable.kind(actual) == ParsingTable.ERROR || ParsingTable.kind(actual) == ParsingTable.REDUCE,
+                                    where + " error entry ACTION[" + state + ", " + column + "] is " + compressed.actionToString(actual));
+                        }
+                    }
+                    for (int nonterm = 0; nonterm < dense.getNumNonterminals(); nonterm++) {
+                        int expected = dense.goTo(state, nonterm);
+                        if (expected >= 0) assertEquals(expected, compressed.goTo(state, nonterm), where + " GOTO[" + state + ", " + nonterm + "]");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void parsesLikeDenseTables() throws IOException {
+        Random random = new Random(22);
+        ParseContext context = new ParseContext();
+        for (ConstructionMethod method : ConstructionMethod.values()) {
+            Parser dense = new Parser(TestInputs.GRAMMAR, method);
+            Parser compressed = dense.withCompressedTables();
+            for (int i = 0; i < 2000; i++) {
+                String input = TestInputs.expression(random, 10);
+                while (random.nextBoolean()) input = TestInputs.mutate(random, input);
+                TokenBuffer tokens;
+                try {
+                    tokens = LexicalAnalyser.scan(input, new TokenBuffer());
+                } catch (InvalidCharException e) {
+                    continue;
+                }
+                assertEquals(parse(dense, tokens, context), parse(compressed, tokens, context), method + " " + input);
+            }
+        }
+    }
+
+    @Test
+    void compressedTablesAreNotWritten() throws IOException {
+        ParsingTable compressed = new Parser(TestInputs.GRAMMAR).withCompressedTables().getTable();
+        DataOutputStream out = new DataOutputStream(new ByteArrayOutputStream());
+        try {
+            compressed.write(out);
+            fail("compressed tables written");
+        } catch (IllegalStateException expected) {
+            assertEquals(0, out.size(), "nothing written");
+        }
+    }
+
+    /** @return parse tree, or the token of the syntax error */
+    private static String parse(Parser parser, TokenBuffer tokens, ParseContext context) {
+        try {
+            return parser.parse(tokens, context).toString();
+        } catch (ParsingError e) {
+            return "error at " + e.getNextToken();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictReportTest {
+    /**
+     * Each conflict found while constructing a table must be reported (see {@link Parser#getConflicts()}), w/the
+     * action chosen being the one in the table, & only the conflicts of the construction method must be found.
+     * A parser whose table is loaded from a {@link ParseTableCache} must report the same conflicts.
+     */
+
+    // SLR conflict on EQ which LALR(1) lookaheads resolve (dragon book, example 4.48)
+    private static final String ASSIGNMENT_GRAMMAR = "S,L,R\nEQ,STAR,ID\n"
+            + "S -> L EQ R | R\nL -> STAR R | ID\nR -> L\n";
+
+    // reduce/reduce conflict on D & E which only appears when merging the LR(1) states into LALR(1) ones (example 4.58)
+    private static final String LALR_GRAMMAR = "S,A,B\nA1,B1,C1,D,E\n"
+            + "S -> A1 A D | B1 B D | A1 B E | B1 A E\nA -> C1\nB -> C1\n";
+
+    @Test
+    void bundledGrammarConflictsAreReported() throws IOException {
+        for (ConstructionMethod method : ConstructionMethod.values()) {
+            Parser parser = new Parser(TestInputs.GRAMMAR, method);
+            List<ParsingConflict> conflicts = parser.getConflicts();
+            assertFalse(conflicts.isEmpty(), method + ": conflicts");
+            assertTrue(conflicts.stream().anyMatch(c -> c.isShiftReduce() && c.getTerminal().equals("INT")
+                    && c.getChosen().equals("reduce sign -> ε")), method + ": sign -> ε conflict in " + conflicts);
+            assertChosenInTable(parser);
+        }
+    }
+
+    @Test
+    void conflictsDependOnConstructionMethod() throws IOException {
+        Parser slr = new Parser(TestInputs.write(ASSIGNMENT_GRAMMAR), ConstructionMethod.SLR);
+        assertEquals(1, slr.getConflicts().size(), "SLR conflicts " + slr.getConflicts());
+        ParsingConflict conflict = slr.getConflicts().get(0);
+        assertTrue(conflict.isShiftReduce(), "shift/reduce");
+        assertEquals("EQ", conflict.getTerminal(), "terminal");
+        assertEquals("reduce R -> L", conflict.getChosen(), "chosen");
+        assertChosenInTable(slr);
+        assertEquals(0, new Parser(TestInputs.write(ASSIGNMENT_GRAMMAR), ConstructionMethod.LALR1).getConflicts().size(), "LALR(1)");
+        assertEquals(0, new Parser(TestInputs.write(ASSIGNMENT_GRAMMAR), ConstructionMethod.LR1).getConflicts().size(), "LR(1)");
+
+        Parser lalr = new Parser(TestInputs.write(LALR_GRAMMAR), ConstructionMethod.LALR1);
+        assertEquals(2, lalr.getConflicts().size(), "LALR(1) conflicts " + lalr.getConflicts());
+        for (ParsingConflict c : lalr.getConflicts()) {
+            assertFalse(c.isShiftReduce(), "reduce/reduce " + c);
+            assertEquals("reduce B -> C1", c.getChosen(), "later production chosen");
+        }
+        assertChosenInTable(lalr);
+        assertEquals(0, new Parser(TestInputs.write(LALR_GRAMMAR), ConstructionMethod.LR1).getConflicts().size(), "LR(1)");
+    }
+
+    @Test
+    void cachedParserReportsSameConflicts() throws IOException {
+        File cacheDir = Files.createTempDirectory("tables").toFile();
+        for (ConstructionMethod method : ConstructionMethod.values()) {
+            ParseTableCache cache = new ParseTableCache(cacheDir, method);
+            Parser built = cache.rebuild(TestInputs.GRAMMAR);
+            assertTrue(cache.isCached(TestInputs.GRAMMAR), method + ": cached");
+            Parser loaded = cache.getParser(TestInputs.GRAMMAR);
+            assertNotSame(built, loaded, method + ": loaded from the cache");
+            assertEquals(built.getConflicts().toString(), loaded.getConflicts().toString(), method + ": conflicts");
+            assertFalse(loaded.getConflicts().isEmpty(), method + ": conflicts");
+            assertChosenInTable(loaded);
+            cache.invalidate(TestInputs.GRAMMAR);
+        }
+        assertTrue(cacheDir.delete(), "cache dir empty");
+    }
+
+    private static void assertChosenInTable(Parser parser) {
+        ParsingTable table = parser.getTable();
+        for (ParsingConflict conflict : parser.getConflicts()) {
+            int column = -1;
+            for (int t = 0; t < table.getNumTerminals(); t++) if (table.getTerminal(t).equals(conflict.getTerminal())) column = t;
+            assertEquals(conflict.getChosen(), table.actionToString(table.action(conflict.getState(), column)), conflict.toString());
+            assertNotEquals(conflict.getChosen(), conflict.getDiscarded(), conflict.toString());
+        }
+    }
+}
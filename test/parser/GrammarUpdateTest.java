@@ -0,0 +1,149 @@
+package parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GrammarUpdateTest {
+    /**
+     * A parser updated for added & removed productions (see {@link Parser#withProductionsChanged}) must have the same
+     * nullable, FOLLOW & item FIRST sets, ACTION & GOTO tables & conflicts as a parser created from scratch from a
+     * grammar file w/the changed productions.
+     */
+
+    private static final String AUGMENTED_START = "S'";
+
+    @Test
+    void randomChangesMatchFreshParser() throws IOException {
+        Random random = new Random(24);
+        String[] grammars = {
+                new String(Files.readAllBytes(TestInputs.GRAMMAR.toPath()), StandardCharsets.UTF_8),
+                TestInputs.levelsGrammar(3),
+                TestInputs.levelsGrammar(10)
+        };
+        for (String grammar : grammars) {
+            for (ConstructionMethod method : ConstructionMethod.values()) {
+                Parser parser = new Parser(TestInputs.write(grammar), method);
+                for (int step = 0; step < 15; step++) {
+                    List<String> added = new ArrayList<>();
+                    List<String> removed = new ArrayList<>();
+                    randomChange(random, parser.getGrammar(), added, removed);
+                    Parser updated = parser.withProductionsChanged(added, removed);
+                    Parser fresh = new Parser(TestInputs.write(specification(updated.getGrammar())), method);
+                    assertSameTables(fresh, updated, method + " step " + step + " +" + added + " -" + removed);
+                    parser = updated;
+                }
+            }
+        }
+    }
+
+    @Test
+    void removingAddedProductionRestoresTable() throws IOException {
+        for (ConstructionMethod method : ConstructionMethod.values()) {
+            Parser parser = new Parser(TestInputs.GRAMMAR, method);
+            Parser changed = parser.withProductions("F -> MINUS F", "T -> N FACTORIAL");
+            assertSameTables(parser, changed.withoutProductions("F -> MINUS F", "T -> N FACTORIAL"), method.toString());
+        }
+    }
+
+    /** Picks up to 2 productions of the grammar to remove & up to 2 new ones to add (sometimes w/a new head) */
+    private static void randomChange(Random random, Grammar grammar, List<String> added, List<String> removed) {
+        List<String> nonterms = new ArrayList<>(grammar.getNonterminals());
+        nonterms.remove(AUGMENTED_START);
+        List<String> terms = new ArrayList<>(grammar.getTerminals());
+        terms.remove("ε");
+        Set<String> existing = new HashSet<>();
+        for (int p = 0; p < grammar.getNumProductions(); p++) existing.add(grammar.getProduction(p).toString());
+
+        for (int n = random.nextInt(3); n > 0; n--) {
+            Production production = grammar.getProduction(random.nextInt(grammar.getNumProductions()));
+            if (!production.getHead().equals(AUGMENTED_START) && !removed.contains(production.toString())) {
+                removed.add(production.toString());
+            }
+        }
+        for (int n = random.nextInt(3); n > 0; n--) {
+            String head = random.nextInt(6) == 0 ? "N" + random.nextInt(1000) : nonterms.get(random.nextInt(nonterms.size()));
+            StringJoiner body = new StringJoiner(" ");
+            for (int length = random.nextInt(4); length > 0; length--) {
+                body.add(random.nextBoolean() ? terms.get(random.nextInt(terms.size())) : nonterms.get(random.nextInt(nonterms.size())));
+            }
+            String production = head + " -> " + (body.length() == 0 ? "ε" : body);
+            if (!existing.contains(production) && !added.contains(production)) added.add(production);
+        }
+    }
+
+    /** Grammar file specification of the (non-augmented) grammar of an augmented grammar, w/its productions in order */
+    private static String specification(Grammar augmentedGrammar) {
+        List<String> nonterms = new ArrayList<>(augmentedGrammar.getNonterminals());
+        nonterms.remove(AUGMENTED_START);
+        StringBuilder specification = new StringBuilder(String.join(",", nonterms)).append('\n')
+                .append(String.join(",", augmentedGrammar.getTerminals())).append('\n');
+        for (int p = 0; p < augmentedGrammar.getNumProductions(); p++) {
+            Production production = augmentedGrammar.getProduction(p);
+            if (!production.getHead().equals(AUGMENTED_START)) specification.append(production).append('\n');
+        }
+        return specification.toString();
+    }
+
+    private static void assertSameTables(Parser expectedParser, Parser actualParser, String where) {
+        Grammar expected = expectedParser.getGrammar();
+        Grammar actual = actualParser.getGrammar();
+        for (String nonterm : expected.getNonterminals()) {
+            assertEquals(expected.isNullable(expected.getSymbols().getId(nonterm)), actual.isNullable(actual.getSymbols().getId(nonterm)),
+                    where + ": nullable " + nonterm);
+            assertEquals(expected.calcFollow(nonterm), actual.calcFollow(nonterm), where + ": FOLLOW(" + nonterm + ")");
+        }
+        for (int p = 0; p < actual.getNumProductions(); p++) {
+            int q = productionIndex(expected, actual.getProduction(p).toString());
+            for (int dot = 0; dot <= actual.getProdLength(p); dot++) {
+                int actualItem = actual.getInitialItem(p) + dot;
+                int expectedItem = expected.getInitialItem(q) + dot;
+                assertEquals(expected.isItemNullable(expectedItem), actual.isItemNullable(actualItem),
+                        where + ": nullable " + actual.itemToString(actualItem));
+                assertEquals(names(expected, expected.getItemFirst(expectedItem)), names(actual, actual.getItemFirst(actualItem)),
+                        where + ": FIRST " + actual.itemToString(actualItem));
+            }
+        }
+
+        ParsingTable expectedTable = expectedParser.getTable();
+        ParsingTable actualTable = actualParser.getTable();
+        assertEquals(expectedTable.getNumStates(), actualTable.getNumStates(), where + ": states");
+        assertEquals(expectedParser.getConflicts().size(), actualParser.getConflicts().size(), where + ": conflicts");
+        for (int state = 0; state < expectedTable.getNumStates(); state++) {
+            for (int column = 0; column < expectedTable.getNumTerminals(); column++) {
+                assertEquals(expectedTable.actionToString(expectedTable.action(state, column)),
+                        actualTable.actionToString(actualTable.action(state, column)), where + ": ACTION[" + state + ", " + column + "]");
+            }
+            for (int nonterm = 0; nonterm < actualTable.getNumNonterminals(); nonterm++) {
+                String name = actualTable.getNonterminal(nonterm);
+                assertEquals(expectedTable.goTo(state, nonterminalIndex(expectedTable, name)), actualTable.goTo(state, nonterm),
+                        where + ": GOTO[" + state + ", " + name + "]");
+            }
+        }
+    }
+
+    private static int nonterminalIndex(ParsingTable table, String name) {
+        for (int nonterm = 0; nonterm < table.getNumNonterminals(); nonterm++) {
+            if (table.getNonterminal(nonterm).equals(name)) return nonterm;
+        }
+        return fail("Nonterminal not in table: " + name);
+    }
+
+    private static int productionIndex(Grammar grammar, String production) {
+        for (int p = 0; p < grammar.getNumProductions(); p++) {
+            if (grammar.getProduction(p).toString().equals(production)) return p;
+        }
+        return fail("Production not in grammar: " + production);
+    }
+
+    private static Set<String> names(Grammar grammar, BitSet symbols) {
+        Set<String> names = new TreeSet<>();
+        symbols.stream().forEach(symbol -> names.add(grammar.getSymbols().getName(symbol)));
+        return names;
+    }
+}
@@ -0,0 +1,130 @@
+package parser;
+
+import lexer.InvalidCharException;
+import lexer.LexicalAnalyser;
+import lexer.TokenBuffer;
+import lexer.TokenEdit;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalParseTest {
+    /**
+     * Rescanning an edited input (see {@link LexicalAnalyser#rescan}) must give the same tokens as scanning it all
+     * again, & reparsing it (see {@link Parser#reparse}) the same tree (w/the same states & token counts, so it can
+     * be reparsed again) or the same syntax error as parsing it from scratch.
+     */
+
+    @Test
+    void rescanAndReparseMatchScanAndParse() throws IOException, InvalidCharException, ParsingError {
+        Random random = new Random(25);
+        ParseContext context = new ParseContext();
+        for (ConstructionMethod method : ConstructionMethod.values()) {
+            Parser dense = new Parser(TestInputs.GRAMMAR, method);
+            for (Parser parser : new Parser[]{dense, dense.withCompressedTables()}) {
+                for (int round = 0; round < 10; round++) {
+                    String input = TestInputs.expression(random, 30);
+                    TokenBuffer tokens = LexicalAnalyser.scan(input, new TokenBuffer());
+                    ParseTreeNode tree = parser.parse(tokens, context);
+                    for (int step = 0; step < 100; step++) {
+                        int start = random.nextInt(input.length() + 1);
+                        int removed = Math.min(random.nextInt(3), input.length() - start);
+                        StringBuilder inserted = new StringBuilder();
+                        if (random.nextInt(10) == 0) inserted.append(TestInputs.expression(random, 3));
+                        for (int n = random.nextInt(3); n > 0; n--) {
+                            inserted.append(TestInputs.CHARS.charAt(random.nextInt(TestInputs.CHARS.length())));
+                        }
+                        String edited = input.substring(0, start) + inserted + input.substring(start + removed);
+                        String where = method + " \"" + input + "\" -> \"" + edited + "\"";
+
+                        TokenBuffer expectedTokens;
+                        try {
+                            expectedTokens = LexicalAnalyser.scan(edited, new TokenBuffer());
+                        } catch (InvalidCharException e) {
+                            try {
+                                LexicalAnalyser.rescan(edited, tokens, start, removed, inserted.length(), new TokenBuffer());
+                                fail(where + ": no invalid char");
+                            } catch (InvalidCharException expected) {
+                                continue;
+                            }
+                            continue;
+                        }
+                        TokenBuffer editedTokens = new TokenBuffer(1);
+                        TokenEdit edit = LexicalAnalyser.rescan(edited, tokens, start, removed, inserted.length(), editedTokens);
+                        assertSameTokens(expectedTokens, editedTokens, where);
+                        for (int i = 0; i < editedTokens.size(); i++) {
+                            int old = edit.oldIndex(i);
+                            if (old >= 0) assertEquals(tokens.getToken(old).toString(), editedTokens.getToken(i).toString(), where + ": unchanged token " + i);
+                        }
+
+                        ParseTreeNode expectedTree;
+                        try {
+                            expectedTree = parser.parse(expectedTokens, context);
+                        } catch (ParsingError e) {
+                            try {
+                                parser.reparse(tree, editedTokens, edit, context);
+                                fail(where + ": no syntax error");
+                            } catch (ParsingError error) {
+                                assertEquals(e.getMessage(), error.getMessage(), where);
+                            }
+                            continue;
+                        }
+                        ParseTreeNode reparsed = parser.reparse(tree, editedTokens, edit, context);
+                        assertSameTree(expectedTree, reparsed, where);
+                        input = edited;
+                        tokens = editedTokens;
+                        tree = reparsed;
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void reusesSubtreesAfterEdit() throws IOException, InvalidCharException, ParsingError {
+        Parser parser = new Parser(TestInputs.GRAMMAR, ConstructionMethod.LALR1);
+        ParseContext context = new ParseContext();
+        StringBuilder input = new StringBuilder("12");
+        for (int i = 0; i < 1000; i++) input.append(i % 2 == 0 ? "+" : "-").append(i).append("*cos3.5");
+        TokenBuffer tokens = LexicalAnalyser.scan(input, new TokenBuffer());
+        ParseTreeNode tree = parser.parse(tokens, context);
+
+        input.setCharAt(1, '3');  // 12 -> 13
+        TokenBuffer editedTokens = new TokenBuffer();
+        TokenEdit edit = LexicalAnalyser.rescan(input, tokens, 1, 1, 1, editedTokens);
+        assertEquals(0, edit.getStart(), "1st token changed");
+        assertEquals(1, edit.getOldEnd(), "end of tokens replaced");
+        assertEquals(1, edit.getNewEnd(), "end of tokens inserted");
+
+        int[] reused = new int[1];
+        ParseTreeNode reparsed = parser.reparse(tree, editedTokens, edit, context, new ParseListener() {
+            @Override
+            public void reuse(int state, int tokens, int nextState) {
+                reused[0] += tokens;
+            }
+        });
+        assertEquals(editedTokens.size() - 1, reused[0], "tokens reused");
+        assertSameTree(parser.parse(editedTokens, context), reparsed, "reparsed");
+    }
+
+    private static void assertSameTokens(TokenBuffer expected, TokenBuffer actual, String where) {
+        assertEquals(expected.size(), actual.size(), where + ": nr of tokens");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getToken(i).toString(), actual.getToken(i).toString(), where + ": token " + i);
+            assertEquals(expected.getOffset(i), actual.getOffset(i), where + ": offset of token " + i);
+        }
+    }
+
+    private static void assertSameTree(ParseTreeNode expected, ParseTreeNode actual, String where) {
+        assertEquals(expected.getSymbol(), actual.getSymbol(), where);
+        assertEquals(expected.getState(), actual.getState(), where + ": state of " + expected.getSymbol());
+        assertEquals(expected.getNumTokens(), actual.getNumTokens(), where + ": tokens of " + expected.getSymbol());
+        assertEquals(expected.getChildren().size(), actual.getChildren().size(), where + ": children of " + expected.getSymbol());
+        for (int c = 0; c < expected.getChildren().size(); c++) {
+            assertSameTree(expected.getChildren().get(c), actual.getChildren().get(c), where);
+        }
+    }
+}
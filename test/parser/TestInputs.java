@@ -0,0 +1,76 @@
+package parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+final class TestInputs {
+    /**
+     * Grammars & random inputs shared by the tests.
+     */
+
+    static final File GRAMMAR = new File("src/grammar.txt");
+
+    /** Chars of the inputs of grammar.txt, for random edits (incl. the letters of "cos") */
+    static final String CHARS = "0123456789.+-*!cos";
+
+    private TestInputs() {}
+
+    /**
+     * Synthetic expression grammar w/k levels of binary operators, each level Ei -> Ei+1 Ri, Ri -> OPi Ei+1 Ri | ε
+     * (the last level's operands being P -> LPAREN E0 RPAREN | MINUS P | INT | FLOAT)
+     */
+    static String levelsGrammar(int k) {
+        StringBuilder nonterms = new StringBuilder();
+        StringBuilder terms = new StringBuilder();
+        StringBuilder productions = new StringBuilder();
+        for (int i = 0; i < k; i++) {
+            String next = i + 1 < k ? "E" + (i + 1) : "P";
+            nonterms.append("E").append(i).append(",R").append(i).append(',');
+            terms.append("OP").append(i).append(',');
+            productions.append("E").append(i).append(" -> ").append(next).append(" R").append(i).append('\n');
+            productions.append("R").append(i).append(" -> OP").append(i).append(' ').append(next).append(" R").append(i).append(" | ε\n");
+        }
+        nonterms.append("P");
+        terms.append("LPAREN,RPAREN,MINUS,INT,FLOAT,ε");
+        productions.append("P -> LPAREN E0 RPAREN | MINUS P | INT | FLOAT\n");
+        return nonterms + "\n" + terms + "\n" + productions;
+    }
+
+    /** Writes a grammar specification to a temporary file (deleted on exit) */
+    static File write(String specification) throws IOException {
+        File file = File.createTempFile("grammar", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), specification.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /** Random expression of grammar.txt w/up to maxTerms +/- terms of up to 3 factors (cos nests, negative & FLOAT numbers) */
+    static String expression(Random random, int maxTerms) {
+        StringBuilder expression = new StringBuilder();
+        int terms = 1 + random.nextInt(maxTerms);
+        for (int t = 0; t < terms; t++) {
+            if (t > 0) expression.append(random.nextBoolean() ? '+' : '-');
+            int factors = 1 + random.nextInt(3);
+            for (int f = 0; f < factors; f++) {
+                if (f > 0) expression.append('*');
+                while (random.nextInt(4) == 0) expression.append("cos");
+                if (random.nextInt(5) == 0) expression.append('-');
+                expression.append(random.nextInt(1000));
+                if (random.nextInt(4) == 0) expression.append('.').append(random.nextInt(100));
+            }
+        }
+        return expression.toString();
+    }
+
+    /** Replaces a random range of up to 2 chars of the input by up to 2 random chars of {@link #CHARS} */
+    static String mutate(Random random, String input) {
+        int start = random.nextInt(input.length() + 1);
+        int end = Math.min(input.length(), start + random.nextInt(3));
+        StringBuilder inserted = new StringBuilder();
+        for (int n = random.nextInt(3); n > 0; n--) inserted.append(CHARS.charAt(random.nextInt(CHARS.length())));
+        return input.substring(0, start) + inserted + input.substring(end);
+    }
+}